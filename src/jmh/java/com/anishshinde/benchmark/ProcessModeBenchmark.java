@@ -0,0 +1,442 @@
+package com.anishshinde.benchmark;
+
+import com.anishshinde.process.ClientMessageService;
+import com.anishshinde.process.FrameChannel;
+import com.anishshinde.process.IoMode;
+import com.anishshinde.process.PlayerServer;
+import com.anishshinde.process.ProcessOptions;
+import com.anishshinde.process.ServerMessageService;
+import com.anishshinde.process.Transport;
+import com.anishshinde.process.WireProtocol;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the socket path used by the multiprocessing mode.
+ *
+ * Responsibilities:
+ * - roundTrip*: one line written and read back over a localhost TCP connection, using the same
+ *   PrintWriter/BufferedReader setup as ClientMessageService and ServerMessageService.
+ * - game*: a complete game of maxMessages round trips between ClientMessageService and ServerMessageService,
+ *   over a loopback TCP connection or a Unix domain socket (transport).
+ * - sharedMemoryGame*: the same game over Transport.SHARED_MEMORY instead of a socket.
+ * - servedGames: 'clients' initiators playing at the same time against one PlayerServer in serve() mode
+ *   (a virtual thread per connection), over a Unix domain socket.
+ * - multiplexedGames: the same number of games sharing a single connection (ProcessOptions.withGames), to compare
+ *   with servedGames, with and without coalesced writes.
+ * - coalescedGame: a pipelined game over loopback TCP comparing a frame per write with coalesced writes
+ *   (writeBatch), with Nagle's algorithm on or off (tcpNoDelay).
+ *
+ * Developer Decisions:
+ * - Both ends run inside the benchmark JVM, so the numbers contain the socket and the kernel loopback
+ *   but not the JVM start-up that App pays when it launches two processes.
+ * - protocol compares sending the full message per line (FULL) with sending only the appended part (DELTA),
+ *   and ioMode compares BufferedReader/PrintWriter lines (STREAM) with length-prefixed NIO frames (CHANNEL).
+ * - window compares the stop-and-wait game (1) with a pipelined game of independent messages (see ProcessOptions).
+ * - The services are created with printMessages = false, which also switches off the MESSAGE_DELAY_MS sleeps.
+ * - A game opens its own connection (as PlayerClient does), so connection set-up is part of every game.
+ * - Every benchmark exists twice, once in Throughput mode (ops/s) and once in SampleTime mode
+ *   (latency percentiles in microseconds).
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProcessModeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class PingPongState {
+
+        private final String message = "message 0";
+        private ServerSocket serverSocket;
+        private Socket socket;
+        private PrintWriter out;
+        private BufferedReader in;
+        private Thread echoThread;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+            echoThread = new Thread(() -> {
+                try (Socket accepted = serverSocket.accept();
+                     BufferedReader echoIn = new BufferedReader(new InputStreamReader(accepted.getInputStream()));
+                     PrintWriter echoOut = new PrintWriter(accepted.getOutputStream(), true)
+                ) {
+                    String line;
+                    while ((line = echoIn.readLine()) != null) {
+                        echoOut.println(line);
+                    }
+                } catch (IOException ignored) {
+                    // connection closed by the tear down
+                }
+            }, "player2-echo");
+            echoThread.setDaemon(true);
+            echoThread.start();
+
+            socket = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+            out = new PrintWriter(socket.getOutputStream(), true);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException, InterruptedException {
+            socket.close();
+            serverSocket.close();
+            echoThread.join();
+        }
+
+        String roundTrip() throws IOException {
+            out.println(message);
+            return in.readLine();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class GameState {
+
+        @Param({"100", "1000"})
+        public int maxMessages;
+
+        @Param({"FULL", "DELTA"})
+        public WireProtocol protocol;
+
+        @Param({"STREAM", "CHANNEL"})
+        public IoMode ioMode;
+
+        @Param({"TCP", "UNIX_SOCKET"})
+        public Transport transport;
+
+        @Param({"1", "8"})
+        public int window;
+
+        private final Path socketPath = ProcessOptions.defaultSocketPath()
+                .resolveSibling("player-communication-benchmark-" + ProcessHandle.current().pid() + ".sock");
+        private ServerSocketChannel serverChannel;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            if (transport == Transport.UNIX_SOCKET) {
+                Files.deleteIfExists(socketPath);
+                serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX).bind(UnixDomainSocketAddress.of(socketPath));
+            } else {
+                serverChannel = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            serverChannel.close();
+            Files.deleteIfExists(socketPath);
+        }
+
+        void playGame() throws IOException, InterruptedException {
+            ProcessOptions options = ProcessOptions.defaults().withPrintMessages(false).withProtocol(protocol).withWindow(window);
+            Thread serverThread = new Thread(() -> {
+                try (FrameChannel accepted = open(serverChannel.accept())) {
+                    new ServerMessageService(accepted, maxMessages, options).sendMessage();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, "player2");
+            serverThread.start();
+
+            try (FrameChannel channel = open(SocketChannel.open(serverChannel.getLocalAddress()))) {
+                new ClientMessageService(channel, maxMessages, options).sendMessage();
+            }
+            serverThread.join();
+        }
+
+        private FrameChannel open(SocketChannel socketChannel) throws IOException {
+            if (ioMode == IoMode.CHANNEL) return FrameChannel.lengthPrefixed(socketChannel);
+            return transport == Transport.UNIX_SOCKET
+                    ? FrameChannel.lines(socketChannel)
+                    : FrameChannel.lines(socketChannel.socket());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedMemoryGameState {
+
+        @Param({"100", "1000"})
+        public int maxMessages;
+
+        @Param({"FULL", "DELTA"})
+        public WireProtocol protocol;
+
+        @Param({"false", "true"})
+        public boolean headers;
+
+        private final Path file = ProcessOptions.defaultSharedMemoryFile()
+                .resolveSibling("player-communication-benchmark-" + ProcessHandle.current().pid() + ".shm");
+
+        void playGame() throws IOException, InterruptedException {
+            ProcessOptions options = ProcessOptions.defaults().withPrintMessages(false).withProtocol(protocol)
+                    .withTransport(Transport.SHARED_MEMORY).withHeaders(headers);
+            // create the server end first, so the client attaches without waiting
+            FrameChannel serverEnd = FrameChannel.sharedMemoryServer(file, ProcessOptions.DEFAULT_SHARED_MEMORY_CAPACITY);
+            FrameChannel clientEnd = FrameChannel.sharedMemoryClient(file);
+            Thread serverThread = new Thread(() -> {
+                try {
+                    new ServerMessageService(serverEnd, maxMessages, options).sendMessage();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, "player2");
+            serverThread.start();
+
+            new ClientMessageService(clientEnd, maxMessages, options).sendMessage();
+            serverThread.join();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ServedGamesState {
+
+        @Param({"1", "64", "512"})
+        public int clients;
+
+        private final Path socketPath = ProcessOptions.defaultSocketPath()
+                .resolveSibling("player-communication-serve-" + ProcessHandle.current().pid() + ".sock");
+        private ProcessOptions options;
+        private PlayerServer server;
+        private Thread serverThread;
+
+        @Setup(Level.Trial)
+        public void setUp() throws InterruptedException {
+            options = ProcessOptions.defaults().withPrintMessages(false).withIoMode(IoMode.CHANNEL)
+                    .withTransport(Transport.UNIX_SOCKET).withSocketPath(socketPath);
+            server = new PlayerServer(100, options);
+            serverThread = new Thread(() -> {
+                try {
+                    server.serve();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "player2-server");
+            serverThread.start();
+            if (!server.awaitListening(10, TimeUnit.SECONDS)) throw new IllegalStateException("Server is not listening");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            server.shutdown();
+            serverThread.join();
+        }
+
+        void playGames() throws InterruptedException, ExecutionException {
+            List<Future<?>> games = new ArrayList<>(clients);
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int client = 0; client < clients; client++) {
+                    games.add(executor.submit(() -> {
+                        try (FrameChannel channel = FrameChannel.lengthPrefixed(SocketChannel.open(UnixDomainSocketAddress.of(socketPath)))) {
+                            new ClientMessageService(channel, 100, options).sendMessage();
+                        }
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> game : games) game.get();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class MultiplexedGamesState {
+
+        @Param({"1", "64", "512"})
+        public int games;
+
+
+        @Param({"TCP", "UNIX_SOCKET"})
+        public Transport transport;
+
+        @Param({"1", "32"})
+        public int writeBatch;
+
+        private final Path socketPath = ProcessOptions.defaultSocketPath()
+                .resolveSibling("player-communication-multiplex-" + ProcessHandle.current().pid() + ".sock");
+        private ServerSocketChannel serverChannel;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            if (transport == Transport.UNIX_SOCKET) {
+                Files.deleteIfExists(socketPath);
+                serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX).bind(UnixDomainSocketAddress.of(socketPath));
+            } else {
+                serverChannel = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            serverChannel.close();
+            Files.deleteIfExists(socketPath);
+        }
+
+        void playGames() throws IOException, InterruptedException {
+            ProcessOptions options = ProcessOptions.defaults().withPrintMessages(false).withIoMode(IoMode.CHANNEL)
+                    .withGames(games);
+            Thread serverThread = new Thread(() -> {
+                try (FrameChannel accepted = FrameChannel.lengthPrefixed(serverChannel.accept(), writeBatch)) {
+                    new ServerMessageService(accepted, 100, options).sendMessage();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, "player2");
+            serverThread.start();
+
+            try (FrameChannel channel = FrameChannel.lengthPrefixed(SocketChannel.open(serverChannel.getLocalAddress()), writeBatch)) {
+                new ClientMessageService(channel, 100, options).sendMessage();
+            }
+            serverThread.join();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CoalescedGameState {
+
+        @Param({"STREAM", "CHANNEL"})
+        public IoMode ioMode;
+
+        @Param({"1", "16"})
+        public int writeBatch;
+
+        @Param({"false", "true"})
+        public boolean tcpNoDelay;
+
+        private ServerSocketChannel serverChannel;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            serverChannel = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            serverChannel.close();
+        }
+
+        void playGame() throws IOException, InterruptedException {
+            ProcessOptions options = ProcessOptions.defaults().withPrintMessages(false).withWindow(64);
+            Thread serverThread = new Thread(() -> {
+                try (FrameChannel accepted = open(serverChannel.accept())) {
+                    new ServerMessageService(accepted, 1000, options).sendMessage();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, "player2");
+            serverThread.start();
+
+            try (FrameChannel channel = open(SocketChannel.open(serverChannel.getLocalAddress()))) {
+                new ClientMessageService(channel, 1000, options).sendMessage();
+            }
+            serverThread.join();
+        }
+
+        private FrameChannel open(SocketChannel socketChannel) throws IOException {
+            socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, tcpNoDelay);
+            return ioMode == IoMode.CHANNEL
+                    ? FrameChannel.lengthPrefixed(socketChannel, writeBatch)
+                    : FrameChannel.lines(socketChannel.socket(), writeBatch);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public String roundTripThroughput(PingPongState state) throws IOException {
+        return state.roundTrip();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String roundTripLatency(PingPongState state) throws IOException {
+        return state.roundTrip();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void gameThroughput(GameState state) throws IOException, InterruptedException {
+        state.playGame();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void gameLatency(GameState state) throws IOException, InterruptedException {
+        state.playGame();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void sharedMemoryGameThroughput(SharedMemoryGameState state) throws IOException, InterruptedException {
+        state.playGame();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void sharedMemoryGameLatency(SharedMemoryGameState state) throws IOException, InterruptedException {
+        state.playGame();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void servedGames(ServedGamesState state) throws InterruptedException, ExecutionException {
+        state.playGames();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void multiplexedGames(MultiplexedGamesState state) throws IOException, InterruptedException {
+        state.playGames();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void coalescedGameThroughput(CoalescedGameState state) throws IOException, InterruptedException {
+        state.playGame();
+    }
+
+}
@@ -0,0 +1,372 @@
+package com.anishshinde.benchmark;
+
+import com.anishshinde.common.MessageBuffer;
+import com.anishshinde.common.StopCondition;
+import com.anishshinde.journal.MessageJournal;
+import com.anishshinde.thread.BroadcastGame;
+import com.anishshinde.thread.ExecutionMode;
+import com.anishshinde.thread.GameRunner;
+import com.anishshinde.thread.MailboxType;
+import com.anishshinde.thread.MessagePool;
+import com.anishshinde.thread.Player;
+import com.anishshinde.thread.PlayerOptions;
+import com.anishshinde.thread.Tournament;
+import com.anishshinde.thread.WaitStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * JMH benchmarks for the multithreading mode (both players inside the same JVM).
+ *
+ * Responsibilities:
+ * - roundTrip*: one message sent by player1 via Player.sendMessage() and echoed back by player2 via
+ *   Player.takeMessage()/sendMessage(), i.e. the raw cost of the transport between two Player instances.
+ * - game*: a complete game of maxMessages round trips driven by PlayerInitiator and PlayerResponder.
+ * - messageRoundTrip*: like roundTrip*, but every round trip starts with a fresh message, either a new MessageBuffer
+ *   or one acquired from a MessagePool and released once it is back. Run with '-prof gc' and compare
+ *   gc.alloc.rate.norm: a pooled message over a RING mailbox allocates nothing per round trip, a LINKED mailbox
+ *   still allocates its queue nodes.
+ * - journaledGames: 10 games of maxMessages on event loops, with every message journaled to a MessageJournal in a
+ *   temporary directory or not, i.e. the cost journaling adds to the messaging loop.
+ * - stoppedGames: 10 games of 1000 messages on event loops with a StopCondition whose budget is never used up,
+ *   i.e. the cost of checking it after every response.
+ * - concurrentGames: 'pairs' concurrent games run by GameRunner on platform or virtual threads, or on event loops.
+ *
+ * Developer Decisions:
+ * - Every benchmark exists twice, once in Throughput mode (ops/s) and once in SampleTime mode
+ *   (latency percentiles in microseconds), since JMH shares one output time unit per method.
+ * - mailboxType compares the LinkedBlockingQueue mailbox with the lock-free SPSC ring, and waitStrategy
+ *   compares how the players wait for messages. window compares the stop-and-wait game (1) with a pipelined one.
+ * - Players are created with printMessages = false, which also switches off the MESSAGE_DELAY_MS sleeps,
+ *   so only the messaging itself is measured.
+ * - The echo player for the round trip benchmarks runs on its own thread for the whole trial and is
+ *   stopped by interrupting it in the tear down.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ThreadModeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class PingPongState {
+
+        @Param({"LINKED", "RING"})
+        public MailboxType mailboxType;
+
+        @Param({"BLOCKING", "SLEEPING", "YIELDING", "BUSY_SPIN"})
+        public WaitStrategy waitStrategy;
+
+        private final MessageBuffer message = new MessageBuffer("message 0");
+        private Player player1;
+        private Thread echoThread;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            PlayerOptions options = quietOptions(mailboxType, waitStrategy);
+            player1 = new Player("player1", true, Integer.MAX_VALUE, options);
+            Player player2 = new Player("player2", false, Integer.MAX_VALUE, options);
+            player1.setOtherPlayer(player2);
+            player2.setOtherPlayer(player1);
+
+            echoThread = new Thread(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        player2.sendMessage(player2.takeMessage());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "player2-echo");
+            echoThread.setDaemon(true);
+            echoThread.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            echoThread.interrupt();
+            echoThread.join();
+        }
+
+        MessageBuffer roundTrip() throws InterruptedException {
+            player1.sendMessage(message);
+            return player1.takeMessage();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PooledPingPongState {
+
+        @Param({"LINKED", "RING"})
+        public MailboxType mailboxType;
+
+        @Param({"false", "true"})
+        public boolean pooled;
+
+        private final MessagePool pool = new MessagePool(1);
+        private Player player1;
+        private Thread echoThread;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            PlayerOptions options = quietOptions(mailboxType, WaitStrategy.BLOCKING);
+            player1 = new Player("player1", true, Integer.MAX_VALUE, options);
+            Player player2 = new Player("player2", false, Integer.MAX_VALUE, options);
+            player1.setOtherPlayer(player2);
+            player2.setOtherPlayer(player1);
+
+            echoThread = new Thread(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        MessageBuffer message = player2.takeMessage();
+                        player2.sendMessage(message.appendCounter(1));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "player2-echo");
+            echoThread.setDaemon(true);
+            echoThread.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            echoThread.interrupt();
+            echoThread.join();
+        }
+
+        int roundTrip() throws InterruptedException {
+            MessageBuffer message = pooled ? pool.acquire(64) : new MessageBuffer(64);
+            player1.sendMessage(message.append("message").appendCounter(0));
+            MessageBuffer response = player1.takeMessage();
+            int length = response.length();
+            if (pooled) pool.release(response);
+            return length;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class GameState {
+
+        @Param({"100", "1000"})
+        public int maxMessages;
+
+        @Param({"LINKED", "RING"})
+        public MailboxType mailboxType;
+
+        @Param({"BLOCKING", "SLEEPING", "YIELDING", "BUSY_SPIN"})
+        public WaitStrategy waitStrategy;
+
+        @Param({"1", "8"})
+        public int window;
+
+        void playGame() throws InterruptedException {
+            PlayerOptions options = quietOptions(mailboxType, waitStrategy).withWindow(window);
+            Player player1 = new Player("player1", true, maxMessages, options);
+            Player player2 = new Player("player2", false, maxMessages, options);
+            player1.setOtherPlayer(player2);
+            player2.setOtherPlayer(player1);
+
+            Thread player1Thread = new Thread(player1);
+            Thread player2Thread = new Thread(player2);
+            player1Thread.start();
+            player2Thread.start();
+            player1Thread.join();
+            player2Thread.join();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ConcurrentGamesState {
+
+        @Param({"1000", "10000"})
+        public int pairs;
+
+        @Param({"PLATFORM", "VIRTUAL", "EVENT_LOOP"})
+        public ExecutionMode executionMode;
+
+        void playGames() throws InterruptedException {
+            GameRunner.runGames(pairs, 10, quietOptions(MailboxType.LINKED, WaitStrategy.BLOCKING), executionMode);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class JournaledGamesState {
+
+        @Param({"100", "1000"})
+        public int maxMessages;
+
+        @Param({"false", "true"})
+        public boolean journaled;
+
+        private Path directory;
+        private MessageJournal journal;
+        private PlayerOptions options;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            options = quietOptions(MailboxType.LINKED, WaitStrategy.BLOCKING);
+            if (journaled) {
+                directory = Files.createTempDirectory("player-journal-benchmark");
+                journal = MessageJournal.open(directory);
+                options = options.withJournal(journal);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            if (journal == null) return;
+            journal.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(file);
+            }
+        }
+
+        void playGames() throws InterruptedException {
+            GameRunner.runGames(10, maxMessages, options, ExecutionMode.EVENT_LOOP);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class TournamentState {
+
+        @Param({"1", "2", "4"})
+        public int parallelism;
+
+        void playTournament() {
+            Tournament.run(256, 100, quietOptions(MailboxType.LINKED, WaitStrategy.BLOCKING), parallelism);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BroadcastState {
+
+        @Param({"1", "16", "128"})
+        public int responders;
+
+        void playGame() throws InterruptedException {
+            new BroadcastGame(responders, 1000, quietOptions(MailboxType.LINKED, WaitStrategy.SLEEPING).withWindow(64))
+                    .play(ExecutionMode.VIRTUAL);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class StoppedGamesState {
+
+        @Param({"none", "duration", "bytes", "slo"})
+        public String stopCondition;
+
+        private PlayerOptions options;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            StopCondition condition = switch (stopCondition) {
+                case "duration" -> StopCondition.duration(Duration.ofHours(1));
+                case "bytes" -> StopCondition.bytes(Long.MAX_VALUE);
+                case "slo" -> StopCondition.roundTripPercentile(StopCondition.SLO_PERCENTILE, Duration.ofHours(1));
+                default -> null;
+            };
+            options = quietOptions(MailboxType.LINKED, WaitStrategy.BLOCKING).withStopCondition(condition);
+        }
+
+        void playGames() throws InterruptedException {
+            GameRunner.runGames(10, 1000, options, ExecutionMode.EVENT_LOOP);
+        }
+    }
+
+    static PlayerOptions quietOptions(MailboxType mailboxType, WaitStrategy waitStrategy) {
+        return PlayerOptions.defaults()
+                .withPrintMessages(false)
+                .withMailbox(mailboxType, PlayerOptions.DEFAULT_MAILBOX_CAPACITY)
+                .withWaitStrategy(waitStrategy);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public MessageBuffer roundTripThroughput(PingPongState state) throws InterruptedException {
+        return state.roundTrip();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MessageBuffer roundTripLatency(PingPongState state) throws InterruptedException {
+        return state.roundTrip();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int messageRoundTripThroughput(PooledPingPongState state) throws InterruptedException {
+        return state.roundTrip();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void gameThroughput(GameState state) throws InterruptedException {
+        state.playGame();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void gameLatency(GameState state) throws InterruptedException {
+        state.playGame();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void journaledGames(JournaledGamesState state) throws InterruptedException {
+        state.playGames();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void stoppedGames(StoppedGamesState state) throws InterruptedException {
+        state.playGames();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void tournament(TournamentState state) {
+        state.playTournament();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void broadcast(BroadcastState state) throws InterruptedException {
+        state.playGame();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void concurrentGames(ConcurrentGamesState state) throws InterruptedException {
+        state.playGames();
+    }
+
+}
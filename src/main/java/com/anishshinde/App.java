@@ -1,8 +1,30 @@
 package com.anishshinde;
 
+import com.anishshinde.common.AsyncConsole;
+import com.anishshinde.common.CommandLineOptions;
+import com.anishshinde.common.ConsoleMode;
+import com.anishshinde.common.StopCondition;
+import com.anishshinde.journal.MessageJournal;
+import com.anishshinde.metrics.PlayerMetrics;
+import com.anishshinde.process.ProcessOptions;
+import com.anishshinde.process.Transport;
+import com.anishshinde.thread.BroadcastGame;
+import com.anishshinde.thread.ExecutionMode;
+import com.anishshinde.thread.GameRunner;
+import com.anishshinde.thread.MailboxType;
+import com.anishshinde.thread.MessagePool;
 import com.anishshinde.thread.Player;
+import com.anishshinde.thread.PlayerOptions;
+import com.anishshinde.thread.Tournament;
+import com.anishshinde.thread.TournamentReport;
+import com.anishshinde.thread.WaitStrategy;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 public class App {
     /**
@@ -19,6 +41,30 @@ public class App {
      *  - The maximum number of messages ('maxMessages') is defined in main() for easy configuration. It must be > 0.
      *  - Threads are joined in the main thread to guarantee proper synchronization and program termination.
      *  - ProcessBuilder uses 'inheritIO()' so that the standard output of the separate JVM processes is visible in the same console for demonstration.
+     *  - Optional settings are passed as named arguments after the positional ones (see CommandLineOptions), e.g.
+     *    '--mailbox=ring --mailbox-capacity=1024' backs the players' queues with a lock-free ring and
+     *    '--wait-strategy=blocking|sleeping|yielding|busy-spin' decides how players wait for messages (threads mode).
+     *    '--window=N' (both modes) pipelines the game with up to N independent messages in flight.
+     *    '--execution=platform|virtual|event-loop --pairs=N' (threads mode) runs N games at the same time, on platform
+     *    or virtual threads, or on one event-loop thread per core (see GameRunner); with more than one game nothing is printed but the total time.
+     *    '--tournament=N --parallelism=P' (threads mode) plays N independent games on a work-stealing pool of P threads
+     *    (see Tournament) and prints the aggregate report.
+     *    '--broadcast=N' (threads mode) lets one initiator fan every message out to N responders through a
+     *    MulticastRing (see BroadcastGame), on platform or virtual threads (--execution).
+     *    '--message-pool=N' (threads mode) lets the games reuse up to N messages from a MessagePool.
+     *    '--metrics' (both modes) records PlayerMetrics, published as MXBeans while a game runs and printed as a summary
+     *    at the end; for several games (--pairs, --tournament) one summary of all initiators and one of all responders.
+     *    '--console=async' (both modes) prints through an AsyncConsole instead of sleeping MESSAGE_DELAY_MS per hop.
+     *    '--write-batch=N --tcp-nodelay --send-buffer=B --receive-buffer=B' (processes mode) coalesce socket writes and tune the sockets.
+     *    '--journal=DIR --journal-segment=B --journal-sync=N' (both modes) journals every message to memory-mapped
+     *    segment files (see MessageJournal), read back with JournalReader.
+     *    '--stop-after-ms=N --stop-kib=N --stop-slo-us=N' (both modes, not with --broadcast) end every game early once it has run
+     *    N ms, exchanged N KiB or its p99 round trip exceeds N us (see StopCondition); maxMessages still caps it.
+     *    '--headers' (processes mode, CHANNEL I/O or shared memory) puts a binary header in front of every frame.
+     *    In processes mode all named arguments are forwarded to both player processes, e.g. '--protocol=delta'.
+     *  - For '--transport=shared-memory' App picks a shared memory file unique to this run (unless '--shm-file' is given),
+     *    so several games on one host do not share a file. The same applies to the socket file of
+     *    '--transport=unix-socket' (unless '--socket-path' is given).
      *  - System.out is used for printing messages instead of a logger for simplicity and clarity in this particular demo scenario.
      *
      * How to run:
@@ -35,41 +81,112 @@ public class App {
         int maxMessages = 4;
 
         // accept parameters from the Terminal when running shell script
-        if(args.length > 0){
-            useThreads = Boolean.parseBoolean(args[0]);
+        CommandLineOptions options = CommandLineOptions.parse(args);
+        if(options.getPositionalCount() > 0){
+            useThreads = Boolean.parseBoolean(options.getPositional(0, null));
         }
-        if(args.length > 1){
-            maxMessages = Integer.parseInt(args[1]);
+        if(options.getPositionalCount() > 1){
+            maxMessages = Integer.parseInt(options.getPositional(1, null));
         }
 
         // run the players (class instances) inside the same Java process but in separate threads
         if(useThreads) {
-            Player player1 = new Player("player1", true, maxMessages);
-            Player player2 = new Player("player2", false, maxMessages);
-
-            // [COMPULSORY] link players with each other for communication
-            player1.setOtherPlayer(player2);
-            player2.setOtherPlayer(player1);
-
-            Thread player1Thread = new Thread(player1);
-            Thread player2Thread = new Thread(player2);
-
-            player1Thread.start();
-            player2Thread.start();
-
-            player1Thread.join();
-            player2Thread.join();
-
-            System.out.println("Player communication ended successfully using Multithreading");
+            PlayerOptions playerOptions = PlayerOptions.defaults()
+                    .withMailbox(options.getEnum("mailbox", MailboxType.class, MailboxType.LINKED),
+                            options.getInt("mailbox-capacity", PlayerOptions.DEFAULT_MAILBOX_CAPACITY))
+                    .withWaitStrategy(options.getEnum("wait-strategy", WaitStrategy.class, WaitStrategy.BLOCKING))
+                    .withWindow(options.getInt("window", PlayerOptions.DEFAULT_WINDOW))
+                    .withMetrics(options.getBoolean("metrics", false))
+                    .withStopCondition(StopCondition.fromCommandLine(options));
+            int messagePoolSize = options.getInt("message-pool", 0);
+            if (messagePoolSize > 0) playerOptions = playerOptions.withMessagePool(new MessagePool(messagePoolSize));
+            MessageJournal journal = null;
+            if (options.has("journal")) {
+                journal = MessageJournal.open(Path.of(options.get("journal", null)),
+                        options.getInt("journal-segment", MessageJournal.DEFAULT_SEGMENT_SIZE),
+                        options.getInt("journal-sync", MessageJournal.DEFAULT_SYNC_EVERY));
+                playerOptions = playerOptions.withJournal(journal);
+            }
+            AsyncConsole console = null;
+            if (options.getEnum("console", ConsoleMode.class, ConsoleMode.DIRECT) == ConsoleMode.ASYNC) {
+                console = AsyncConsole.start(System.out);
+                playerOptions = playerOptions.withConsole(console);
+            }
+            ExecutionMode executionMode = options.getEnum("execution", ExecutionMode.class, ExecutionMode.PLATFORM);
+            int pairs = options.getInt("pairs", 1);
+            if (options.has("broadcast")) {
+                int responders = options.getInt("broadcast", 1);
+                long start = System.nanoTime();
+                new BroadcastGame(responders, maxMessages, playerOptions).play(executionMode);
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (console != null) console.close();
+                System.out.println(maxMessages + " messages broadcast to " + responders + " responders in " + elapsedMs + " ms");
+                System.out.println("Player communication ended successfully using Multithreading (broadcast)");
+            } else if (options.has("tournament")) {
+                TournamentReport report = Tournament.run(options.getInt("tournament", 1), maxMessages, playerOptions,
+                        options.getInt("parallelism", Runtime.getRuntime().availableProcessors()));
+                if (console != null) console.close();
+                System.out.println(report.summary());
+                System.out.println("Player communication ended successfully using Multithreading (tournament)");
+            } else if (pairs > 1 || executionMode != ExecutionMode.PLATFORM) {
+                long start = System.nanoTime();
+                List<PlayerMetrics> metrics = GameRunner.runGames(pairs, maxMessages, playerOptions, executionMode);
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                if (console != null) console.close();
+                System.out.println(pairs + (pairs == 1 ? " game" : " games") + " of " + maxMessages + " messages finished in " + elapsedMs + " ms");
+                for (PlayerMetrics total : metrics) System.out.println(total.summary());
+                System.out.println("Player communication ended successfully using Multithreading ("
+                        + executionMode.name().toLowerCase(Locale.ROOT).replace('_', '-') + " threads)");
+            } else {
+                Player player1 = new Player("player1", true, maxMessages, playerOptions);
+                Player player2 = new Player("player2", false, maxMessages, playerOptions);
+
+                // [COMPULSORY] link players with each other for communication
+                player1.setOtherPlayer(player2);
+                player2.setOtherPlayer(player1);
+
+                Thread player1Thread = new Thread(player1);
+                Thread player2Thread = new Thread(player2);
+
+                player1Thread.start();
+                player2Thread.start();
+
+                player1Thread.join();
+                player2Thread.join();
+                if (console != null) console.close();
+                if (player1.getMetrics() != null) {
+                    System.out.println(player1.getMetrics().summary());
+                    System.out.println(player2.getMetrics().summary());
+                }
+                player1.close();
+                player2.close();
+
+                System.out.println("Player communication ended successfully using Multithreading");
+            }
+            if (journal != null) {
+                journal.close();
+                System.out.println(journal.getRecordsAppended() + " messages journaled to " + journal.getDirectory());
+            }
         }
 
         // run each player inside a separate Java process (instance of the Java Virtual Machine)
         else {
+            List<String> processArguments = new ArrayList<>(options.getNamedArguments());
+            Transport transport = ProcessOptions.fromCommandLine(options).getTransport();
+            if (transport == Transport.SHARED_MEMORY && !options.has("shm-file")) {
+                String fileName = "player-communication-" + ProcessHandle.current().pid() + ".shm";
+                processArguments.add("--shm-file=" + ProcessOptions.defaultSharedMemoryFile().resolveSibling(fileName));
+            }
+            if (transport == Transport.UNIX_SOCKET && !options.has("socket-path")) {
+                String fileName = "player-communication-" + ProcessHandle.current().pid() + ".sock";
+                processArguments.add("--socket-path=" + ProcessOptions.defaultSocketPath().resolveSibling(fileName));
+            }
+
             ProcessBuilder processBuilder1 = new ProcessBuilder(
-                    "java", "-cp", "target/classes", "com.anishshinde.process.PlayerServer", String.valueOf(maxMessages)
+                    playerProcessCommand("com.anishshinde.process.PlayerServer", maxMessages, processArguments)
             );
             ProcessBuilder processBuilder2 = new ProcessBuilder(
-                    "java", "-cp", "target/classes", "com.anishshinde.process.PlayerClient", String.valueOf(maxMessages)
+                    playerProcessCommand("com.anishshinde.process.PlayerClient", maxMessages, processArguments)
             );
 
             processBuilder1.inheritIO();
@@ -83,4 +200,11 @@ public class App {
         }
     }
 
+    /** Builds the command line of a player process, passing maxMessages and the given named arguments */
+    private static List<String> playerProcessCommand(String mainClass, int maxMessages, List<String> namedArguments) {
+        List<String> command = new ArrayList<>(List.of("java", "-cp", "target/classes", mainClass, String.valueOf(maxMessages)));
+        command.addAll(namedArguments);
+        return command;
+    }
+
 }
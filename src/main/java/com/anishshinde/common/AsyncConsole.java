@@ -0,0 +1,120 @@
+package com.anishshinde.common;
+
+import java.io.PrintStream;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Console output stage that takes printing off the messaging threads (ConsoleMode.ASYNC).
+ *
+ * Responsibilities:
+ * - Players publish their printed lines as sequence-numbered events; publishing never blocks and never does I/O.
+ * - A single writer thread puts the events back into sequence order and writes everything that is ready
+ *   with one print() and one flush() per batch.
+ *
+ * Developer Decisions:
+ * - The queue is a ConcurrentLinkedQueue (lock-free), since both players of a game publish to it.
+ * - Sequence numbers describe the order of the game, not the order of publishing: an event that arrives early
+ *   waits in a priority queue owned by the writer until all events before it have been written. This is what
+ *   keeps the output in order without the MESSAGE_DELAY_MS sleeps.
+ * - The sequence numbers of a console start at 0 and must not have gaps, otherwise the writer waits for the
+ *   missing event; close() writes whatever is still pending (in sequence order) so nothing is lost.
+ * - The writer is woken by time (WRITER_PARK_NANOS) rather than by the publishers, so publishing costs no
+ *   system call; console output may therefore lag the game by up to a millisecond.
+ * - The writer is a daemon thread, so a console that is never closed cannot keep the JVM alive.
+ */
+public final class AsyncConsole implements AutoCloseable {
+
+    private static final long WRITER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Queue<Event> published = new ConcurrentLinkedQueue<>();
+    private final PrintStream out;
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // owned by the writer thread
+    private final PriorityQueue<Event> pending = new PriorityQueue<>(Comparator.comparingLong(Event::sequence));
+    private final StringBuilder batch = new StringBuilder();
+    private long nextSequence;
+
+    private AsyncConsole(PrintStream out) {
+        this.out = out;
+        writer = new Thread(this::writeUntilClosed, "console-writer");
+        writer.setDaemon(true);
+    }
+
+    /** @return a new console writing to out from its own writer thread */
+    public static AsyncConsole start(PrintStream out) {
+        AsyncConsole console = new AsyncConsole(out);
+        console.writer.start();
+        return console;
+    }
+
+    /**
+     * Publishes a line to be printed once every line with a lower sequence number has been printed.
+     *
+     * @param sequence position of the line in the game, counting from 0 without gaps
+     */
+    public void publish(long sequence, String line) {
+        published.add(new Event(sequence, line));
+    }
+
+    /** Writes all published lines and stops the writer thread; if interrupted, stops waiting for the writer */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeUntilClosed() {
+        while (true) {
+            // read the flag first, so every line published before close() is drained below
+            boolean closing = closed;
+            boolean received = drainPublished();
+            while (!pending.isEmpty() && pending.peek().sequence() == nextSequence) {
+                appendToBatch(pending.poll());
+                nextSequence++;
+            }
+            if (closing) {
+                while (!pending.isEmpty()) appendToBatch(pending.poll());
+                writeBatch();
+                return;
+            }
+            writeBatch();
+            if (!received) LockSupport.parkNanos(WRITER_PARK_NANOS);
+        }
+    }
+
+    private boolean drainPublished() {
+        boolean received = false;
+        Event event;
+        while ((event = published.poll()) != null) {
+            pending.add(event);
+            received = true;
+        }
+        return received;
+    }
+
+    private void appendToBatch(Event event) {
+        batch.append(event.line()).append(System.lineSeparator());
+    }
+
+    private void writeBatch() {
+        if (batch.isEmpty()) return;
+        out.print(batch);
+        out.flush();
+        batch.setLength(0);
+    }
+
+    private record Event(long sequence, String line) {}
+
+}
@@ -0,0 +1,62 @@
+package com.anishshinde.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Millisecond clocks that can be read on every message without a system call.
+ *
+ * Responsibilities:
+ * - millis() returns System.currentTimeMillis() as last sampled by a background thread, at most about
+ *   TICK_NANOS old: wall-clock time, e.g. to timestamp journal records.
+ * - monotonicMillis() returns System.nanoTime() in milliseconds, sampled by the same thread: elapsed time, e.g. for
+ *   the budget of StopCondition.duration().
+ *
+ * Developer Decisions:
+ * - Reading the clock is one volatile load, so a time-based StopCondition can look at it after every response
+ *   instead of calling System.nanoTime(), and MessageJournal timestamps every record with it. Both share this one
+ *   ticking thread instead of each sampling the time on a thread of its own.
+ * - Durations are measured with monotonicMillis(), never with millis(): the wall clock can be stepped (NTP, a manual
+ *   change), which would end a budget at once or stretch it without bound.
+ * - The ticking thread is a daemon thread started on first use (holder idiom), so a JVM that never asks for the
+ *   time pays nothing and one that does is not kept alive by it.
+ */
+public final class CachedClock {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static volatile long millis = System.currentTimeMillis();
+    private static volatile long monotonicMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+
+    private CachedClock() {}
+
+    /** @return the wall-clock time in epoch milliseconds, at most about a millisecond old */
+    public static long millis() {
+        Ticker.ensureStarted();
+        return millis;
+    }
+
+    /** @return milliseconds since an arbitrary origin that never goes backwards, at most about a millisecond old */
+    public static long monotonicMillis() {
+        Ticker.ensureStarted();
+        return monotonicMillis;
+    }
+
+    /** Starts the ticking thread when millis() is called for the first time */
+    private static final class Ticker {
+        static {
+            Thread ticker = new Thread(() -> {
+                while (true) {
+                    LockSupport.parkNanos(TICK_NANOS);
+                    millis = System.currentTimeMillis();
+                    monotonicMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+                }
+            }, "cached-clock");
+            ticker.setDaemon(true);
+            ticker.start();
+        }
+
+        static void ensureStarted() {}
+    }
+
+}
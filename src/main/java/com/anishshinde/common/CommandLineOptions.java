@@ -0,0 +1,109 @@
+package com.anishshinde.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parses the command-line arguments of App, PlayerClient and PlayerServer.
+ *
+ * Responsibilities:
+ * - Keeps the original positional arguments (e.g. useThreads and maxMessages for App) in their order.
+ * - Collects optional named arguments of the form --name=value (or just --name for a boolean flag).
+ * - Converts named values to int, boolean or enum constants with a clear error for invalid input.
+ *
+ * Developer Decisions:
+ * - Named arguments may appear anywhere, so the existing positional usage (and start.sh) keeps working unchanged.
+ * - Enum values are matched case-insensitively and '-' may be used instead of '_' (e.g. --mailbox=ring).
+ * - getNamedArguments() returns the raw --name=value strings so App can forward them to the player processes.
+ * - Invalid values throw IllegalArgumentException, like the validation of maxMessages in Player.
+ */
+public final class CommandLineOptions {
+
+    private static final String PREFIX = "--";
+
+    private final List<String> positionalArguments = new ArrayList<>();
+    private final Map<String, String> namedArguments = new LinkedHashMap<>();
+    private final List<String> rawNamedArguments = new ArrayList<>();
+
+    private CommandLineOptions() {}
+
+    /** Parses the given arguments */
+    public static CommandLineOptions parse(String[] args) {
+        CommandLineOptions options = new CommandLineOptions();
+        for (String arg : args) {
+            if (arg.startsWith(PREFIX) && arg.length() > PREFIX.length()) {
+                int separator = arg.indexOf('=');
+                String name = separator < 0 ? arg.substring(PREFIX.length()) : arg.substring(PREFIX.length(), separator);
+                String value = separator < 0 ? "true" : arg.substring(separator + 1);
+                options.namedArguments.put(name, value);
+                options.rawNamedArguments.add(arg);
+            } else {
+                options.positionalArguments.add(arg);
+            }
+        }
+        return options;
+    }
+
+    /** @return number of positional arguments */
+    public int getPositionalCount() {
+        return positionalArguments.size();
+    }
+
+    /** @return the positional argument at index, or defaultValue if there are fewer arguments */
+    public String getPositional(int index, String defaultValue) {
+        return index < positionalArguments.size() ? positionalArguments.get(index) : defaultValue;
+    }
+
+    /** @return true if the named argument was given */
+    public boolean has(String name) {
+        return namedArguments.containsKey(name);
+    }
+
+    /** @return value of the named argument, or defaultValue if it was not given */
+    public String get(String name, String defaultValue) {
+        return namedArguments.getOrDefault(name, defaultValue);
+    }
+
+    /** @return value of the named argument as int, or defaultValue if it was not given */
+    public int getInt(String name, int defaultValue) {
+        String value = namedArguments.get(name);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be a number, got '" + value + "'");
+        }
+    }
+
+    /** @return value of the named argument as boolean, or defaultValue if it was not given */
+    public boolean getBoolean(String name, boolean defaultValue) {
+        String value = namedArguments.get(name);
+        if (value == null) return defaultValue;
+        if (value.equalsIgnoreCase("true")) return true;
+        if (value.equalsIgnoreCase("false")) return false;
+        throw new IllegalArgumentException("--" + name + " must be true or false, got '" + value + "'");
+    }
+
+    /** @return value of the named argument as constant of enumType, or defaultValue if it was not given */
+    public <E extends Enum<E>> E getEnum(String name, Class<E> enumType, E defaultValue) {
+        String value = namedArguments.get(name);
+        if (value == null) return defaultValue;
+        String constant = value.trim().replace('-', '_').toUpperCase(Locale.ROOT);
+        for (E candidate : enumType.getEnumConstants()) {
+            if (candidate.name().equals(constant)) return candidate;
+        }
+        throw new IllegalArgumentException("--" + name + " must be one of "
+                + Arrays.toString(enumType.getEnumConstants()).toLowerCase(Locale.ROOT) + ", got '" + value + "'");
+    }
+
+    /** @return the named arguments exactly as given (--name=value), e.g. to forward them to another process */
+    public List<String> getNamedArguments() {
+        return Collections.unmodifiableList(rawNamedArguments);
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.anishshinde.common;
+
+/**
+ * Selects how the players print the exchanged messages (--console=direct|async).
+ */
+public enum ConsoleMode {
+
+    /**
+     * Every player prints with System.out.println on its messaging thread and sleeps MESSAGE_DELAY_MS after a hop,
+     * so the lines of both players appear in order (original behaviour)
+     */
+    DIRECT,
+
+    /**
+     * Lines are published as sequence-numbered events to an AsyncConsole, whose writer thread orders and prints
+     * them in batches; no sleeps. In the multiprocessing mode the initiator prints both directions, since only
+     * one process can order the output
+     */
+    ASYNC
+
+}
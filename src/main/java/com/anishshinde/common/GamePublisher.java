@@ -0,0 +1,57 @@
+package com.anishshinde.common;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes the messages of one game to a java.util.concurrent.Flow.Subscriber, driven by the subscriber's demand.
+ *
+ * Responsibilities:
+ * - subscribe() hands the subscriber its MessageFlow and starts the game on a thread of its own.
+ * - Completes the subscriber once the game is over, or signals the exception the game failed with.
+ *
+ * Developer Decisions:
+ * - A game is played once, so a publisher accepts a single subscriber; a second one gets an IllegalStateException
+ *   through onError(), as the Flow specification allows (§1.9 onSubscribe first, then the error).
+ * - The game runs on a virtual thread, since it mostly blocks: on demand, on the other player or on a socket.
+ * - The game decides what to publish (e.g. the responses an initiator receives) and asks its MessageFlow for demand
+ *   before producing each message; see Player, ClientMessageService and ServerMessageService.
+ * - Messages are signalled on the game thread, so a subscriber that is slow in onNext() slows the game down as well.
+ */
+public final class GamePublisher implements Flow.Publisher<String> {
+
+    /** A game publishing its messages to a MessageFlow */
+    @FunctionalInterface
+    public interface Game {
+        void play(MessageFlow flow) throws Exception;
+    }
+
+    private final String name;
+    private final Game game;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /** @param name name of the game thread */
+    public GamePublisher(String name, Game game) {
+        this.name = name;
+        this.game = game;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        MessageFlow flow = new MessageFlow(subscriber);
+        subscriber.onSubscribe(flow);
+        if (!subscribed.compareAndSet(false, true)) {
+            flow.fail(new IllegalStateException("The game of " + name + " has already been subscribed to"));
+            return;
+        }
+        Thread.ofVirtual().name(name).start(() -> {
+            try {
+                game.play(flow);
+                flow.complete();
+            } catch (Throwable e) {
+                flow.fail(e);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.anishshinde.common;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable, append-only message shared by both players of a game.
+ *
+ * Responsibilities:
+ * - Holds the accumulated message text ("message 0 1 1 2 ...") as single-byte characters.
+ * - Lets a player extend the message by " " + counter without copying what is already there,
+ *   so a hop costs O(digits) instead of O(message length).
+ * - Behaves like the String it replaces wherever text is needed (CharSequence, toString()).
+ *
+ * Developer Decisions:
+ * - Bytes (ISO-8859-1) instead of chars, since messages only contain ASCII letters, digits and spaces.
+ *   This halves the memory and allows the bytes to be written to a socket or file without encoding
+ *   (see writeTo() and append(ByteBuffer, int)).
+ * - The backing array grows by doubling, so appends are amortized O(1). The initiator can presize the
+ *   buffer for a whole game with expectedGameLength(), so a game normally allocates it only once.
+ * - Not thread-safe: the players pass the same instance back and forth, and only the current owner
+ *   (the player that last took it from its mailbox) appends. The mailbox hand-off provides the
+ *   happens-before ordering between the two threads.
+ * - appendCounter() writes the decimal digits directly into the array, so no String is created per hop.
+ * - contentHash() is maintained incrementally on every append and equals toString().hashCode(), so the
+ *   process mode can validate a message rebuilt from deltas without hashing the whole text again.
+ * - clear() resets the buffer for reuse (e.g. when a complete message is received); otherwise it only grows.
+ * - A received frame can be read in place: asByteBuffer() exposes the bytes to a binary flyweight (see MessageHeader)
+ *   and a Slice hands a part of them to a text codec, so neither is copied out of the frame.
+ */
+public final class MessageBuffer implements CharSequence {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int MAX_PRESIZED_CAPACITY = 1 << 20;
+
+    private byte[] bytes;
+    private int length;
+    private int hash;
+    private ByteBuffer view;
+
+    public MessageBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MessageBuffer(int initialCapacity) {
+        if (initialCapacity < 0) throw new IllegalArgumentException("initialCapacity must not be negative");
+        bytes = new byte[initialCapacity];
+    }
+
+    public MessageBuffer(CharSequence initialText) {
+        this(Math.max(DEFAULT_CAPACITY, initialText.length()));
+        append(initialText);
+    }
+
+    /**
+     * @param maxMessages number of messages the initiator sends (and the responder answers) in one game
+     * @return capacity needed to hold the final message of a game starting with "message", capped at 1 MiB
+     */
+    public static int expectedGameLength(int maxMessages) {
+        long expected = "message".length();
+        for (int counter = 0; counter < maxMessages && expected < MAX_PRESIZED_CAPACITY; counter++) {
+            // initiator appends " " + counter, responder appends " " + (counter + 1)
+            expected += 2 + digits(counter) + digits(counter + 1);
+        }
+        return (int) Math.min(expected, MAX_PRESIZED_CAPACITY);
+    }
+
+    /** Appends the given text, which must only contain single-byte characters */
+    public MessageBuffer append(CharSequence text) {
+        return append(text, 0, text.length());
+    }
+
+    /** Appends the characters start (inclusive) to end (exclusive) of the given text */
+    public MessageBuffer append(CharSequence text, int start, int end) {
+        if (start < 0 || end > text.length() || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + text.length());
+        }
+        ensureCapacity(length + end - start);
+        for (int i = start; i < end; i++) {
+            byte b = (byte) text.charAt(i);
+            bytes[length++] = b;
+            hash = 31 * hash + (b & 0xFF);
+        }
+        return this;
+    }
+
+    /** Appends the characters start (inclusive) to end (exclusive) of another buffer */
+    public MessageBuffer append(MessageBuffer other, int start, int end) {
+        if (start < 0 || end > other.length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + other.length);
+        }
+        ensureCapacity(length + end - start);
+        System.arraycopy(other.bytes, start, bytes, length, end - start);
+        updateHash(length, length + end - start);
+        length += end - start;
+        return this;
+    }
+
+    /** Appends " " + counter, the step both players perform on every hop */
+    public MessageBuffer appendCounter(int counter) {
+        ensureCapacity(length + 1);
+        bytes[length++] = ' ';
+        updateHash(length - 1, length);
+        return appendNumber(counter);
+    }
+
+    /** Appends the decimal digits of number (with a leading '-' if negative) */
+    public MessageBuffer appendNumber(long number) {
+        if (number == Long.MIN_VALUE) return append(Long.toString(number));
+        long value = number;
+        boolean negative = value < 0;
+        if (negative) value = -value;
+        int digitCount = digits(value);
+        ensureCapacity(length + (negative ? 1 : 0) + digitCount);
+
+        int start = length;
+        if (negative) bytes[length++] = '-';
+        int position = length + digitCount;
+        length = position;
+        do {
+            bytes[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        updateHash(start, length);
+        return this;
+    }
+
+    /** Appends length bytes read from the current position of src, advancing its position */
+    public MessageBuffer append(ByteBuffer src, int length) {
+        ensureCapacity(this.length + length);
+        src.get(bytes, this.length, length);
+        updateHash(this.length, this.length + length);
+        this.length += length;
+        return this;
+    }
+
+    /** Copies all characters as bytes to the current position of dst, advancing its position */
+    public void writeTo(ByteBuffer dst) {
+        dst.put(bytes, 0, length);
+    }
+
+    /** Copies the characters start (inclusive) to end (exclusive) as bytes to the current position of dst, advancing its position */
+    public void writeTo(ByteBuffer dst, int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        dst.put(bytes, start, end - start);
+    }
+
+    /**
+     * @return heap ByteBuffer over the bytes of this buffer, for absolute reads and writes in place (e.g. by a
+     *         MessageHeader); the same instance is returned until the buffer grows
+     */
+    public ByteBuffer asByteBuffer() {
+        if (view == null || view.array() != bytes) view = ByteBuffer.wrap(bytes);
+        return view;
+    }
+
+    /** Removes all characters, keeping the allocated capacity */
+    public MessageBuffer clear() {
+        length = 0;
+        hash = 0;
+        return this;
+    }
+
+    /** @return hash of the message text, equal to toString().hashCode() but maintained incrementally */
+    public int contentHash() {
+        return hash;
+    }
+
+    /** @return number of characters in the message */
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        return (char) (bytes[index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    /** @return the message text, identical to the String the players used to build by concatenation */
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > bytes.length) {
+            bytes = Arrays.copyOf(bytes, (int) Math.max(required, Math.min(Integer.MAX_VALUE - 8, bytes.length * 2L)));
+        }
+    }
+
+    private void updateHash(int from, int to) {
+        int h = hash;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + (bytes[i] & 0xFF);
+        }
+        hash = h;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Reusable view of the characters start (inclusive) to end (exclusive) of a MessageBuffer, e.g. the payload behind
+     * a binary header, which a codec can then decode without the payload being copied. Valid until the buffer changes.
+     */
+    public static final class Slice implements CharSequence {
+
+        private MessageBuffer buffer;
+        private int start;
+        private int length;
+
+        /** @return this, viewing the characters start (inclusive) to end (exclusive) of buffer */
+        public Slice wrap(MessageBuffer buffer, int start, int end) {
+            if (start < 0 || end > buffer.length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + buffer.length);
+            }
+            this.buffer = buffer;
+            this.start = start;
+            this.length = end - start;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+            return (char) (buffer.bytes[start + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+            }
+            return buffer.subSequence(this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buffer.bytes, start, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+}
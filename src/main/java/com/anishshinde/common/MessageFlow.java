@@ -0,0 +1,169 @@
+package com.anishshinde.common;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Subscription of one subscriber to a GamePublisher: counts its demand and hands it the messages of the game.
+ *
+ * Responsibilities:
+ * - request(n) adds to the demand and cancel() ends the subscription, from any thread.
+ * - The game thread asks for demand before it produces a message (hasDemand/awaitDemand) and emits every message
+ *   it wants to publish; each emitted message consumes one unit of demand.
+ *
+ * Developer Decisions:
+ * - The game only produces a message the subscriber has asked for, so a slow subscriber throttles the game itself
+ *   instead of filling a queue: nothing is buffered between the game and the subscriber.
+ * - awaitDemand() blocks with a ReentrantLock/Condition (not a monitor), so a game thread waiting for demand does
+ *   not pin a virtual thread. The demand itself is only read and written under the lock; the game checks it once
+ *   per message, which is cheap next to a hop.
+ * - Messages are emitted as Strings, since the MessageBuffer of a game is reused (and may be appended to by the
+ *   other player) as soon as the game moves on.
+ * - As required by the Flow specification (§3.9), a request of n <= 0 cancels the subscription and signals an
+ *   IllegalArgumentException; demand saturates at Long.MAX_VALUE, which means unbounded.
+ * - request() only records an invalid request: the IllegalArgumentException is signalled by the game thread (from
+ *   awaitDemand, emit or the end of the game), so onError can never overlap an onNext in flight (§1.3).
+ */
+public final class MessageFlow implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super String> subscriber;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition demandChanged = lock.newCondition();
+    private long demand;
+    private boolean cancelled;
+    private boolean terminated;
+    private Throwable invalidRequest;
+
+    MessageFlow(Flow.Subscriber<? super String> subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+        lock.lock();
+        try {
+            if (n <= 0) {
+                if (invalidRequest == null) invalidRequest = new IllegalArgumentException("request must be positive, was " + n);
+                cancelled = true;
+                demandChanged.signalAll();
+                return;
+            }
+            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            demandChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void cancel() {
+        lock.lock();
+        try {
+            cancelled = true;
+            terminated = true;
+            demandChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return true once the subscriber cancelled, the game should then stop as soon as possible */
+    public boolean isCancelled() {
+        lock.lock();
+        try {
+            return cancelled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param pending messages the game has already produced but not emitted yet, e.g. messages in flight
+     * @return true if the subscriber asked for more than pending messages and did not cancel
+     */
+    public boolean hasDemand(long pending) {
+        lock.lock();
+        try {
+            return !cancelled && demand > pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the subscriber asks for at least one message, or cancels.
+     *
+     * @return false if the subscription was cancelled
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitDemand() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!cancelled && demand == 0) demandChanged.await();
+            if (!cancelled) return true;
+        } finally {
+            lock.unlock();
+        }
+        failInvalidRequest();
+        return false;
+    }
+
+    /** Hands a message to the subscriber; must only be called by the game thread, and only for requested messages */
+    public void emit(CharSequence message) {
+        boolean cancelled;
+        lock.lock();
+        try {
+            cancelled = this.cancelled;
+            if (!cancelled && demand != Long.MAX_VALUE) demand--;
+        } finally {
+            lock.unlock();
+        }
+        if (cancelled) failInvalidRequest();
+        else subscriber.onNext(message.toString());
+    }
+
+    /** Signals the end of the game, or the failure of an invalid request, unless the subscription already ended */
+    void complete() {
+        if (failInvalidRequest()) return;
+        if (terminate()) subscriber.onComplete();
+    }
+
+    /** Signals a failed game, unless the subscription already ended */
+    void fail(Throwable failure) {
+        if (terminate()) subscriber.onError(failure);
+    }
+
+    /**
+     * Signals the failure recorded by an invalid request(), on the game thread.
+     *
+     * @return true if a request was invalid
+     */
+    private boolean failInvalidRequest() {
+        Throwable failure;
+        lock.lock();
+        try {
+            failure = invalidRequest;
+        } finally {
+            lock.unlock();
+        }
+        if (failure == null) return false;
+        fail(failure);
+        return true;
+    }
+
+    /** @return true if this call ended the subscription */
+    private boolean terminate() {
+        lock.lock();
+        try {
+            if (terminated) return false;
+            terminated = true;
+            cancelled = true;
+            demandChanged.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
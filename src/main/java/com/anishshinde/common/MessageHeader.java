@@ -0,0 +1,138 @@
+package com.anishshinde.common;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight over the fixed-layout binary header of a frame, read and written in place in a ByteBuffer.
+ *
+ * Layout (LENGTH bytes, in the byte order of the buffer):
+ *   offset  0  byte   message type (TYPE_MESSAGE, TYPE_RESPONSE, TYPE_CREDIT)
+ *   offset  1  byte   sender (SENDER_INITIATOR, SENDER_RESPONDER)
+ *   offset  2  short  schema version (SCHEMA_VERSION)
+ *   offset  4  int    game id (stream of a multiplexed connection, otherwise 0)
+ *   offset  8  int    sequence of the frame in its direction, counting from 1
+ *   offset 12  int    payload length in bytes, the payload follows the header
+ *   offset 16  long   send timestamp (System.nanoTime() of the initiator, echoed by the responder)
+ *
+ * Responsibilities:
+ * - Gives typed access to the header fields, so sequence numbers, senders and timestamps are checked and used
+ *   without parsing any text.
+ *
+ * Developer Decisions:
+ * - A flyweight in the style of SBE: an instance holds nothing but the buffer and offset it is wrapped around, and
+ *   every getter and setter is a single absolute get or put. One instance is wrapped once and reused for every
+ *   frame, so reading and writing a header creates no objects.
+ * - Fields are placed at offsets that are multiples of their size, so no access straddles its natural alignment.
+ * - Setters return this, so a header is written as one chain.
+ * - Not thread-safe, like the buffer it wraps.
+ * - Used by the process mode only (see HeaderCodec): thread mode passes messages by reference, without frames.
+ */
+public final class MessageHeader {
+
+    public static final int LENGTH = 24;
+    public static final short SCHEMA_VERSION = 1;
+
+    public static final byte TYPE_MESSAGE = 1;
+    public static final byte TYPE_RESPONSE = 2;
+    public static final byte TYPE_CREDIT = 3;
+
+    public static final byte SENDER_INITIATOR = 1;
+    public static final byte SENDER_RESPONDER = 2;
+
+    private static final int TYPE_OFFSET = 0;
+    private static final int SENDER_OFFSET = 1;
+    private static final int VERSION_OFFSET = 2;
+    private static final int GAME_ID_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int PAYLOAD_LENGTH_OFFSET = 12;
+    private static final int SEND_TIMESTAMP_OFFSET = 16;
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * Points this flyweight at the header starting at offset in buffer
+     *
+     * @return this
+     * @throws IndexOutOfBoundsException if the header does not fit into buffer at offset
+     */
+    public MessageHeader wrap(ByteBuffer buffer, int offset) {
+        if (offset < 0 || offset > buffer.capacity() - LENGTH) {
+            throw new IndexOutOfBoundsException("header at " + offset + " does not fit into " + buffer.capacity() + " bytes");
+        }
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public byte type() {
+        return buffer.get(offset + TYPE_OFFSET);
+    }
+
+    public MessageHeader type(byte type) {
+        buffer.put(offset + TYPE_OFFSET, type);
+        return this;
+    }
+
+    public byte sender() {
+        return buffer.get(offset + SENDER_OFFSET);
+    }
+
+    public MessageHeader sender(byte sender) {
+        buffer.put(offset + SENDER_OFFSET, sender);
+        return this;
+    }
+
+    public short version() {
+        return buffer.getShort(offset + VERSION_OFFSET);
+    }
+
+    public MessageHeader version(short version) {
+        buffer.putShort(offset + VERSION_OFFSET, version);
+        return this;
+    }
+
+    public int gameId() {
+        return buffer.getInt(offset + GAME_ID_OFFSET);
+    }
+
+    public MessageHeader gameId(int gameId) {
+        buffer.putInt(offset + GAME_ID_OFFSET, gameId);
+        return this;
+    }
+
+    public int sequence() {
+        return buffer.getInt(offset + SEQUENCE_OFFSET);
+    }
+
+    public MessageHeader sequence(int sequence) {
+        buffer.putInt(offset + SEQUENCE_OFFSET, sequence);
+        return this;
+    }
+
+    public int payloadLength() {
+        return buffer.getInt(offset + PAYLOAD_LENGTH_OFFSET);
+    }
+
+    public MessageHeader payloadLength(int payloadLength) {
+        buffer.putInt(offset + PAYLOAD_LENGTH_OFFSET, payloadLength);
+        return this;
+    }
+
+    public long sendTimestamp() {
+        return buffer.getLong(offset + SEND_TIMESTAMP_OFFSET);
+    }
+
+    public MessageHeader sendTimestamp(long sendTimestamp) {
+        buffer.putLong(offset + SEND_TIMESTAMP_OFFSET, sendTimestamp);
+        return this;
+    }
+
+    /** @return e.g. "type=1 sender=1 version=1 game=0 sequence=3 payloadLength=9 sendTimestamp=123", for error messages */
+    @Override
+    public String toString() {
+        return "type=" + type() + " sender=" + sender() + " version=" + version() + " game=" + gameId()
+                + " sequence=" + sequence() + " payloadLength=" + payloadLength() + " sendTimestamp=" + sendTimestamp();
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.anishshinde.common;
+
+import com.anishshinde.metrics.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Budget that may end a game before maxMessages have been exchanged, shared by the thread and process modules.
+ *
+ * Responsibilities:
+ * - start() is called by the initiator when its game begins and returns a Check bound to that game; the initiator
+ *   asks the Check after every response whether the budget is used up and, if so, ends the game early.
+ * - Built-in conditions: a duration, a total byte budget and a round trip percentile SLO, plus anyOf() to
+ *   combine them and fromCommandLine() to build them from --stop-after-ms, --stop-kib and --stop-slo-us.
+ *
+ * Developer Decisions:
+ * - maxMessages stays the hard upper bound of every game (see StopConditions); a StopCondition can only end a
+ *   game earlier, so games without one behave exactly as before.
+ * - A Check is evaluated on the hot path, so none of the built-ins reads a clock per message: duration() reads the
+ *   monotonic CachedClock (one volatile load) and bytes() only adds up lengths the initiator already knows.
+ * - roundTripPercentile() takes no time of its own: the initiator hands the Check the round trips it measures
+ *   (send until response, see Check.roundTrip()). With metrics on that is every round trip; otherwise the initiator
+ *   times one message per SLO_BLOCK (samplesRoundTrip()), so a game pays two System.nanoTime() calls per block.
+ *   Time the initiator spends elsewhere (printing delays, waiting for a subscriber) is not part of a round trip.
+ * - The SLO is checked against a percentile of the round trips of the game so far, not a mean: a mean hides the
+ *   stalls of a few messages that a tail percentile such as p99 is meant to catch.
+ * - bytes counts the payload characters the initiator sent and received, i.e. what the game exchanged, not what a
+ *   particular wire protocol put on the wire.
+ * - A Check belongs to one game and one thread and is not thread-safe; the StopCondition itself is immutable and
+ *   can be shared by any number of games.
+ */
+@FunctionalInterface
+public interface StopCondition {
+
+    /** Responses between two evaluations of roundTripPercentile(), and messages per round trip it samples */
+    int SLO_BLOCK = 64;
+
+    /** Percentile --stop-slo-us is checked against */
+    double SLO_PERCENTILE = 99;
+
+    /** @return a new Check for a game that starts now */
+    Check start();
+
+    /** Budget of one running game */
+    @FunctionalInterface
+    interface Check {
+
+        /**
+         * @param responses responses the initiator has received so far
+         * @param bytes     payload characters the initiator has sent and received so far
+         * @return true if the game should end now
+         */
+        boolean isMet(int responses, long bytes);
+
+        /**
+         * Called before isMet() with the round trip of the message just answered, if the initiator timed it
+         * (see samplesRoundTrip()); ignored unless the check needs round trips
+         *
+         * @param nanos time from sending the message until its response arrived
+         */
+        default void roundTrip(long nanos) {}
+    }
+
+    /**
+     * @param check   check of the game, or null
+     * @param message number of the message, from 0
+     * @return true if the initiator should time the round trip of message for check even without metrics: one
+     *         message per SLO_BLOCK
+     */
+    static boolean samplesRoundTrip(Check check, int message) {
+        return check != null && message % SLO_BLOCK == 0;
+    }
+
+    /**
+     * @return condition met once the game has run for the given time (millisecond resolution), measured on a
+     *         monotonic clock, so changes to the wall clock do not shorten or stretch it
+     */
+    static StopCondition duration(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) throw new IllegalArgumentException("duration must be positive");
+        long durationMs = duration.toMillis();
+        return () -> {
+            long deadline = CachedClock.monotonicMillis() + durationMs;
+            return (responses, bytes) -> CachedClock.monotonicMillis() >= deadline;
+        };
+    }
+
+    /** @return condition met once the game has exchanged at least maxBytes payload characters */
+    static StopCondition bytes(long maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be greater than 0");
+        return () -> (responses, bytes) -> bytes >= maxBytes;
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 99
+     * @param slo        longest acceptable round trip (send until response) at that percentile
+     * @return condition met once the percentile of the round trips the initiator measured so far exceeds slo,
+     *         checked every SLO_BLOCK responses
+     */
+    static StopCondition roundTripPercentile(double percentile, Duration slo) {
+        if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("percentile must be between 0 and 100");
+        if (slo.isNegative() || slo.isZero()) throw new IllegalArgumentException("slo must be positive");
+        long sloNanos = slo.toNanos();
+        return () -> new Check() {
+            private final LatencyHistogram roundTrips = new LatencyHistogram();
+            private int nextCheck = SLO_BLOCK;
+
+            @Override
+            public void roundTrip(long nanos) {
+                roundTrips.record(nanos);
+            }
+
+            @Override
+            public boolean isMet(int responses, long bytes) {
+                if (responses < nextCheck) return false;
+                nextCheck = responses + SLO_BLOCK;
+                return roundTrips.valueAtPercentile(percentile) > sloNanos;
+            }
+        };
+    }
+
+    /** @return condition met as soon as any of the given conditions is met */
+    static StopCondition anyOf(StopCondition... conditions) {
+        if (conditions.length == 0) throw new IllegalArgumentException("at least one condition is required");
+        if (conditions.length == 1) return conditions[0];
+        StopCondition[] copy = conditions.clone();
+        return () -> {
+            Check[] checks = new Check[copy.length];
+            for (int i = 0; i < copy.length; i++) checks[i] = copy[i].start();
+            return new Check() {
+                @Override
+                public void roundTrip(long nanos) {
+                    for (Check check : checks) check.roundTrip(nanos);
+                }
+
+                @Override
+                public boolean isMet(int responses, long bytes) {
+                    for (Check check : checks) {
+                        if (check.isMet(responses, bytes)) return true;
+                    }
+                    return false;
+                }
+            };
+        };
+    }
+
+    /**
+     * Builds the condition given by --stop-after-ms=N (duration), --stop-kib=N (bytes, in KiB) and
+     * --stop-slo-us=N (roundTripPercentile at SLO_PERCENTILE); several of them are combined with anyOf().
+     *
+     * @return the condition, or null if none of the arguments is given
+     */
+    static StopCondition fromCommandLine(CommandLineOptions options) {
+        List<StopCondition> conditions = new ArrayList<>();
+        if (options.has("stop-after-ms")) {
+            conditions.add(duration(Duration.ofMillis(options.getInt("stop-after-ms", 0))));
+        }
+        if (options.has("stop-kib")) {
+            conditions.add(bytes(options.getInt("stop-kib", 0) * 1024L));
+        }
+        if (options.has("stop-slo-us")) {
+            conditions.add(roundTripPercentile(SLO_PERCENTILE, Duration.ofNanos(options.getInt("stop-slo-us", 0) * 1000L)));
+        }
+        return conditions.isEmpty() ? null : anyOf(conditions.toArray(new StopCondition[0]));
+    }
+
+}
@@ -11,6 +11,9 @@ package com.anishshinde.common;
  * - The methods of this class are used in common by both thread and process
  *   implementations of the 2-Player Communication Program, since the 'stop condition'
  *   is same for both
+ * - In pipelined games (window > 1) the initiator has up to 'window' messages in flight. It may only send while
+ *   messages remain and a credit is left, and still stops once maxMessages have been sent and answered, so a
+ *   pipelined game exchanges exactly as many messages as a stop-and-wait one.
  */
 public class StopConditions {
 
@@ -21,6 +24,15 @@ public class StopConditions {
         return responsesReceived == maxMessages && messagesSent == maxMessages;
     }
 
+    /**
+     * Determines whether a pipelining initiator may send its next message now
+     *
+     * @param window number of messages that may be in flight (sent but not yet answered) at the same time
+     */
+    public static boolean initiatorMaySend(int messagesSent, int responsesReceived, int window, int maxMessages){
+        return messagesSent < maxMessages && messagesSent - responsesReceived < window;
+    }
+
     /** Determines whether the responder should stop its messaging loop */
     public static boolean responderStopConditionFulfilled(int responsesSent, int maxMessages){
         return responsesSent == maxMessages;
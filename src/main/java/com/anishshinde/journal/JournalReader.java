@@ -0,0 +1,210 @@
+package com.anishshinde.journal;
+
+import com.anishshinde.common.MessageBuffer;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.anishshinde.journal.MessageJournal.*;
+
+/**
+ * Reads back the journal written by a MessageJournal.
+ *
+ * Responsibilities:
+ * - replay() hands every record of a journal directory, in append order, to a RecordHandler, with the whole message
+ *   rebuilt from the record's stored bytes.
+ * - verify() checks a journal: every record is complete, every rebuilt message has the journaled length and hash,
+ *   the messages of every stream are numbered without gaps (per run), and, where both players of a game journaled
+ *   into the same journal (threads mode), every received message is exactly the one the other player sent.
+ *
+ * Developer Decisions:
+ * - Segments are mapped read-only and records are parsed in place; per stream the reader keeps one MessageBuffer
+ *   that every record extends, so replay runs at memory speed and allocates nothing per record.
+ * - Records are read up to the first record length of 0 (with an acquire load, see MessageJournal), so a journal
+ *   that is still being written, or was cut short by a crash, is read up to its last complete record.
+ * - A corrupt journal is reported as an IOException naming the segment and offset, like a corrupt frame.
+ */
+public final class JournalReader {
+
+    /** Receives the records of a journal in append order */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void onRecord(JournalRecord record) throws IOException;
+    }
+
+    private JournalReader() {}
+
+    /**
+     * Verifies a journal directory and prints a summary, or with --print every record, e.g.
+     * java -cp target/classes com.anishshinde.journal.JournalReader journal/player1 --print
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: JournalReader <journal directory> [--print]");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        if (args.length > 1 && args[1].equals("--print")) {
+            replay(directory, record -> System.out.println(record));
+            return;
+        }
+        long start = System.nanoTime();
+        long records = verify(directory);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println(records + " records of " + directory + " verified in " + elapsedMs + " ms");
+    }
+
+    /**
+     * @param directory directory a MessageJournal wrote to
+     * @param handler called for every record; the record and its message are reused for the next one
+     * @return records replayed
+     * @throws IOException if a segment cannot be read or is corrupt
+     */
+    public static long replay(Path directory, RecordHandler handler) throws IOException {
+        List<MessageBuffer> messages = new ArrayList<>();
+        JournalRecord record = new JournalRecord();
+        byte[] player = new byte[MAX_PLAYER_NAME_BYTES];
+        long records = 0;
+        long session = -1;
+        for (Path file : segments(directory)) {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.capacity() < SEGMENT_HEADER_BYTES || buffer.getInt(0) != MAGIC
+                    || buffer.getInt(4) != FORMAT_VERSION || buffer.getLong(8) != segmentIndex(file)) {
+                throw new IOException("Not a journal segment of version " + FORMAT_VERSION + ": " + file);
+            }
+            if (buffer.getLong(16) != session) {
+                // a new run of a journal in the same directory, which numbers its streams from 0 again
+                session = buffer.getLong(16);
+                messages.clear();
+            }
+
+            int position = SEGMENT_HEADER_BYTES;
+            while (position + RECORD_HEADER_BYTES <= buffer.capacity()) {
+                int length = (int) INTS.getAcquire(buffer, position + LENGTH);
+                if (length == 0) break;
+                readRecord(file, buffer, position, length, session, messages, player, record);
+                handler.onRecord(record);
+                records++;
+                position += length;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @param directory directory a MessageJournal wrote to
+     * @return records verified
+     * @throws IOException if a segment cannot be read or the journal fails one of the checks
+     */
+    public static long verify(Path directory) throws IOException {
+        Map<Integer, Integer> lastSequences = new HashMap<>();
+        Map<Integer, Map<Integer, ArrayDeque<long[]>>> unreceived = new HashMap<>();
+        long[] session = {-1};
+        return replay(directory, record -> {
+            if (record.session() != session[0]) {
+                session[0] = record.session();
+                lastSequences.clear();
+                unreceived.clear();
+            }
+            // sent and received messages are numbered separately, so key the stream by direction
+            int key = record.stream() * 2 + (record.isSent() ? 0 : 1);
+            int expected = lastSequences.getOrDefault(key, 0) + 1;
+            if (record.sequence() != expected) {
+                throw new IOException("Expected message " + expected + " of stream " + record.stream() + ", found " + record);
+            }
+            lastSequences.put(key, expected);
+
+            Map<Integer, ArrayDeque<long[]>> senders = unreceived.computeIfAbsent(record.game(), game -> new LinkedHashMap<>());
+            long[] message = {record.message().length(), record.message().contentHash()};
+            if (record.isSent()) {
+                senders.computeIfAbsent(record.stream(), stream -> new ArrayDeque<>()).add(message);
+                return;
+            }
+            boolean otherPlayerJournaled = false;
+            for (Map.Entry<Integer, ArrayDeque<long[]>> sender : senders.entrySet()) {
+                if (sender.getKey() == record.stream()) continue;
+                otherPlayerJournaled = true;
+                long[] sent = sender.getValue().poll();
+                if (sent == null) continue;
+                if (sent[0] != message[0] || sent[1] != message[1]) {
+                    throw new IOException("Received message differs from the message sent in game " + record.game() + ": " + record);
+                }
+                return;
+            }
+            if (otherPlayerJournaled) throw new IOException("Received a message that was never sent: " + record);
+        });
+    }
+
+    /** Parses the record at position into record, extending the message of its stream */
+    private static void readRecord(Path file, MappedByteBuffer buffer, int position, int length, long session,
+                                   List<MessageBuffer> messages, byte[] player, JournalRecord record) throws IOException {
+        byte direction = buffer.get(position + DIRECTION);
+        int playerLength = buffer.get(position + PLAYER_LENGTH) & 0xFF;
+        int stream = buffer.getInt(position + STREAM);
+        int prefix = buffer.getInt(position + PREFIX_LENGTH);
+        int messageLength = buffer.getInt(position + MESSAGE_LENGTH);
+        int suffix = messageLength - prefix;
+        if (length < RECORD_HEADER_BYTES || length % ALIGNMENT != 0 || position + length > buffer.capacity()
+                || (direction != SENT && direction != RECEIVED) || stream < 0 || prefix < 0 || suffix < 0
+                || RECORD_HEADER_BYTES + playerLength + suffix > length) {
+            throw new IOException("Corrupt record at offset " + position + " of " + file);
+        }
+
+        while (messages.size() <= stream) messages.add(null);
+        MessageBuffer message = messages.get(stream);
+        if (message == null) messages.set(stream, message = new MessageBuffer(messageLength));
+        if (prefix != 0 && prefix != message.length()) {
+            throw new IOException("Record at offset " + position + " of " + file + " extends a message of " + prefix
+                    + " bytes, but stream " + stream + " holds " + message.length());
+        }
+        if (prefix == 0) message.clear();
+        buffer.position(position + RECORD_HEADER_BYTES + playerLength);
+        message.append(buffer, suffix);
+        if (message.contentHash() != buffer.getInt(position + MESSAGE_HASH)) {
+            throw new IOException("Message of the record at offset " + position + " of " + file + " does not match its hash");
+        }
+
+        buffer.get(position + RECORD_HEADER_BYTES, player, 0, playerLength);
+        record.set(session, direction, player, playerLength, stream, buffer.getInt(position + GAME),
+                buffer.getInt(position + SEQUENCE), buffer.getLong(position + TIMESTAMP), message);
+    }
+
+    /** @return the segment files of directory, in append order */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted(Comparator.comparingLong(JournalReader::segmentIndex))
+                    .toList();
+        }
+    }
+
+    static Path segmentFile(Path directory, long index) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    static long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+}
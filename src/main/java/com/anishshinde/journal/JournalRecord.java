@@ -0,0 +1,88 @@
+package com.anishshinde.journal;
+
+import com.anishshinde.common.MessageBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One message of a MessageJournal as seen by a JournalReader.RecordHandler.
+ *
+ * Developer Decisions:
+ * - A flyweight: the reader reuses one instance for all records, and message() is the rebuilt message of the
+ *   record's stream, which the next record of that stream extends. Both are only valid during onRecord();
+ *   copy what has to be kept.
+ * - The player name is only turned into a String when player() is called.
+ */
+public final class JournalRecord {
+
+    private long session;
+    private byte direction;
+    private byte[] player;
+    private int playerLength;
+    private int stream;
+    private int game;
+    private int sequence;
+    private long timestamp;
+    private MessageBuffer message;
+
+    JournalRecord() {}
+
+    void set(long session, byte direction, byte[] player, int playerLength, int stream, int game, int sequence,
+             long timestamp, MessageBuffer message) {
+        this.session = session;
+        this.direction = direction;
+        this.player = player;
+        this.playerLength = playerLength;
+        this.stream = stream;
+        this.game = game;
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.message = message;
+    }
+
+    /** @return run of the journal that wrote the record; stream and game ids are unique within a run */
+    public long session() {
+        return session;
+    }
+
+    /** @return true if the player sent the message, false if it received it */
+    public boolean isSent() {
+        return direction == MessageJournal.SENT;
+    }
+
+    /** @return name of the player that journaled the message */
+    public String player() {
+        return new String(player, 0, playerLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /** @return stream of the player and game, unique within one journal */
+    public int stream() {
+        return stream;
+    }
+
+    /** @return game the message belongs to */
+    public int game() {
+        return game;
+    }
+
+    /** @return position of the message among the messages the player sent (or received) in the game, from 1 */
+    public int sequence() {
+        return sequence;
+    }
+
+    /** @return when the message was journaled, in epoch milliseconds */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /** @return the whole message, valid until onRecord() returns */
+    public MessageBuffer message() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return player() + (isSent() ? " sent " : " received ") + "#" + sequence + " of game " + game + ": " + message;
+    }
+
+}
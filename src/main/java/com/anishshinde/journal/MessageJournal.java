@@ -0,0 +1,394 @@
+package com.anishshinde.journal;
+
+import com.anishshinde.common.CachedClock;
+import com.anishshinde.common.MessageBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only journal of the messages sent and received by players, written to segment files that are mapped
+ * into memory. Shared by both modes; read back with JournalReader.
+ *
+ * Directory layout:
+ *   journal-0000000000.seg, journal-0000000001.seg, ...   segments in append order, each segmentSize bytes
+ * Segment layout:
+ *   [0, 24)   header: magic, format version, segment index, session (index of the first segment of the journal
+ *             that wrote it, so the records of every run can be told apart)
+ *   [24, ..)  records, each padded to 8 bytes; a record length of 0 marks the end of the written records
+ * Record layout (big-endian, RECORD_HEADER_BYTES followed by the player name and the message bytes):
+ *   length (int, written last), direction (byte, SENT or RECEIVED), player name length (byte), reserved (short),
+ *   stream (int), game (int), sequence (int), prefix length (int), message length (int), message hash (int),
+ *   timestamp (long, epoch milliseconds)
+ *
+ * Responsibilities:
+ * - Hands out a Stream per player and game (stream()); the player reports every message it sends or receives
+ *   through it (Stream.sent(), Stream.received()).
+ * - Appends one record per message, sequentially, rolling over to the next segment when a record does not fit.
+ * - Forces the written records to disk every syncEvery records and when the journal is closed.
+ *
+ * Developer Decisions:
+ * - Appending copies bytes into the mapped segment; it never does blocking I/O on the messaging thread. Creating and
+ *   mapping the next segment, forcing records to disk and releasing full segments all happen on the journal's own
+ *   "journal-sync" thread, which prepares a spare segment before it is needed. Only if a record arrives before the
+ *   spare is ready (or is larger than a segment) does the appending thread create the segment itself.
+ * - Every page of a segment is written once before the segment is used (Segment.touch(), the first one in open()),
+ *   since the page fault of the first write to a mapped page costs more than appending a record to it.
+ * - Messages only grow within a game (see MessageBuffer), so journaling every message in full would make the
+ *   journal of a game quadratic in its length. A record therefore only stores the bytes appended since the previous
+ *   record of its stream (prefix length + suffix), like WireProtocol.DELTA. Whether the message really extends the
+ *   previous one is checked with MessageBuffer.contentHash(), extended over the new bytes only, so the check costs
+ *   O(digits) per hop. Any other message (e.g. a new pipelined message) and the first record of a stream in a
+ *   segment are stored in full, so every segment can be replayed on its own.
+ * - Records of all streams are appended under one lock, in the order the players report them: a message is
+ *   recorded as sent before the other player can take it, so in the journal it always precedes its receipt.
+ * - The record length is written last with a release store (and read with an acquire load), so a reader never
+ *   sees a partly written record, even while the journal is being written.
+ * - The sync thread is a daemon and wakes up by time (SYNC_PARK_NANOS) rather than being signalled, so appending
+ *   costs no system call; close() forces everything that was appended.
+ * - Segments are created (and their pages touched) under segmentLock only, by the appender rolling over or the sync
+ *   thread preparing the spare, so a segment file is never mapped and written by both at once. An appender that
+ *   rolls while the spare is being prepared waits for it instead of creating the same segment itself.
+ * - Records are timestamped with the CachedClock, so timestamps have millisecond resolution without reading the
+ *   system clock per record, and the process runs one clock thread, shared with the stop conditions.
+ * - A journal continues after the last existing segment of its directory, so runs never overwrite each other;
+ *   stream and game ids are numbered per run (session).
+ */
+public final class MessageJournal implements AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 16 << 20;
+    public static final int DEFAULT_SYNC_EVERY = 1024;
+
+    public static final byte SENT = 1;
+    public static final byte RECEIVED = 2;
+
+    static final int MAGIC = 0x504A4E4C; // "PJNL"
+    static final int FORMAT_VERSION = 1;
+    static final int SEGMENT_HEADER_BYTES = 24;
+    static final int RECORD_HEADER_BYTES = 40;
+    static final int ALIGNMENT = Long.BYTES;
+    static final int MAX_PLAYER_NAME_BYTES = 255;
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    // record field offsets
+    static final int LENGTH = 0;
+    static final int DIRECTION = 4;
+    static final int PLAYER_LENGTH = 5;
+    static final int STREAM = 8;
+    static final int GAME = 12;
+    static final int SEQUENCE = 16;
+    static final int PREFIX_LENGTH = 20;
+    static final int MESSAGE_LENGTH = 24;
+    static final int MESSAGE_HASH = 28;
+    static final int TIMESTAMP = 32;
+
+    static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final int PAGE_SIZE = 4096;
+    private static final long SYNC_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int syncEvery;
+    private final long session;
+    private final AtomicInteger streams = new AtomicInteger();
+    private final AtomicInteger games = new AtomicInteger();
+    private final AtomicReference<Segment> spare = new AtomicReference<>();
+    private final Queue<Segment> retired = new ConcurrentLinkedQueue<>();
+    private final Object segmentLock = new Object();
+    private final Thread syncer;
+    private volatile boolean closed;
+    private volatile IOException syncFailure;
+
+
+    // guarded by this, current is also read by the sync thread
+    private volatile Segment current;
+    private long recordsAppended;
+
+    private MessageJournal(Path directory, int segmentSize, int syncEvery, long firstSegment) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncEvery = syncEvery;
+        session = firstSegment;
+        current = Segment.create(directory, firstSegment, session, segmentSize).touch();
+        syncer = new Thread(this::syncUntilClosed, "journal-sync");
+        syncer.setDaemon(true);
+    }
+
+    /** @return a journal writing to directory with the default segment size and sync batch */
+    public static MessageJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_SYNC_EVERY);
+    }
+
+    /**
+     * @param directory created if missing; existing segments are kept and the journal continues after them
+     * @param segmentSize bytes per segment file (a larger record gets a segment of its own)
+     * @param syncEvery records after which the sync thread forces the segment to disk, 0 to leave writing back to
+     *                  the operating system until close()
+     * @return a journal with its sync thread started
+     */
+    public static MessageJournal open(Path directory, int segmentSize, int syncEvery) throws IOException {
+        if (segmentSize < SEGMENT_HEADER_BYTES + RECORD_HEADER_BYTES) {
+            throw new IllegalArgumentException("segmentSize must be at least " + (SEGMENT_HEADER_BYTES + RECORD_HEADER_BYTES));
+        }
+        if (syncEvery < 0) throw new IllegalArgumentException("syncEvery must not be negative");
+        Files.createDirectories(directory);
+        long lastSegment = -1;
+        for (Path segment : JournalReader.segments(directory)) {
+            lastSegment = Math.max(lastSegment, JournalReader.segmentIndex(segment));
+        }
+        MessageJournal journal = new MessageJournal(directory, segmentSize, syncEvery, lastSegment + 1);
+        journal.syncer.start();
+        return journal;
+    }
+
+    /** @return a new game id, for players that have none of their own (e.g. the two threads of a game) */
+    public int nextGame() {
+        return games.getAndIncrement();
+    }
+
+    /**
+     * @param player name recorded with every message of the stream, at most MAX_PLAYER_NAME_BYTES characters
+     * @param game game the messages belong to
+     * @return a stream to report the messages of one player in one game; it must only be used by one thread at a
+     *         time, e.g. the player owning the messages of the game
+     */
+    public Stream stream(String player, int game) {
+        byte[] name = player.getBytes(StandardCharsets.ISO_8859_1);
+        if (name.length > MAX_PLAYER_NAME_BYTES) throw new IllegalArgumentException("player name is too long: " + player);
+        return new Stream(this, name, streams.getAndIncrement(), game);
+    }
+
+    /** @return records appended so far */
+    public synchronized long getRecordsAppended() {
+        return recordsAppended;
+    }
+
+    /** @return directory the segments are written to */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /** Forces every appended record to disk and stops the sync thread; appending afterwards fails */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(syncer);
+        try {
+            syncer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (syncFailure != null) throw syncFailure;
+    }
+
+    private synchronized void append(Stream stream, byte direction, int sequence, MessageBuffer message,
+                                     boolean extendsPrevious, long timestamp) {
+        if (closed) throw new IllegalStateException("Journal is closed");
+        Segment segment = current;
+        int prefix = extendsPrevious && stream.segment == segment.index ? stream.journaledLength : 0;
+        int recordLength = recordLength(stream.player.length, message.length() - prefix);
+        if (segment.position + recordLength > segment.capacity) {
+            segment = roll(segment, recordLength(stream.player.length, message.length()));
+            prefix = 0;
+            recordLength = recordLength(stream.player.length, message.length());
+        }
+
+        MappedByteBuffer buffer = segment.buffer;
+        int start = segment.position;
+        buffer.put(start + DIRECTION, direction);
+        buffer.put(start + PLAYER_LENGTH, (byte) stream.player.length);
+        buffer.putInt(start + STREAM, stream.id);
+        buffer.putInt(start + GAME, stream.game);
+        buffer.putInt(start + SEQUENCE, sequence);
+        buffer.putInt(start + PREFIX_LENGTH, prefix);
+        buffer.putInt(start + MESSAGE_LENGTH, message.length());
+        buffer.putInt(start + MESSAGE_HASH, message.contentHash());
+        buffer.putLong(start + TIMESTAMP, timestamp);
+        buffer.put(start + RECORD_HEADER_BYTES, stream.player);
+        buffer.position(start + RECORD_HEADER_BYTES + stream.player.length);
+        message.writeTo(buffer, prefix, message.length());
+        // publish the record only once all of its bytes are written
+        INTS.setRelease(buffer, start + LENGTH, recordLength);
+
+        segment.position = start + recordLength;
+        stream.segment = segment.index;
+        recordsAppended++;
+    }
+
+    /** Switches to the next segment (the spare if it is ready and large enough) and retires the full one */
+    private Segment roll(Segment full, int recordLength) {
+        long index = full.index + 1;
+        int capacity = Math.max(segmentSize, SEGMENT_HEADER_BYTES + recordLength);
+        synchronized (segmentLock) {
+            Segment next = spare.getAndSet(null);
+            if (next == null || next.index != index || next.capacity < capacity) {
+                try {
+                    next = Segment.create(directory, index, session, capacity);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot create journal segment " + index, e);
+                }
+            }
+            retired.add(full);
+            current = next;
+            return next;
+        }
+    }
+
+    private void syncUntilClosed() {
+        long recordsSynced = 0;
+        try {
+            while (true) {
+                // read the flag first, so every record appended before close() is forced below
+                boolean closing = closed;
+                Segment segment;
+                while ((segment = retired.poll()) != null) segment.buffer.force();
+                long appended = getRecordsAppended();
+                if (closing || (syncEvery > 0 && appended - recordsSynced >= syncEvery)) {
+                    current.buffer.force();
+                    recordsSynced = appended;
+                }
+                if (closing) {
+                    deleteSpare();
+                    return;
+                }
+                prepareSpare();
+                LockSupport.parkNanos(SYNC_PARK_NANOS);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            syncFailure = e instanceof IOException io ? io : ((UncheckedIOException) e).getCause();
+        }
+    }
+
+    /** Creates the segment following the current one ahead of time, unless it is ready already */
+    private void prepareSpare() throws IOException {
+        synchronized (segmentLock) {
+            // current cannot move on while the lock is held, so the spare is always the segment the appender needs next
+            long index = current.index + 1;
+            Segment ready = spare.get();
+            if (ready != null && ready.index == index) return;
+            spare.set(Segment.create(directory, index, session, segmentSize).touch());
+        }
+    }
+
+    /** Deletes the spare segment, which was never written, so the next journal in the directory continues after the last record */
+    private void deleteSpare() throws IOException {
+        synchronized (segmentLock) {
+            Segment unused = spare.getAndSet(null);
+            if (unused != null && unused.index > current.index) {
+                Files.deleteIfExists(JournalReader.segmentFile(directory, unused.index));
+            }
+        }
+    }
+
+    private static int recordLength(int playerLength, int bytes) {
+        int length = RECORD_HEADER_BYTES + playerLength + bytes;
+        return (length + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * Reports the messages of one player in one game. Remembers the length and hash of the message journaled last,
+     * so the next record of the stream only needs the bytes appended since.
+     */
+    public static final class Stream {
+
+        private final MessageJournal journal;
+        private final byte[] player;
+        private final int id;
+        private final int game;
+        private int sent;
+        private int received;
+        private int journaledLength;
+        private int journaledHash;
+        private long segment = -1;
+
+        private Stream(MessageJournal journal, byte[] player, int id, int game) {
+            this.journal = journal;
+            this.player = player;
+            this.id = id;
+            this.game = game;
+        }
+
+        /** @return game the messages of this stream belong to */
+        public int getGame() {
+            return game;
+        }
+
+        /** Records a message the player is about to send; call before handing it over, the receiver may change it */
+        public void sent(MessageBuffer message) {
+            append(SENT, ++sent, message);
+        }
+
+        /** Records a message the player has received */
+        public void received(MessageBuffer message) {
+            append(RECEIVED, ++received, message);
+        }
+
+        private void append(byte direction, int sequence, MessageBuffer message) {
+            boolean extendsPrevious = extendsJournaled(message);
+            journal.append(this, direction, sequence, message, extendsPrevious, CachedClock.millis());
+            journaledLength = message.length();
+            journaledHash = message.contentHash();
+        }
+
+        /** @return true if message is the message journaled last plus appended bytes, judged by its content hash */
+        private boolean extendsJournaled(MessageBuffer message) {
+            if (segment < 0 || message.length() < journaledLength) return false;
+            int hash = journaledHash;
+            for (int i = journaledLength; i < message.length(); i++) hash = 31 * hash + (message.charAt(i) & 0xFF);
+            return hash == message.contentHash();
+        }
+    }
+
+    /** A mapped segment file; position is only touched under the journal's lock */
+    private static final class Segment {
+
+        private final long index;
+        private final int capacity;
+        private final MappedByteBuffer buffer;
+        private int position = SEGMENT_HEADER_BYTES;
+
+        private Segment(long index, int capacity, MappedByteBuffer buffer) {
+            this.index = index;
+            this.capacity = capacity;
+            this.buffer = buffer;
+        }
+
+        /** Writes to every page of the segment, so appending never waits for the kernel to fault a page in */
+        Segment touch() {
+            for (int page = PAGE_SIZE; page < capacity; page += PAGE_SIZE) buffer.put(page, (byte) 0);
+            return this;
+        }
+
+        static Segment create(Path directory, long index, long session, int capacity) throws IOException {
+            try (FileChannel channel = FileChannel.open(JournalReader.segmentFile(directory, index),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // the mapping stays valid after the channel is closed
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, FORMAT_VERSION);
+                buffer.putLong(8, index);
+                buffer.putLong(16, session);
+                return new Segment(index, capacity, buffer);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,211 @@
+package com.anishshinde.load;
+
+import com.anishshinde.common.CommandLineOptions;
+import com.anishshinde.metrics.LatencyHistogram;
+import com.anishshinde.process.ProcessOptions;
+import com.anishshinde.thread.PlayerOptions;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Open-loop load and soak tool: starts operations (games) against a LoadTarget at a fixed rate for a set duration.
+ *
+ * Responsibilities:
+ * - Schedules operation i at start + i / rate and starts it when it is due, whether or not earlier operations are
+ *   over (open loop), so a slow target does not lower the load it is offered.
+ * - Records the latency of every operation against its scheduled start, prints throughput, errors and latency
+ *   percentiles of every report interval, and returns (and optionally writes) a final LoadReport.
+ *
+ * Developer Decisions:
+ * - Coordinated omission: a closed-loop tool that waits for an answer before sending the next request stops
+ *   measuring exactly while the system stalls, and timing from the actual send hides how long requests were held
+ *   back. Here every latency runs from the scheduled start, so an operation started late (because the generator
+ *   or start() fell behind) is charged with the delay. The service time from the actual start is recorded as well.
+ * - Operations that are already due are started back to back without parking, so rates above the resolution of
+ *   LockSupport.parkNanos() keep their schedule on average, and each still gets its own scheduled start.
+ * - Completions arrive on the target's threads, so the histograms (single writer, see LatencyHistogram) and counters
+ *   are recorded under a ReentrantLock; one uncontended lock per operation is cheap next to a game.
+ * - After the duration the generator waits up to the drain timeout of the options for outstanding operations; those still
+ *   running afterwards are reported as outstanding errors, and their late completions are ignored.
+ * - Everything runs in one JVM on one host (see main()); there is no coordinator or network dependency besides the
+ *   target itself.
+ */
+public final class LoadGenerator {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final LoadTarget target;
+    private final LoadOptions options;
+    private final PrintStream out;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // guarded by lock
+    private final LatencyHistogram responseTimes = new LatencyHistogram();
+    private final LatencyHistogram serviceTimes = new LatencyHistogram();
+    private LatencyHistogram intervalResponseTimes = new LatencyHistogram();
+    private long completed;
+    private long failed;
+    private long intervalCompleted;
+    private long intervalFailed;
+    private boolean finished;
+
+    /** @param out where the progress lines are printed */
+    public LoadGenerator(LoadTarget target, LoadOptions options, PrintStream out) {
+        this.target = target;
+        this.options = options;
+        this.out = out;
+    }
+
+    /**
+     * Runs the load for the configured duration and waits for the outstanding operations.
+     * The target is not closed.
+     *
+     * @return the final report, also written to the report file of the options if there is one
+     * @throws InterruptedException if interrupted while running
+     * @throws IOException if the report file cannot be written
+     */
+    public LoadReport run() throws InterruptedException, IOException {
+        double nanosPerOperation = TimeUnit.SECONDS.toNanos(1) / (double) options.getRate();
+        long intervalNanos = options.getReportInterval().toNanos();
+        long start = System.nanoTime();
+        long end = start + options.getDuration().toNanos();
+        long nextReport = start + intervalNanos;
+        long lastReport = start;
+        long scheduled = 0;
+        long dropped = 0;
+        long intervalDropped = 0;
+
+        while (true) {
+            long intended = start + (long) (scheduled * nanosPerOperation);
+            if (intended >= end) break;
+            long now = System.nanoTime();
+            if (now >= nextReport) {
+                printInterval(now - start, now - lastReport, intervalDropped);
+                lastReport = now;
+                nextReport += intervalNanos;
+                intervalDropped = 0;
+            }
+            if (now < intended) {
+                LockSupport.parkNanos(Math.min(intended, nextReport) - now);
+                if (Thread.interrupted()) throw new InterruptedException();
+                continue;
+            }
+            long operation = scheduled++;
+            if (inFlight.get() >= options.getMaxInFlight()) {
+                dropped++;
+                intervalDropped++;
+                continue;
+            }
+            inFlight.incrementAndGet();
+            try {
+                target.start(operation).whenComplete((result, failure) -> complete(intended, now, failure));
+            } catch (RuntimeException e) {
+                complete(intended, now, e);
+            }
+        }
+
+        long drainDeadline = System.nanoTime() + options.getDrainTimeout().toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            long now = System.nanoTime();
+            if (now >= nextReport) {
+                printInterval(now - start, now - lastReport, intervalDropped);
+                lastReport = now;
+                nextReport += intervalNanos;
+                intervalDropped = 0;
+            }
+            LockSupport.parkNanos(Math.min(IDLE_PARK_NANOS, Math.max(nextReport - now, 1)));
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+        long now = System.nanoTime();
+        if (now > lastReport) printInterval(now - start, now - lastReport, intervalDropped);
+
+        LoadReport report;
+        lock.lock();
+        try {
+            finished = true;
+            report = new LoadReport(options.getRate(), now - start, scheduled, completed, failed, dropped,
+                    scheduled - dropped - completed - failed, responseTimes, serviceTimes);
+        } finally {
+            lock.unlock();
+        }
+        if (options.getReportFile() != null) report.writeTo(options.getReportFile());
+        return report;
+    }
+
+    /** Records the end of an operation scheduled at intended and started at startedAt */
+    private void complete(long intended, long startedAt, Throwable failure) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            if (finished) return;
+            if (failure != null) {
+                failed++;
+                intervalFailed++;
+            } else {
+                completed++;
+                intervalCompleted++;
+                responseTimes.record(now - intended);
+                serviceTimes.record(now - startedAt);
+                intervalResponseTimes.record(now - intended);
+            }
+        } finally {
+            lock.unlock();
+        }
+        inFlight.decrementAndGet();
+    }
+
+    /** Prints the operations completed since the last interval, e.g. "[   5.0s]  1000.0 ops/s, 0 errors, ..." */
+    private void printInterval(long sinceStartNanos, long intervalNanos, long intervalDropped) {
+        long operations;
+        long errors;
+        LatencyHistogram latencies;
+        lock.lock();
+        try {
+            operations = intervalCompleted;
+            errors = intervalFailed + intervalDropped;
+            latencies = intervalResponseTimes;
+            intervalCompleted = 0;
+            intervalFailed = 0;
+            intervalResponseTimes = new LatencyHistogram();
+        } finally {
+            lock.unlock();
+        }
+        out.printf("[%7.1fs] %9.1f ops/s, %d errors, %d in flight, response time %s%n",
+                sinceStartNanos / 1e9, operations * 1e9 / Math.max(intervalNanos, 1), errors, inFlight.get(),
+                latencies.summary());
+    }
+
+    /**
+     * Runs a load from the command line and prints the final report, e.g.
+     * java -cp target/classes com.anishshinde.load.LoadGenerator 10 --target=threads --rate=5000 --duration=60
+     * java -cp target/classes com.anishshinde.load.LoadGenerator 10 --target=server --rate=500 --io=channel --report=load.txt
+     * The first argument is maxMessages of every game (default 4); --target=server drives a PlayerServer started with
+     * --serve and the same maxMessages and process options.
+     */
+    public static void main(String[] args) throws InterruptedException, IOException {
+        CommandLineOptions options = CommandLineOptions.parse(args);
+        int maxMessages = Integer.parseInt(options.getPositional(0, "4"));
+        LoadOptions loadOptions = LoadOptions.fromCommandLine(options);
+        String targetName = options.get("target", "threads");
+        LoadTarget target = switch (targetName) {
+            case "threads" -> LoadTarget.eventLoopGames(maxMessages,
+                    PlayerOptions.defaults().withWindow(options.getInt("window", PlayerOptions.DEFAULT_WINDOW)));
+            case "server" -> LoadTarget.playerServer(maxMessages, ProcessOptions.fromCommandLine(options));
+            default -> throw new IllegalArgumentException("Unknown target '" + targetName + "', expected threads or server");
+        };
+        try (target) {
+            System.out.println("Offering " + loadOptions.getRate() + " games/s of " + maxMessages + " messages to "
+                    + targetName + " for " + loadOptions.getDuration().toSeconds() + " s");
+            LoadReport report = new LoadGenerator(target, loadOptions, System.out).run();
+            System.out.print(report.summary());
+            if (loadOptions.getReportFile() != null) System.out.println("Report written to " + loadOptions.getReportFile());
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.anishshinde.load;
+
+import com.anishshinde.common.CommandLineOptions;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of a LoadGenerator run.
+ *
+ * Responsibilities:
+ * - Holds the target rate, how long the load is applied, how often progress is printed, how many operations may be
+ *   outstanding at once, how long to wait for them at the end and where the final report is written.
+ * - Reads these settings from named command-line arguments (see LoadGenerator.main()).
+ *
+ * Developer Decisions:
+ * - Instances are immutable; every with*() method returns a modified copy (same approach as PlayerOptions and
+ *   ProcessOptions).
+ * - maxInFlight bounds the memory of a run against a target that stops answering: an operation that is due while
+ *   the bound is reached is not started but counted as dropped, and the load keeps its schedule.
+ */
+public final class LoadOptions {
+
+    public static final int DEFAULT_RATE = 1_000;
+    public static final Duration DEFAULT_DURATION = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_REPORT_INTERVAL = Duration.ofSeconds(1);
+    public static final int DEFAULT_MAX_IN_FLIGHT = 10_000;
+    public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private int rate;
+    private Duration duration;
+    private Duration reportInterval;
+    private int maxInFlight;
+    private Duration drainTimeout;
+    private Path reportFile;
+
+    private LoadOptions() {
+        rate = DEFAULT_RATE;
+        duration = DEFAULT_DURATION;
+        reportInterval = DEFAULT_REPORT_INTERVAL;
+        maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        drainTimeout = DEFAULT_DRAIN_TIMEOUT;
+    }
+
+    private LoadOptions(LoadOptions other) {
+        rate = other.rate;
+        duration = other.duration;
+        reportInterval = other.reportInterval;
+        maxInFlight = other.maxInFlight;
+        drainTimeout = other.drainTimeout;
+        reportFile = other.reportFile;
+    }
+
+    /** @return 1000 operations per second for 10 seconds, printed every second, no report file */
+    public static LoadOptions defaults() {
+        return new LoadOptions();
+    }
+
+    /** @return options read from the named arguments, e.g. --rate=5000 --duration=60 --interval=5 --report=load.txt */
+    public static LoadOptions fromCommandLine(CommandLineOptions options) {
+        return defaults()
+                .withRate(options.getInt("rate", DEFAULT_RATE))
+                .withDuration(Duration.ofSeconds(options.getInt("duration", (int) DEFAULT_DURATION.toSeconds())))
+                .withReportInterval(Duration.ofSeconds(options.getInt("interval", (int) DEFAULT_REPORT_INTERVAL.toSeconds())))
+                .withMaxInFlight(options.getInt("max-in-flight", DEFAULT_MAX_IN_FLIGHT))
+                .withDrainTimeout(Duration.ofSeconds(options.getInt("drain", (int) DEFAULT_DRAIN_TIMEOUT.toSeconds())))
+                .withReportFile(options.has("report") ? Path.of(options.get("report", null)) : null);
+    }
+
+    /** @param rate operations started per second, evenly spaced */
+    public LoadOptions withRate(int rate) {
+        if (rate <= 0) throw new IllegalArgumentException("rate must be greater than 0");
+        LoadOptions copy = new LoadOptions(this);
+        copy.rate = rate;
+        return copy;
+    }
+
+    /** @param duration how long operations are started */
+    public LoadOptions withDuration(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) throw new IllegalArgumentException("duration must be positive");
+        LoadOptions copy = new LoadOptions(this);
+        copy.duration = duration;
+        return copy;
+    }
+
+    /** @param reportInterval how often a progress line is printed */
+    public LoadOptions withReportInterval(Duration reportInterval) {
+        if (reportInterval.isNegative() || reportInterval.isZero()) {
+            throw new IllegalArgumentException("reportInterval must be positive");
+        }
+        LoadOptions copy = new LoadOptions(this);
+        copy.reportInterval = reportInterval;
+        return copy;
+    }
+
+    /** @param maxInFlight operations that may be outstanding at once; further due operations are dropped */
+    public LoadOptions withMaxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) throw new IllegalArgumentException("maxInFlight must be greater than 0");
+        LoadOptions copy = new LoadOptions(this);
+        copy.maxInFlight = maxInFlight;
+        return copy;
+    }
+
+    /** @param drainTimeout how long to wait for outstanding operations once the duration is over */
+    public LoadOptions withDrainTimeout(Duration drainTimeout) {
+        if (drainTimeout.isNegative()) throw new IllegalArgumentException("drainTimeout must not be negative");
+        LoadOptions copy = new LoadOptions(this);
+        copy.drainTimeout = drainTimeout;
+        return copy;
+    }
+
+    /** @param reportFile file the final report is written to, or null to only print it */
+    public LoadOptions withReportFile(Path reportFile) {
+        LoadOptions copy = new LoadOptions(this);
+        copy.reportFile = reportFile;
+        return copy;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getReportInterval() {
+        return reportInterval;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public Duration getDrainTimeout() {
+        return drainTimeout;
+    }
+
+    public Path getReportFile() {
+        return reportFile;
+    }
+
+}
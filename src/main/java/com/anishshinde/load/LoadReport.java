@@ -0,0 +1,126 @@
+package com.anishshinde.load;
+
+import com.anishshinde.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Final outcome of a LoadGenerator run.
+ *
+ * Responsibilities:
+ * - Counts the operations that were scheduled, completed, failed, dropped (maxInFlight reached) and still
+ *   outstanding when the run gave up waiting for them.
+ * - Holds the latency distributions: the response time measured from the scheduled start of every operation, and
+ *   the service time measured from its actual start.
+ * - Prints itself as a few lines of "key: value" text and writes the same text to a file.
+ *
+ * Developer Decisions:
+ * - The response time is the one to plan capacity with: it includes the time an operation waited because the
+ *   generator or the target fell behind (coordinated omission). The service time is reported next to it, since the
+ *   gap between the two shows how much of the latency is queueing.
+ * - Created once the run is over; the histograms are no longer recorded to afterwards.
+ */
+public final class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final int targetRate;
+    private final long elapsedNanos;
+    private final long scheduled;
+    private final long completed;
+    private final long failed;
+    private final long dropped;
+    private final long outstanding;
+    private final LatencyHistogram responseTimes;
+    private final LatencyHistogram serviceTimes;
+
+    LoadReport(int targetRate, long elapsedNanos, long scheduled, long completed, long failed, long dropped,
+               long outstanding, LatencyHistogram responseTimes, LatencyHistogram serviceTimes) {
+        this.targetRate = targetRate;
+        this.elapsedNanos = elapsedNanos;
+        this.scheduled = scheduled;
+        this.completed = completed;
+        this.failed = failed;
+        this.dropped = dropped;
+        this.outstanding = outstanding;
+        this.responseTimes = responseTimes;
+        this.serviceTimes = serviceTimes;
+    }
+
+    /** @return operations the schedule called for */
+    public long getScheduled() {
+        return scheduled;
+    }
+
+    /** @return operations that completed successfully */
+    public long getCompleted() {
+        return completed;
+    }
+
+    /** @return failed, dropped and outstanding operations together */
+    public long getErrors() {
+        return failed + dropped + outstanding;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getOutstanding() {
+        return outstanding;
+    }
+
+    /** @return successful operations per second over the whole run, including the wait for the last ones */
+    public double getThroughput() {
+        return completed * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(elapsedNanos, 1);
+    }
+
+    /** @return latencies from the scheduled start of every completed operation (corrected for coordinated omission) */
+    public LatencyHistogram getResponseTimes() {
+        return responseTimes;
+    }
+
+    /** @return latencies from the actual start of every completed operation */
+    public LatencyHistogram getServiceTimes() {
+        return serviceTimes;
+    }
+
+    /** @return the report as "key: value" lines */
+    public String summary() {
+        String nl = System.lineSeparator();
+        return "target rate: " + targetRate + " ops/s" + nl
+                + "elapsed: " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms" + nl
+                + "scheduled: " + scheduled + nl
+                + "completed: " + completed + nl
+                + String.format("throughput: %.1f ops/s", getThroughput()) + nl
+                + "errors: " + getErrors() + " (failed " + failed + ", dropped " + dropped + ", outstanding " + outstanding + ")" + nl
+                + "response time: " + percentiles(responseTimes) + nl
+                + "service time: " + percentiles(serviceTimes) + nl;
+    }
+
+    /** Writes summary() to file, replacing it */
+    public void writeTo(Path file) throws IOException {
+        Files.writeString(file, summary());
+    }
+
+    private static String percentiles(LatencyHistogram histogram) {
+        StringBuilder line = new StringBuilder();
+        for (double percentile : PERCENTILES) {
+            line.append('p').append(percentile == (long) percentile ? String.valueOf((long) percentile) : String.valueOf(percentile))
+                    .append('=').append(micros(histogram.valueAtPercentile(percentile))).append(' ');
+        }
+        return line.append("max=").append(micros(histogram.max())).toString();
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1fus", nanos / (double) TimeUnit.MICROSECONDS.toNanos(1));
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.anishshinde.load;
+
+import com.anishshinde.process.PlayerClient;
+import com.anishshinde.process.ProcessOptions;
+import com.anishshinde.thread.EventLoopGroup;
+import com.anishshinde.thread.PlayerOptions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * System a LoadGenerator drives: every operation is one complete game.
+ *
+ * Responsibilities:
+ * - start() begins an operation and returns at once; the future completes when the game is over, or exceptionally
+ *   if it failed.
+ * - close() releases whatever the target started (threads, event loops) once the run is over.
+ *
+ * Developer Decisions:
+ * - start() must not wait for the game: the generator calls it at the scheduled time of every operation, and a
+ *   start() that blocks delays all later operations (which the generator then measures as latency, see
+ *   LoadGenerator, but it no longer applies the target rate).
+ * - eventLoopGames() plays thread-mode games on an EventLoopGroup, so thousands of outstanding games need no thread
+ *   each; playerServer() plays every game over a new connection to a PlayerServer started with --serve, on a
+ *   virtual thread of its own.
+ */
+public interface LoadTarget extends AutoCloseable {
+
+    /**
+     * Starts one operation.
+     *
+     * @param operation number of the operation, from 0
+     * @return future completing once the operation is over
+     */
+    CompletableFuture<?> start(long operation);
+
+    @Override
+    void close();
+
+    /**
+     * @param maxMessages messages of every game
+     * @param options settings of the players; nothing is printed
+     * @return target playing every operation as a game of PlayerActors on one event loop per core
+     */
+    static LoadTarget eventLoopGames(int maxMessages, PlayerOptions options) {
+        EventLoopGroup group = new EventLoopGroup();
+        PlayerOptions gameOptions = options.withPrintMessages(false);
+        return new LoadTarget() {
+            @Override
+            public CompletableFuture<?> start(long operation) {
+                return group.startGame("player1-" + operation, "player2-" + operation, maxMessages, gameOptions);
+            }
+
+            @Override
+            public void close() {
+                group.close();
+            }
+        };
+    }
+
+    /**
+     * @param maxMessages messages of every game, must match the maxMessages of the server
+     * @param options how to reach the server (transport, I/O mode, protocol); nothing is printed or measured per game
+     * @return target playing every operation as a game with a serving PlayerServer
+     */
+    static LoadTarget playerServer(int maxMessages, ProcessOptions options) {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        PlayerClient client = new PlayerClient(maxMessages, options.withPrintMessages(false).withMetrics(false));
+        return new LoadTarget() {
+            @Override
+            public CompletableFuture<?> start(long operation) {
+                return CompletableFuture.runAsync(() -> {
+                    try {
+                        client.playGame();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor);
+            }
+
+            @Override
+            public void close() {
+                executor.shutdownNow();
+                executor.close();
+            }
+        };
+    }
+
+}
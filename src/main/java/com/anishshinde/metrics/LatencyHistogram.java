@@ -0,0 +1,112 @@
+package com.anishshinde.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds with logarithmic buckets, e.g. the round trips of a player.
+ *
+ * Responsibilities:
+ * - Records a latency with a few array operations, without allocating.
+ * - Answers percentiles (p50, p99, p99.9) and the maximum, while recording continues (e.g. from a JMX client).
+ *
+ * Developer Decisions:
+ * - Every power of two is split into SUB_BUCKETS linear sub-buckets, so a percentile is reported with a relative
+ *   error of at most 1 / SUB_BUCKETS (6.25%) over the whole range of long, in a fixed array of BUCKETS counters.
+ *   Values below SUB_BUCKETS are counted exactly.
+ * - A percentile reports the highest value of its bucket (capped at the recorded maximum), so tail latencies are
+ *   never under-reported.
+ * - Single writer: only the owning player thread records, so a counter is incremented with a plain read and a
+ *   release store instead of an atomic read-modify-write. Readers on other threads see a slightly stale but
+ *   consistent-enough view, which is all monitoring needs.
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /** Records one latency; negative values are recorded as 0. Must only be called by the owning thread */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        int index = indexOf(value);
+        counts.setRelease(index, counts.getPlain(index) + 1);
+        if (value > maxValue.getPlain()) maxValue.setRelease(value);
+    }
+
+    /**
+     * Adds all latencies recorded by other, e.g. to aggregate the histograms of many games.
+     * Counts as a write: must only be called by the owning thread (or under the lock of an aggregate)
+     */
+    public void add(LatencyHistogram other) {
+        for (int index = 0; index < BUCKETS; index++) {
+            long count = other.counts.getAcquire(index);
+            if (count > 0) counts.setRelease(index, counts.getPlain(index) + count);
+        }
+        if (other.max() > maxValue.getPlain()) maxValue.setRelease(other.max());
+    }
+
+    /** @return number of recorded latencies */
+    public long count() {
+        long total = 0;
+        for (int index = 0; index < BUCKETS; index++) total += counts.getAcquire(index);
+        return total;
+    }
+
+    /** @return highest recorded latency in nanoseconds, 0 if nothing was recorded */
+    public long max() {
+        return maxValue.getAcquire();
+    }
+
+    /**
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @return latency in nanoseconds that percentile of the recorded latencies does not exceed, 0 if nothing was recorded
+     */
+    public long valueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("percentile must be between 0 and 100");
+        long total = count();
+        if (total == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            seen += counts.getAcquire(index);
+            if (seen >= target) return Math.min(highestValue(index), max());
+        }
+        return max();
+    }
+
+    /** @return e.g. "count=1000 p50=12.3us p99=45.6us p99.9=78.9us max=101.2us" */
+    public String summary() {
+        return "count=" + count()
+                + " p50=" + micros(valueAtPercentile(50))
+                + " p99=" + micros(valueAtPercentile(99))
+                + " p99.9=" + micros(valueAtPercentile(99.9))
+                + " max=" + micros(max());
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowestValue(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    }
+
+    static long highestValue(int index) {
+        return index + 1 < BUCKETS ? lowestValue(index + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1fus", nanos / (double) TimeUnit.MICROSECONDS.toNanos(1));
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.anishshinde.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Common fields of the JDK Flight Recorder events of a player (MessageSendEvent, MessageReceiveEvent).
+ *
+ * Developer Decisions:
+ * - The duration of an event (begin() until complete()) is the time the player was blocked in the operation,
+ *   e.g. waiting for a message, so stalls can be lined up with GC pauses and safepoints in the same recording.
+ * - Events are disabled by default (@Enabled(false) on every event type) and only switched on for a recording,
+ *   e.g. with Recording.enable(MessageReceiveEvent.class) or a .jfc settings file. While disabled, begin() and
+ *   shouldCommit() are intrinsics that cost next to nothing and the fields are never written; the event object does
+ *   not escape, so the JIT can remove its allocation.
+ * - No stack traces: they would cost more than the operation being measured.
+ */
+@Category({"Player Communication"})
+@StackTrace(false)
+public abstract class MessageEvent extends Event {
+
+    @Label("Player")
+    String playerName;
+
+    @Label("Sequence")
+    @Description("Number of the message among the messages this player sent or received, counting from 1")
+    long sequence;
+
+    @Label("Payload Size")
+    @Description("Message length in thread mode, frame length on the wire in process mode")
+    @DataAmount
+    int payloadSize;
+
+    /** Ends the event and commits it with the given fields, if the event is enabled and exceeds its threshold */
+    public void complete(String playerName, long sequence, int payloadSize) {
+        end();
+        if (!shouldCommit()) return;
+        this.playerName = playerName;
+        this.sequence = sequence;
+        this.payloadSize = payloadSize;
+        commit();
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.anishshinde.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** JFR event of a player taking a message from the other player; its duration is the time spent waiting for it */
+@Name("com.anishshinde.MessageReceive")
+@Label("Message Receive")
+@Description("A player received a message; the duration is the time it waited for the message")
+@Enabled(false)
+public class MessageReceiveEvent extends MessageEvent {
+}
@@ -0,0 +1,14 @@
+package com.anishshinde.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** JFR event of a player handing a message to the other player; its duration is the time blocked while sending */
+@Name("com.anishshinde.MessageSend")
+@Label("Message Send")
+@Description("A player sent a message; the duration is the time it was blocked, e.g. by a full mailbox or socket")
+@Enabled(false)
+public class MessageSendEvent extends MessageEvent {
+}
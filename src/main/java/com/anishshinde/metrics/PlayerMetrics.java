@@ -0,0 +1,201 @@
+package com.anishshinde.metrics;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and round-trip latencies of one player, in either mode.
+ *
+ * Responsibilities:
+ * - Counts messages and bytes sent and received, and tracks the queue depth seen on every receive.
+ * - Records round trips (initiator: from sending a message until its response arrives) in a LatencyHistogram.
+ * - Exposes everything as an MXBean and as a one-line summary printed at the end of a game.
+ *
+ * Developer Decisions:
+ * - Metrics are opt-in (--metrics); a player without metrics holds null and skips every call, so the disabled
+ *   path costs one null check per hop.
+ * - Single writer, like LatencyHistogram: only the owning player thread records, so counters use a plain read and
+ *   a release store instead of atomic increments, and recording never allocates.
+ * - Bytes are what the player hands over per hop: the message length in thread mode (passed by reference),
+ *   the frame length on the wire in process mode.
+ * - register() replaces an MBean of the same player name left by an earlier game in this JVM; a game that is
+ *   over unregisters its players' metrics, so long-running JVMs do not collect one MBean per game.
+ * - Many games (GameRunner, Tournament) are reported as one aggregate per role: add() merges the metrics of a
+ *   finished player. Games finish on different threads, so add() is synchronized; an aggregate is only ever
+ *   written through add(), never recorded into directly. The max queue depth becomes the maximum over all merged
+ *   players; the current queue depth of an aggregate stays 0.
+ */
+public final class PlayerMetrics implements PlayerMetricsMXBean {
+
+    private static final String DOMAIN = "com.anishshinde";
+
+    private final String playerName;
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicLong messagesReceived = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+    private final LatencyHistogram roundTrips = new LatencyHistogram();
+
+    public PlayerMetrics(String playerName) {
+        this.playerName = playerName;
+    }
+
+    /** Records a sent message of the given size. Must only be called by the owning player thread */
+    public void recordSent(int bytes) {
+        increment(messagesSent, 1);
+        increment(bytesSent, bytes);
+    }
+
+    /**
+     * Records a received message of the given size. Must only be called by the owning player thread
+     *
+     * @param depth messages still waiting for this player (or still in flight) after this one
+     */
+    public void recordReceived(int bytes, int depth) {
+        increment(messagesReceived, 1);
+        increment(bytesReceived, bytes);
+        queueDepth.setRelease(depth);
+        if (depth > maxQueueDepth.getPlain()) maxQueueDepth.setRelease(depth);
+    }
+
+    /** Records the round trip of one message. Must only be called by the owning player thread */
+    public void recordRoundTrip(long nanos) {
+        roundTrips.record(nanos);
+    }
+
+    /** Merges the metrics of a player whose game is over into this aggregate; safe to call from several threads */
+    public synchronized void add(PlayerMetrics other) {
+        increment(messagesSent, other.getMessagesSent());
+        increment(messagesReceived, other.getMessagesReceived());
+        increment(bytesSent, other.getBytesSent());
+        increment(bytesReceived, other.getBytesReceived());
+        if (other.getMaxQueueDepth() > maxQueueDepth.getPlain()) maxQueueDepth.setRelease(other.getMaxQueueDepth());
+        roundTrips.add(other.roundTrips);
+    }
+
+    /** @return the round-trip histogram, e.g. for custom percentiles */
+    public LatencyHistogram getRoundTripHistogram() {
+        return roundTrips;
+    }
+
+    /**
+     * Registers these metrics with the platform MBeanServer.
+     *
+     * @return this, for chaining after the constructor
+     * @throws IllegalStateException if the MBean cannot be registered
+     */
+    public PlayerMetrics register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = objectName();
+            try {
+                server.unregisterMBean(name);
+            } catch (InstanceNotFoundException ignored) {
+                // first game of this player name in this JVM
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics of " + playerName, e);
+        }
+        return this;
+    }
+
+    /** Removes these metrics from the platform MBeanServer, e.g. when a long-running server finished a game */
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName());
+        } catch (InstanceNotFoundException ignored) {
+            // never registered, or replaced by a later player of the same name
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister metrics of " + playerName, e);
+        }
+    }
+
+    /** @return e.g. "player1: sent=10 (130 bytes) received=10 (140 bytes) maxQueueDepth=1 roundTrip count=10 p50=..." */
+    public String summary() {
+        return playerName + ": sent=" + getMessagesSent() + " (" + getBytesSent() + " bytes)"
+                + " received=" + getMessagesReceived() + " (" + getBytesReceived() + " bytes)"
+                + " maxQueueDepth=" + getMaxQueueDepth()
+                + (roundTrips.count() > 0 ? " roundTrip " + roundTrips.summary() : "");
+    }
+
+    @Override
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    @Override
+    public long getMessagesSent() {
+        return messagesSent.getAcquire();
+    }
+
+    @Override
+    public long getMessagesReceived() {
+        return messagesReceived.getAcquire();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.getAcquire();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.getAcquire();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return (int) queueDepth.getAcquire();
+    }
+
+    @Override
+    public int getMaxQueueDepth() {
+        return (int) maxQueueDepth.getAcquire();
+    }
+
+    @Override
+    public long getRoundTrips() {
+        return roundTrips.count();
+    }
+
+    @Override
+    public double getRoundTripP50Micros() {
+        return micros(roundTrips.valueAtPercentile(50));
+    }
+
+    @Override
+    public double getRoundTripP99Micros() {
+        return micros(roundTrips.valueAtPercentile(99));
+    }
+
+    @Override
+    public double getRoundTripP999Micros() {
+        return micros(roundTrips.valueAtPercentile(99.9));
+    }
+
+    @Override
+    public double getRoundTripMaxMicros() {
+        return micros(roundTrips.max());
+    }
+
+    private ObjectName objectName() throws JMException {
+        return new ObjectName(DOMAIN + ":type=PlayerMetrics,name=" + playerName);
+    }
+
+    private static void increment(AtomicLong counter, long delta) {
+        counter.setRelease(counter.getPlain() + delta);
+    }
+
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+}
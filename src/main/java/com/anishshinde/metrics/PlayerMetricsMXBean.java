@@ -0,0 +1,35 @@
+package com.anishshinde.metrics;
+
+/**
+ * Management interface of PlayerMetrics, registered with the platform MBeanServer as
+ * com.anishshinde:type=PlayerMetrics,name=&lt;player name&gt; (e.g. visible in JConsole or VisualVM).
+ * Latencies are reported in microseconds.
+ */
+public interface PlayerMetricsMXBean {
+
+    String getPlayerName();
+
+    long getMessagesSent();
+
+    long getMessagesReceived();
+
+    long getBytesSent();
+
+    long getBytesReceived();
+
+    /** @return messages waiting for this player (thread mode) or in flight (process mode) after its last receive */
+    int getQueueDepth();
+
+    int getMaxQueueDepth();
+
+    long getRoundTrips();
+
+    double getRoundTripP50Micros();
+
+    double getRoundTripP99Micros();
+
+    double getRoundTripP999Micros();
+
+    double getRoundTripMaxMicros();
+
+}
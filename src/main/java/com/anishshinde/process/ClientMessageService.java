@@ -1,14 +1,29 @@
 package com.anishshinde.process;
 
-import java.io.BufferedReader;
+import com.anishshinde.common.AsyncConsole;
+import com.anishshinde.common.ConsoleMode;
+import com.anishshinde.common.GamePublisher;
+import com.anishshinde.common.MessageBuffer;
+import com.anishshinde.common.MessageFlow;
+import com.anishshinde.common.MessageHeader;
+import com.anishshinde.common.StopCondition;
+import com.anishshinde.journal.MessageJournal;
+import com.anishshinde.metrics.MessageReceiveEvent;
+import com.anishshinde.metrics.MessageSendEvent;
+import com.anishshinde.metrics.PlayerMetrics;
+
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
 
+import static com.anishshinde.common.StopConditions.initiatorMaySend;
 import static com.anishshinde.common.StopConditions.initiatorStopConditionFulfilled;
-import static com.anishshinde.process.ServerMessageService.MESSAGE_DELAY_MS;
+import static com.anishshinde.process.ParticipantNames.CLIENT_NAME;
+import static com.anishshinde.process.PrintCommunicationProcesses.awaitDirectOutput;
 import static com.anishshinde.process.PrintCommunicationProcesses.printInitiatorMessage;
+import static com.anishshinde.process.PrintCommunicationProcesses.printResponderMessage;
 
 /**
  * Handles the messaging logic for the initiator(client)
@@ -19,45 +34,399 @@ import static com.anishshinde.process.PrintCommunicationProcesses.printInitiator
  * - Sends further messages and stops after sending a predefined number of messages.
  *
  * Developer Decisions:
- * - Uses BufferedReader and PrintWriter for simple socket I/O.
+ * - Socket I/O is delegated to a FrameChannel: text lines over a Socket (IoMode.STREAM, the original
+ *   BufferedReader/PrintWriter I/O) or length-prefixed binary frames over a SocketChannel (IoMode.CHANNEL).
  * - The value of MESSAGE_DELAY_MS is decided by the server and is just used by the client and not implemented in
  *   App.java class, as its purpose is to just make sure that the print statements are printed out in the terminal
  *   in the correct order. It in no way affects the logic of the program. This small delay is added because the
  *   execution of threads can be faster than terminal output, causing print statements to appear out of order.
- * - Uses try-with-resources to automatically close streams when done.
+ * - printMessages can be switched off (e.g. for benchmarks), in which case MESSAGE_DELAY_MS is skipped as well.
+ * - With ConsoleMode.ASYNC the client prints its messages and the received responses through an AsyncConsole
+ *   opened for the game, so the whole conversation is printed in order by one process and nobody sleeps.
+ * - The message is kept locally in a MessageBuffer and only converted to and from lines by the MessageCodec of the
+ *   configured WireProtocol, so with DELTA only the appended counter travels over the socket.
+ *   Received frames are decoded straight from their bytes; a String is only produced when printing.
+ * - With a window > 1 (see ProcessOptions) the game is pipelined: the server first grants credits, then the client
+ *   keeps up to min(window, credits) independent messages in flight, each one in its own reusable buffer, and matches
+ *   every response to its request through the sequence numbers of PipelineCodec.
+ * - With games > 1 (see ProcessOptions) that many independent stop-and-wait games share the connection: every
+ *   game has its own message, codec and counters, indexed by its stream id (see MultiplexCodec), and the client
+ *   answers whichever response arrives next. Responses are read on a virtual thread of their own, so the client
+ *   always drains the connection. Nothing is printed, since the lines of the games would interleave;
+ *   messagesSent (writer) and responsesReceived (reader) then count the frames of the whole connection.
+ * - With a writeBatch > 1 (see ProcessOptions) the channel coalesces frames; the client flushes whenever it is about
+ *   to wait for the server (before a read that would block, or when the multiplexing writer has no game due), so
+ *   coalescing saves system calls without holding back a message the server needs.
+ * - With headers switched on (see ProcessOptions) every frame starts with a binary MessageHeader (see HeaderCodec):
+ *   responses are validated by type, sequence and game id without parsing text, and round trips are measured from
+ *   the send timestamp the server echoes.
+ * - With a journal directory set (see ProcessOptions) every message sent and every response received is recorded in a
+ *   MessageJournal of the client, one stream per game; journaling never does blocking I/O in the messaging loop.
+ * - With metrics switched on (see ProcessOptions) frames, wire bytes, messages in flight and the round trip of every
+ *   message (frame written until its response is read) are recorded in PlayerMetrics, registered as an MXBean.
+ * - Every frame written or read emits a JFR event (MessageSendEvent, MessageReceiveEvent) with the time spent in the
+ *   socket call; disabled by default.
+ * - With a StopCondition (see ProcessOptions) the client checks it after every response, passing the lengths of the
+ *   messages sent and received and the round trips timed for it (see StopCondition.samplesRoundTrip()), and ends the game early with MessageCodec.END_OF_GAME_FRAME: a stop-and-wait game
+ *   right away, a pipelined one once the messages in flight are answered. Multiplexed games cannot be stopped early.
+ * - responses() publishes the game to a java.util.concurrent.Flow.Subscriber (see GamePublisher): the client then only
+ *   sends a message the subscriber has asked the response for (see MessageFlow).
+ * - Uses try-with-resources to automatically close the channel when done.
  */
 public class ClientMessageService {
 
+    // handed from the reader to the writer of a multiplexed connection once every game is over
+    private static final int ALL_GAMES_OVER = -1;
+
     private int messagesSent;
     private int responsesReceived;
     private final int maxMessages;
-    private final Socket socket;
+    private final ProcessOptions options;
+    private final FrameChannel channel;
+    private final PlayerMetrics metrics;
+    private final HeaderCodec headers;
+
+    public ClientMessageService(Socket socket, int maxMessages) throws IOException {
+        this(socket, maxMessages, ProcessOptions.defaults());
+    }
+
+    public ClientMessageService(Socket socket, int maxMessages, ProcessOptions options) throws IOException {
+        this(FrameChannel.lines(socket), maxMessages, options);
+    }
 
-    public ClientMessageService(Socket socket, int maxMessages) {
-        this.socket = socket;
+    public ClientMessageService(FrameChannel channel, int maxMessages, ProcessOptions options) {
+        this.channel = channel;
         this.maxMessages = maxMessages;
+        this.options = options;
         messagesSent = 0;
         responsesReceived = 0;
+        metrics = options.isMetrics() ? new PlayerMetrics(CLIENT_NAME).register() : null;
+        if (options.getGames() > 1 && options.getWindow() > 1) {
+            throw new IllegalArgumentException("Multiplexed games are stop-and-wait, window must be 1");
+        }
+        if (options.getGames() > 1 && options.getStopCondition() != null) {
+            throw new IllegalArgumentException("Multiplexed games cannot be stopped early, remove the stop condition");
+        }
+        options.validateHeaders();
+        headers = options.isHeaders() ? new HeaderCodec(MessageHeader.SENDER_INITIATOR, options.getGames()) : null;
+    }
+
+    /** @return metrics recorded by this client, or null if metrics are switched off (see ProcessOptions) */
+    public PlayerMetrics getMetrics() {
+        return metrics;
     }
 
     /** Executes the messaging loop for the client(initiator) */
     public void sendMessage() throws IOException {
-        String message = "message";
-        try(PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
-            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))
-        ) {
+        try {
+            play(null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Client interrupted and terminating gracefully.");
+        }
+    }
+
+    /**
+     * Adapts this client to java.util.concurrent.Flow: the game is played once a subscriber subscribes, and every
+     * response is published to it. A message is only sent once the subscriber has asked for its response, so a slow
+     * subscriber throttles the game instead of filling a queue; cancelling closes the connection.
+     *
+     * @return a publisher of the responses of this client's game, for a single subscriber
+     * @throws IllegalArgumentException if the connection multiplexes several games
+     */
+    public Flow.Publisher<String> responses() {
+        if (options.getGames() > 1) throw new IllegalArgumentException("Only a single game can be published");
+        return new GamePublisher(CLIENT_NAME + "-publisher", this::play);
+    }
+
+    /** @param flow subscription the responses are published to, or null */
+    private void play(MessageFlow flow) throws IOException, InterruptedException {
+        try(FrameChannel channel = this.channel;
+            AsyncConsole console = openConsole();
+            MessageJournal journal = options.openJournal(CLIENT_NAME)) {
+            if (options.getGames() > 1) {
+                sendMultiplexed(channel, options.getGames(), journal);
+                return;
+            }
+            MessageJournal.Stream journaled = journal != null ? journal.stream(CLIENT_NAME, 0) : null;
+            if (options.getWindow() > 1) {
+                sendPipelined(channel, console, journaled, flow);
+                return;
+            }
+            MessageBuffer message = new MessageBuffer(MessageBuffer.expectedGameLength(maxMessages)).append("message");
+            MessageBuffer frame = new MessageBuffer();
+            MessageCodec codec = options.getProtocol().newCodec();
+            StopCondition.Check check = startCheck();
+            long bytes = 0;
             while (!initiatorStopConditionFulfilled(responsesReceived, messagesSent, maxMessages)) {
-                message += " " + messagesSent;
-                out.println(message);
-                printInitiatorMessage(message);
+                if (flow != null && !flow.awaitDemand()) return;
+                message.appendCounter(messagesSent);
+                if (check != null) bytes += message.length();
+                if (journaled != null) journaled.sent(message);
+                codec.encode(message, frame);
+                boolean timed = metrics != null || StopCondition.samplesRoundTrip(check, messagesSent);
+                long sentAt = timed ? System.nanoTime() : 0;
+                writeFrame(channel, frame);
+                if (options.isPrintMessages()) printInitiatorMessage(console, messagesSent, message);
                 messagesSent++;
-                message = in.readLine();
+                CharSequence response = readFrame(channel, frame);
+                if (timed) recordRoundTrip(check, System.nanoTime() - sentTime(sentAt));
+                codec.decode(response, message);
+                if (journaled != null) journaled.received(message);
                 responsesReceived++;
-                Thread.sleep(MESSAGE_DELAY_MS);
+                if (flow != null) flow.emit(message);
+                if (console != null) printResponderMessage(console, responsesReceived, message);
+                awaitDirectOutput(options);
+                if (check != null) bytes += message.length();
+                if (check != null && !initiatorStopConditionFulfilled(responsesReceived, messagesSent, maxMessages)
+                        && check.isMet(responsesReceived, bytes)) {
+                    writeEndOfGame(channel, frame);
+                    return;
+                }
             }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            System.out.println("Client interrupted and terminating gracefully.");
+        }
+    }
+
+    /** Pipelined messaging loop: sends new messages as long as credits are left, then waits for the oldest response */
+    private void sendPipelined(FrameChannel channel, AsyncConsole console, MessageJournal.Stream journaled, MessageFlow flow)
+            throws IOException, InterruptedException {
+        MessageBuffer frame = new MessageBuffer();
+        PipelineCodec codec = new PipelineCodec(options.getProtocol());
+        int window = Math.min(options.getWindow(), codec.decodeCredit(readCredit(channel, frame)));
+
+        MessageBuffer[] inFlight = new MessageBuffer[window];
+        long[] sentAt = new long[window];
+        for (int slot = 0; slot < window; slot++) inFlight[slot] = new MessageBuffer();
+        StopCondition.Check check = startCheck();
+        long bytes = 0;
+        boolean stopping = false;
+
+        while (!initiatorStopConditionFulfilled(responsesReceived, messagesSent, maxMessages)
+                && !(stopping && messagesSent == responsesReceived)) {
+            while (!stopping && initiatorMaySend(messagesSent, responsesReceived, window, maxMessages)
+                    && (flow == null || flow.hasDemand(messagesSent - responsesReceived))) {
+                MessageBuffer message = inFlight[messagesSent % window].clear().append("message").appendCounter(messagesSent);
+                if (check != null) bytes += message.length();
+                if (journaled != null) journaled.sent(message);
+                codec.encodeRequest(message, frame);
+                if (metrics != null || StopCondition.samplesRoundTrip(check, messagesSent)) {
+                    sentAt[messagesSent % window] = System.nanoTime();
+                }
+                writeFrame(channel, frame);
+                if (options.isPrintMessages()) printInitiatorMessage(console, messagesSent, message);
+                messagesSent++;
+            }
+            if (messagesSent == responsesReceived) {
+                // only reached with a flow: nothing in flight and no demand, so wait for the subscriber
+                if (!flow.awaitDemand()) return;
+                continue;
+            }
+            CharSequence received = readFrame(channel, frame);
+            if (metrics != null || StopCondition.samplesRoundTrip(check, responsesReceived)) {
+                recordRoundTrip(check, System.nanoTime() - sentTime(sentAt[responsesReceived % window]));
+            }
+            MessageBuffer response = inFlight[responsesReceived % window];
+            codec.decodeResponse(received, response);
+            if (journaled != null) journaled.received(response);
+            responsesReceived++;
+            if (flow != null) flow.emit(response);
+            if (console != null) printResponderMessage(console, responsesReceived, response);
+            awaitDirectOutput(options);
+            if (check != null) {
+                bytes += response.length();
+                stopping = stopping || check.isMet(responsesReceived, bytes);
+            }
+        }
+        // with every response back, a game that stopped early still has to tell the server
+        if (stopping && responsesReceived < maxMessages) writeEndOfGame(channel, frame);
+    }
+
+    /**
+     * Multiplexed messaging loop: starts every game, then answers each response with the next message of its game
+     * until all games are over. Responses are read on a separate virtual thread, which hands every game that is
+     * due for its next message to this thread; otherwise both processes could block writing once the frames in
+     * flight exceed the socket buffers.
+     *
+     * @throws IOException also if a response arrives for a game that has no message in flight
+     */
+    private void sendMultiplexed(FrameChannel channel, int games, MessageJournal journal) throws IOException, InterruptedException {
+        MessageBuffer frame = new MessageBuffer();
+        MessageBuffer payload = new MessageBuffer();
+        MultiplexCodec multiplexCodec = new MultiplexCodec(games);
+        MultiplexedGame[] states = new MultiplexedGame[games];
+        for (int game = 0; game < games; game++) {
+            states[game] = new MultiplexedGame(maxMessages, options.getProtocol().newCodec(),
+                    journal != null ? journal.stream(CLIENT_NAME, game) : null);
+        }
+
+        BlockingQueue<Integer> due = new LinkedBlockingQueue<>();
+        IOException[] readFailure = new IOException[1];
+        Thread reader = Thread.ofVirtual().name(CLIENT_NAME + "-reader").start(() -> {
+            try {
+                receiveMultiplexed(channel, states, new MultiplexCodec(games), due);
+            } catch (IOException e) {
+                readFailure[0] = e;
+            } finally {
+                due.add(ALL_GAMES_OVER);
+            }
+        });
+
+        for (int game = 0; game < games; game++) sendNext(channel, game, states[game], multiplexCodec, payload, frame);
+        int game;
+        while ((game = nextDueGame(channel, due)) != ALL_GAMES_OVER) sendNext(channel, game, states[game], multiplexCodec, payload, frame);
+        reader.join();
+        if (readFailure[0] != null) throw readFailure[0];
+    }
+
+    /** Reads the responses of a multiplexed connection and queues every game that is due for its next message */
+    private void receiveMultiplexed(FrameChannel channel, MultiplexedGame[] states, MultiplexCodec multiplexCodec,
+                                    BlockingQueue<Integer> due) throws IOException {
+        MessageBuffer frame = new MessageBuffer();
+        MessageBuffer payload = new MessageBuffer();
+        int gamesOver = 0;
+        while (gamesOver < states.length) {
+            int game = multiplexCodec.decode(readFrame(channel, frame, states.length - gamesOver - 1), payload);
+            if (headers != null && headers.receivedGameId() != game) {
+                throw new IOException("Header of game " + headers.receivedGameId() + " on a frame of game " + game);
+            }
+            MultiplexedGame state = states[game];
+            if (state.responsesReceived == state.messagesSent) {
+                throw new IOException("Unexpected response in game " + game + ", it has no message in flight");
+            }
+            if (metrics != null) metrics.recordRoundTrip(System.nanoTime() - sentTime(state.sentAt));
+            state.codec.decode(payload, state.message);
+            if (state.journaled != null) state.journaled.received(state.message);
+            responsesReceived++;
+            state.responsesReceived++;
+            if (initiatorStopConditionFulfilled(state.responsesReceived, state.messagesSent, maxMessages)) {
+                gamesOver++;
+            } else {
+                due.add(game);
+            }
+        }
+    }
+
+    /** @return the next game that is due, sending the coalesced messages first if the writer has to wait for one */
+    private static int nextDueGame(FrameChannel channel, BlockingQueue<Integer> due) throws IOException, InterruptedException {
+        Integer game = due.poll();
+        if (game != null) return game;
+        channel.flush();
+        return due.take();
+    }
+
+    /** Appends the next counter to the message of a multiplexed game and sends it, tagged with the game's stream id */
+    private void sendNext(FrameChannel channel, int game, MultiplexedGame state, MultiplexCodec multiplexCodec,
+                          MessageBuffer payload, MessageBuffer frame) throws IOException {
+        state.message.appendCounter(state.messagesSent);
+        if (state.journaled != null) state.journaled.sent(state.message);
+        state.codec.encode(state.message, payload);
+        multiplexCodec.encode(game, payload, frame);
+        if (metrics != null) state.sentAt = System.nanoTime();
+        // count before writing, since the response may be read before write returns
+        state.messagesSent = state.messagesSent + 1;
+        writeFrame(channel, game, frame);
+        messagesSent++;
+    }
+
+    /** Tells the server that the game ends before maxMessages, since the StopCondition is met */
+    private void writeEndOfGame(FrameChannel channel, MessageBuffer frame) throws IOException {
+        writeFrame(channel, frame.clear().append(MessageCodec.END_OF_GAME_FRAME));
+        channel.flush();
+    }
+
+    /** Hands a timed round trip to the metrics and the check, whichever of them is there */
+    private void recordRoundTrip(StopCondition.Check check, long nanos) {
+        if (metrics != null) metrics.recordRoundTrip(nanos);
+        if (check != null) check.roundTrip(nanos);
+    }
+
+    /** @return a check of the StopCondition for a game starting now, or null if there is none */
+    private StopCondition.Check startCheck() {
+        StopCondition stopCondition = options.getStopCondition();
+        return stopCondition != null ? stopCondition.start() : null;
+    }
+
+    /** Writes the frame of the next message, recording it in the metrics and as a JFR event */
+    private void writeFrame(FrameChannel channel, MessageBuffer frame) throws IOException {
+        writeFrame(channel, 0, frame);
+    }
+
+    /** @param game stream id of a multiplexed game (0 otherwise), stamped into the header if headers are on */
+    private void writeFrame(FrameChannel channel, int game, MessageBuffer frame) throws IOException {
+        MessageSendEvent event = new MessageSendEvent();
+        event.begin();
+        int wireLength = frame.length();
+        if (headers != null) {
+            channel.writeFrame(headers.encode(MessageHeader.TYPE_MESSAGE, game, System.nanoTime(), frame), frame);
+            wireLength += MessageHeader.LENGTH;
+        } else {
+            channel.writeFrame(frame);
+        }
+        event.complete(CLIENT_NAME, messagesSent + 1, wireLength);
+        if (metrics != null) metrics.recordSent(wireLength);
+    }
+
+    /**
+     * Reads the frame of the next response, recording it in the metrics and as a JFR event. Coalesced messages are
+     * sent first unless the response is already buffered, since the server may be waiting for them
+     */
+    private CharSequence readFrame(FrameChannel channel, MessageBuffer frame) throws IOException {
+        if (!channel.hasBufferedFrame()) channel.flush();
+        return readFrame(channel, frame, messagesSent - responsesReceived - 1);
+    }
+
+    /**
+     * @param inFlight messages still in flight after this response, recorded as the queue depth
+     * @return the payload of the response: frame itself, or a view behind its validated header if headers are on
+     */
+    private CharSequence readFrame(FrameChannel channel, MessageBuffer frame, int inFlight) throws IOException {
+        MessageReceiveEvent event = new MessageReceiveEvent();
+        event.begin();
+        channel.readFrame(frame);
+        event.complete(CLIENT_NAME, responsesReceived + 1, frame.length());
+        if (metrics != null) metrics.recordReceived(frame.length(), inFlight);
+        return headers != null ? headers.decode(MessageHeader.TYPE_RESPONSE, frame) : frame;
+    }
+
+    /** @return the payload of the credit frame the server grants a pipelined game */
+    private CharSequence readCredit(FrameChannel channel, MessageBuffer frame) throws IOException {
+        channel.readFrame(frame);
+        return headers != null ? headers.decode(MessageHeader.TYPE_CREDIT, frame) : frame;
+    }
+
+    /**
+     * @param sentAt when this client sent the message that was just answered
+     * @return the send timestamp echoed in the header of the response if headers are on, otherwise sentAt
+     */
+    private long sentTime(long sentAt) {
+        return headers != null ? headers.receivedSendTimestamp() : sentAt;
+    }
+
+    /** @return a console printing this game if ConsoleMode.ASYNC is selected, otherwise null */
+    private AsyncConsole openConsole() {
+        return options.isPrintMessages() && options.getConsoleMode() == ConsoleMode.ASYNC
+                ? AsyncConsole.start(System.out)
+                : null;
+    }
+
+    /**
+     * State of one game of a multiplexed connection, replacing the counters of the single game. Only one side
+     * touches it at a time: the writer until the frame is sent, the reader until the game is queued as due
+     */
+    private static final class MultiplexedGame {
+
+        private final MessageBuffer message;
+        private final MessageCodec codec;
+        private final MessageJournal.Stream journaled;
+        // written by the writer after everything else, so a reader that sees the new count sees the whole message
+        private volatile int messagesSent;
+        private int responsesReceived;
+        private long sentAt;
+
+        private MultiplexedGame(int maxMessages, MessageCodec codec, MessageJournal.Stream journaled) {
+            message = new MessageBuffer(MessageBuffer.expectedGameLength(maxMessages)).append("message");
+            this.codec = codec;
+            this.journaled = journaled;
         }
     }
 
@@ -0,0 +1,80 @@
+package com.anishshinde.process;
+
+import com.anishshinde.common.MessageBuffer;
+
+import java.io.IOException;
+
+/**
+ * Codec of WireProtocol.DELTA: a frame carries only the text appended to the message since the last frame
+ * exchanged in either direction.
+ *
+ * Frame layout (text, so it also fits the line-based socket I/O):
+ *   sequence[#checksum]:suffix
+ * e.g. "7: 3" or, every CHECKSUM_INTERVAL frames, "16#-1502398720: 8".
+ *
+ * Developer Decisions:
+ * - Each direction numbers its frames from 1; a frame that is not the next expected one is rejected, since
+ *   a lost or reordered delta would silently corrupt the rebuilt message.
+ * - The checksum is MessageBuffer.contentHash() of the sender's full message after the append. Both sides
+ *   maintain it incrementally, so validating costs nothing proportional to the message length.
+ * - The suffix comes last, so it may contain any character including the header separators.
+ */
+class DeltaMessageCodec implements MessageCodec {
+
+    static final int CHECKSUM_INTERVAL = 16;
+
+    private int syncedLength;
+    private long sentSequence;
+    private long receivedSequence;
+
+    @Override
+    public void encode(MessageBuffer message, MessageBuffer frame) {
+        sentSequence++;
+        frame.clear().appendNumber(sentSequence);
+        if (sentSequence % CHECKSUM_INTERVAL == 0) {
+            frame.append("#").appendNumber(message.contentHash());
+        }
+        frame.append(":").append(message, syncedLength, message.length());
+        syncedLength = message.length();
+    }
+
+    @Override
+    public void decode(CharSequence frame, MessageBuffer message) throws IOException {
+        int separator = indexOf(frame, ':', frame.length());
+        if (separator < 0) throw new IOException("Malformed delta frame: missing ':' in \"" + frame + "\"");
+        int checksumStart = indexOf(frame, '#', separator);
+
+        long sequence = parseNumber(frame, 0, checksumStart >= 0 ? checksumStart : separator);
+        if (sequence != receivedSequence + 1) {
+            throw new IOException("Out of sequence delta frame: expected " + (receivedSequence + 1) + ", got " + sequence);
+        }
+
+        message.append(frame, separator + 1, frame.length());
+        if (checksumStart >= 0 && parseNumber(frame, checksumStart + 1, separator) != message.contentHash()) {
+            throw new IOException("Checksum mismatch after delta frame " + sequence);
+        }
+        receivedSequence = sequence;
+        syncedLength = message.length();
+    }
+
+    static int indexOf(CharSequence text, char c, int end) {
+        for (int i = 0; i < end; i++) {
+            if (text.charAt(i) == c) return i;
+        }
+        return -1;
+    }
+
+    static long parseNumber(CharSequence text, int start, int end) throws IOException {
+        boolean negative = start < end && text.charAt(start) == '-';
+        int position = negative ? start + 1 : start;
+        if (position >= end) throw new IOException("Malformed frame: missing number in \"" + text + "\"");
+        long value = 0;
+        for (; position < end; position++) {
+            char c = text.charAt(position);
+            if (c < '0' || c > '9') throw new IOException("Malformed frame: invalid number in \"" + text + "\"");
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+}
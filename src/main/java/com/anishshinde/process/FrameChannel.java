@@ -0,0 +1,123 @@
+package com.anishshinde.process;
+
+import com.anishshinde.common.MessageBuffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * A bidirectional connection between the two player processes that exchanges whole frames
+ * (the output of a MessageCodec) instead of bytes.
+ *
+ * Responsibilities:
+ * - Writes one frame and reads one frame at a time, hiding how frames are delimited on the wire.
+ *
+ * Developer Decisions:
+ * - Frames are read into and written from reusable MessageBuffers, so an implementation that works on raw bytes
+ *   never has to decode them to a String; only printing (if switched on) produces text.
+ * - The implementations are package-private and created through the static factory methods, one per IoMode
+ *   (for Transport.TCP) or Transport.
+ * - Socket channels can coalesce writes: up to writeBatch frames are collected and sent with one system call.
+ *   A player that is about to wait for the peer must flush() first (unless hasBufferedFrame()), otherwise both
+ *   players could wait for frames that are still in a buffer. With a writeBatch of 1 (default) every frame is
+ *   sent right away, like the original auto-flushing PrintWriter.
+ * - Closing the channel sends pending frames and closes the underlying connection.
+ */
+public interface FrameChannel extends Closeable {
+
+    /**
+     * Writes frame as one frame. It is sent right away, or once writeBatch frames are pending (see the factories),
+     * or by flush() or close(), whichever comes first.
+     */
+    void writeFrame(MessageBuffer frame) throws IOException;
+
+    /**
+     * Writes a binary header followed by payload as one frame (a gathering write): both are copied straight into
+     * the send path of the channel, instead of being joined in a frame buffer first. Sent like writeFrame(frame).
+     * Only channels with length-prefixed binary frames (IoMode.CHANNEL, Transport.SHARED_MEMORY) support it.
+     *
+     * @param header the header bytes from position to limit, consumed by the write
+     */
+    default void writeFrame(ByteBuffer header, MessageBuffer payload) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot carry binary headers");
+    }
+
+    /** Sends every frame written since the last flush; does nothing if there is none. Channels without buffering send every frame right away */
+    default void flush() throws IOException {
+    }
+
+    /**
+     * @return true if a whole frame has already been received, so readFrame() returns without waiting for the peer.
+     *         A player only needs to flush() before a read that may wait
+     */
+    default boolean hasBufferedFrame() {
+        return false;
+    }
+
+    /**
+     * Reads the next frame.
+     *
+     * @param frame cleared and filled with the received frame
+     * @throws java.io.EOFException if the peer closed the connection
+     */
+    void readFrame(MessageBuffer frame) throws IOException;
+
+    /** @return a channel exchanging newline-terminated text lines over the socket (IoMode.STREAM), sending every frame */
+    static FrameChannel lines(Socket socket) throws IOException {
+        return lines(socket, 1);
+    }
+
+    /**
+     * @param writeBatch frames written before they are sent together, 1 sends every frame right away
+     * @return a channel exchanging newline-terminated text lines over the socket (IoMode.STREAM)
+     */
+    static FrameChannel lines(Socket socket, int writeBatch) throws IOException {
+        return new LineFrameChannel(socket.getInputStream(), socket.getOutputStream(), socket, writeBatch);
+    }
+
+    /** @return a channel exchanging newline-terminated text lines over the blocking socket channel (IoMode.STREAM) */
+    static FrameChannel lines(SocketChannel channel) {
+        return lines(channel, 1);
+    }
+
+    /**
+     * @param writeBatch frames written before they are sent together, 1 sends every frame right away
+     * @return a channel exchanging newline-terminated text lines over the blocking socket channel (IoMode.STREAM)
+     */
+    static FrameChannel lines(SocketChannel channel, int writeBatch) {
+        return new LineFrameChannel(Channels.newInputStream(channel), Channels.newOutputStream(channel), channel, writeBatch);
+    }
+
+    /** @return a channel exchanging length-prefixed binary frames over the blocking socket channel (IoMode.CHANNEL) */
+    static FrameChannel lengthPrefixed(SocketChannel channel) {
+        return lengthPrefixed(channel, 1);
+    }
+
+    /**
+     * @param writeBatch frames written before they are sent together, 1 sends every frame right away
+     * @return a channel exchanging length-prefixed binary frames over the blocking socket channel (IoMode.CHANNEL)
+     */
+    static FrameChannel lengthPrefixed(SocketChannel channel, int writeBatch) {
+        return new LengthPrefixedFrameChannel(channel, writeBatch);
+    }
+
+    /**
+     * Creates the shared memory file and returns the responder's end of it (Transport.SHARED_MEMORY).
+     *
+     * @param capacity bytes per direction, rounded up to a power of two
+     */
+    static FrameChannel sharedMemoryServer(Path file, int capacity) throws IOException {
+        return SharedMemoryFrameChannel.create(file, capacity);
+    }
+
+    /** @return the initiator's end of the shared memory file, waiting until the responder has created it */
+    static FrameChannel sharedMemoryClient(Path file) throws IOException {
+        return SharedMemoryFrameChannel.attach(file);
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.anishshinde.process;
+
+import com.anishshinde.common.MessageBuffer;
+
+/**
+ * Codec of WireProtocol.FULL: a frame is the whole message, exactly as the original line protocol sent it.
+ */
+class FullMessageCodec implements MessageCodec {
+
+    @Override
+    public void encode(MessageBuffer message, MessageBuffer frame) {
+        frame.clear().append(message, 0, message.length());
+    }
+
+    @Override
+    public void decode(CharSequence frame, MessageBuffer message) {
+        message.clear().append(frame);
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.anishshinde.process;
+
+import com.anishshinde.common.MessageBuffer;
+import com.anishshinde.common.MessageHeader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static com.anishshinde.common.MessageHeader.LENGTH;
+import static com.anishshinde.common.MessageHeader.SCHEMA_VERSION;
+
+/**
+ * Frames with a binary MessageHeader in front of the payload (ProcessOptions.withHeaders()), one instance per
+ * connection.
+ *
+ * Frame layout (binary, so it needs length-prefixed frames: IoMode.CHANNEL or Transport.SHARED_MEMORY):
+ *   header (MessageHeader.LENGTH bytes) payload (the frame of the MessageCodec, PipelineCodec or MultiplexCodec)
+ *
+ * Process mode only: in thread mode the players hand MessageBuffers to each other by reference, there are no frames
+ * to put a header in front of, so sequence and round trips come from the counters and sentAt of the players.
+ *
+ * Responsibilities:
+ * - Stamps every outgoing frame with type, sender, game id, the next sequence number of its direction, the payload
+ *   length and a send timestamp.
+ * - Validates every incoming frame against what the connection expects (type, sender, schema version, game id,
+ *   sequence without gaps, payload length), so a broken stream fails fast without parsing any text.
+ *
+ * Developer Decisions:
+ * - The header is written and read through one MessageHeader flyweight per direction, so stamping and validating
+ *   create no objects. An outgoing frame is not joined in a buffer: encode() only stamps the header, which is sent
+ *   with the payload by FrameChannel.writeFrame(header, payload), a gathering write straight into the send buffer
+ *   or ring of the channel. An incoming frame is not copied either: decode() wraps the header where the frame was read and returns the payload as a MessageBuffer.Slice view,
+ *   which leaves the text codecs unaware of headers.
+ * - The game id and send timestamp of the frame decoded last are kept apart from the frame, since the frame buffer
+ *   is usually reused for the answer before the answer is stamped.
+ * - The sending side (encode) and the receiving side (decode) share no state, so the writer and the reader thread
+ *   of a multiplexed connection can each use their own side.
+ * - The initiator stamps the time it sends a message; the responder echoes the timestamp of the message it
+ *   answers, so the initiator measures round trips from the response alone, with a single clock.
+ */
+final class HeaderCodec {
+
+    private final byte sender;
+    private final byte peer;
+    private final int games;
+
+    // sending side, used by the writing thread only
+    private final ByteBuffer outHeaderBytes = ByteBuffer.allocate(LENGTH);
+    private final MessageHeader outHeader = new MessageHeader().wrap(outHeaderBytes, 0);
+    private int framesSent;
+
+    // receiving side, used by the reading thread only
+    private final MessageHeader inHeader = new MessageHeader();
+    private final MessageBuffer.Slice inPayload = new MessageBuffer.Slice();
+    private int framesReceived;
+    private int receivedGameId;
+    private long receivedSendTimestamp;
+
+    /**
+     * @param sender MessageHeader.SENDER_INITIATOR or SENDER_RESPONDER, this side of the connection
+     * @param games games on the connection, game ids must be below
+     */
+    HeaderCodec(byte sender, int games) {
+        this.sender = sender;
+        this.peer = sender == MessageHeader.SENDER_INITIATOR ? MessageHeader.SENDER_RESPONDER : MessageHeader.SENDER_INITIATOR;
+        this.games = games;
+    }
+
+    /**
+     * @return the stamped header of payload, to send with FrameChannel.writeFrame(header, payload); reused by the
+     * next call
+     */
+    ByteBuffer encode(byte type, int gameId, long sendTimestamp, MessageBuffer payload) {
+        outHeader.type(type).sender(sender).version(SCHEMA_VERSION).gameId(gameId).sequence(++framesSent)
+                .payloadLength(payload.length()).sendTimestamp(sendTimestamp);
+        return outHeaderBytes.clear();
+    }
+
+    /** @return the game id of the frame decoded last */
+    int receivedGameId() {
+        return receivedGameId;
+    }
+
+    /** @return the send timestamp of the frame decoded last */
+    long receivedSendTimestamp() {
+        return receivedSendTimestamp;
+    }
+
+    /**
+     * Validates the header of a received frame in place.
+     *
+     * @param expectedType type the frame must have, e.g. MessageHeader.TYPE_RESPONSE
+     * @param frame the frame as read from the channel, header included
+     * @return view of the payload of frame, valid until frame changes or the next decode()
+     * @throws IOException if the header does not match the expectations of this connection
+     */
+    CharSequence decode(byte expectedType, MessageBuffer frame) throws IOException {
+        if (frame.length() < LENGTH) {
+            throw new IOException("Frame of " + frame.length() + " bytes is shorter than its header");
+        }
+        inHeader.wrap(frame.asByteBuffer(), 0);
+        if (inHeader.version() != SCHEMA_VERSION || inHeader.type() != expectedType || inHeader.sender() != peer
+                || inHeader.gameId() < 0 || inHeader.gameId() >= games
+                || inHeader.sequence() != framesReceived + 1
+                || inHeader.payloadLength() != frame.length() - LENGTH) {
+            throw new IOException("Unexpected header " + inHeader + ", expected type " + expectedType
+                    + " from sender " + peer + " with sequence " + (framesReceived + 1));
+        }
+        framesReceived++;
+        receivedGameId = inHeader.gameId();
+        receivedSendTimestamp = inHeader.sendTimestamp();
+        return inPayload.wrap(frame, LENGTH, frame.length());
+    }
+
+}
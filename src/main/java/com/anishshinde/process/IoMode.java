@@ -0,0 +1,14 @@
+package com.anishshinde.process;
+
+/**
+ * Selects the socket I/O used between PlayerClient and PlayerServer. Both processes must use the same mode.
+ */
+public enum IoMode {
+
+    /** java.net.Socket with BufferedReader/PrintWriter, one frame per text line (original behaviour) */
+    STREAM,
+
+    /** java.nio.channels.SocketChannel with reusable direct ByteBuffers and length-prefixed binary frames */
+    CHANNEL
+
+}
@@ -0,0 +1,76 @@
+package com.anishshinde.process;
+
+import com.anishshinde.common.MessageBuffer;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+
+/**
+ * FrameChannel of IoMode.STREAM: one frame per text line, using BufferedReader and PrintWriter like the original
+ * socket I/O of the message services.
+ *
+ * Developer Decisions:
+ * - Works on any pair of streams (a Socket, or a SocketChannel without a Socket such as a Unix domain socket);
+ *   connection is closed when the channel is closed.
+ * - The PrintWriter does not flush by itself; the channel flushes it once writeBatch lines are pending, so with a
+ *   writeBatch of 1 every line is sent at once, exactly like the original auto-flushing PrintWriter.
+ */
+class LineFrameChannel implements FrameChannel {
+
+    private final Closeable connection;
+    private final BufferedReader in;
+    private final PrintWriter out;
+    private final int writeBatch;
+    private int pendingFrames;
+
+    LineFrameChannel(InputStream inputStream, OutputStream outputStream, Closeable connection, int writeBatch) {
+        if (writeBatch <= 0) throw new IllegalArgumentException("writeBatch must be greater than 0");
+        this.connection = connection;
+        this.writeBatch = writeBatch;
+        in = new BufferedReader(new InputStreamReader(inputStream));
+        out = new PrintWriter(outputStream, false);
+    }
+
+    @Override
+    public void writeFrame(MessageBuffer frame) {
+        out.println(frame);
+        if (++pendingFrames >= writeBatch) flush();
+    }
+
+    @Override
+    public void flush() {
+        if (pendingFrames == 0) return;
+        out.flush();
+        pendingFrames = 0;
+    }
+
+    @Override
+    public boolean hasBufferedFrame() {
+        try {
+            // the peer always writes whole lines, so the rest of a partly buffered line is on its way
+            return in.ready();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void readFrame(MessageBuffer frame) throws IOException {
+        String line = in.readLine();
+        if (line == null) throw new EOFException("Connection closed by the other player");
+        frame.clear().append(line);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        connection.close();
+    }
+
+}
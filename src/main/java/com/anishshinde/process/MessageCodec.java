@@ -0,0 +1,44 @@
+package com.anishshinde.process;
+
+import com.anishshinde.common.MessageBuffer;
+
+import java.io.IOException;
+
+/**
+ * Converts between the accumulated message of one side of a connection and the frames sent over the wire.
+ *
+ * Developer Decisions:
+ * - A codec keeps per-connection state (e.g. what the peer already knows), so each connection (or each game of a
+ *   multiplexed connection, see MultiplexCodec) needs its own instance, created by WireProtocol.newCodec().
+ * - Frames are written into a reusable MessageBuffer, so encoding allocates nothing per message.
+ * - END_OF_GAME_FRAME, sent by a client whose StopCondition is met, is the same for every protocol and cannot be
+ *   mistaken for a message: full messages start with "message", delta and pipeline frames with a digit or '+'.
+ */
+interface MessageCodec {
+
+    /** Frame telling the server that the client has ended the game before maxMessages */
+    String END_OF_GAME_FRAME = "-";
+
+    /** @return true if frame is END_OF_GAME_FRAME */
+    static boolean isEndOfGame(CharSequence frame) {
+        return frame.length() == 1 && frame.charAt(0) == '-';
+    }
+
+    /**
+     * Encodes the current message for sending.
+     *
+     * @param message the full message as known by this side
+     * @param frame cleared and filled with the frame to send
+     */
+    void encode(MessageBuffer message, MessageBuffer frame);
+
+    /**
+     * Applies a received frame to the local copy of the message.
+     *
+     * @param frame the received frame
+     * @param message the local copy of the message, updated to the sender's full message
+     * @throws IOException if the frame is malformed, out of sequence or fails validation
+     */
+    void decode(CharSequence frame, MessageBuffer message) throws IOException;
+
+}
@@ -0,0 +1,54 @@
+package com.anishshinde.process;
+
+import com.anishshinde.common.MessageBuffer;
+
+import java.io.IOException;
+
+import static com.anishshinde.process.DeltaMessageCodec.indexOf;
+import static com.anishshinde.process.DeltaMessageCodec.parseNumber;
+
+/**
+ * Frames of a multiplexed connection (games > 1), where many independent games share one connection.
+ *
+ * Frame layout (text, so it also fits the line-based socket I/O):
+ *   stream:payload       payload is the frame of the game's own MessageCodec, e.g. "17:message 0 1" (FULL)
+ *                        or "17:3: 2" (DELTA)
+ *
+ * Developer Decisions:
+ * - The stream id is the number of the game on this connection, from 0 to games - 1; both sides create the state
+ *   of every game up front, so there is no handshake per game. A frame for any other stream is rejected with an
+ *   IOException.
+ * - Frames of different games may interleave freely; within a game the frames keep the order of its codec.
+ * - The payload is copied out of the frame before the game's codec decodes it, so the codecs stay unaware of
+ *   multiplexing.
+ */
+class MultiplexCodec {
+
+    private final int streams;
+
+    MultiplexCodec(int streams) {
+        this.streams = streams;
+    }
+
+    /** Fills frame with payload, tagged with its stream */
+    void encode(int stream, MessageBuffer payload, MessageBuffer frame) {
+        frame.clear().appendNumber(stream).append(":").append(payload, 0, payload.length());
+    }
+
+    /**
+     * Splits a received frame into its stream and payload.
+     *
+     * @param payload cleared and filled with the payload of the frame
+     * @return stream the frame belongs to
+     * @throws IOException if the frame is malformed or names an unknown stream
+     */
+    int decode(CharSequence frame, MessageBuffer payload) throws IOException {
+        int separator = indexOf(frame, ':', frame.length());
+        if (separator < 0) throw new IOException("Malformed multiplexed frame: missing ':' in \"" + frame + "\"");
+        long stream = parseNumber(frame, 0, separator);
+        if (stream >= streams) throw new IOException("Unknown stream " + stream + ", expected fewer than " + streams);
+        payload.clear().append(frame, separator + 1, frame.length());
+        return (int) stream;
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.anishshinde.process;
+
+import com.anishshinde.common.MessageBuffer;
+
+import java.io.IOException;
+
+import static com.anishshinde.process.DeltaMessageCodec.indexOf;
+import static com.anishshinde.process.DeltaMessageCodec.parseNumber;
+
+/**
+ * Frames of a pipelined game (window > 1), where every message is independent and several are in flight at once.
+ *
+ * Frame layout (text, so it also fits the line-based socket I/O):
+ *   +credits             first frame of the server: number of messages the client may send before the first response
+ *   sequence:message     request, e.g. "3:message 3"
+ *   sequence:response    response with WireProtocol.FULL, e.g. "3:message 3 4"
+ *   sequence:suffix      response with WireProtocol.DELTA, only the text appended to the request, e.g. "3: 4"
+ *
+ * Developer Decisions:
+ * - Both directions number their frames from 0, and requests are answered in order, so the sequence number of a
+ *   frame must be exactly the next expected one; anything else is rejected with an IOException.
+ * - A DELTA response needs no checksum: it is applied to the request with the same sequence number, which the
+ *   client still holds, so an error cannot accumulate over the game.
+ * - One instance per connection, like MessageCodec.
+ */
+class PipelineCodec {
+
+    private final WireProtocol protocol;
+    private long sentSequence;
+    private long receivedSequence;
+
+    PipelineCodec(WireProtocol protocol) {
+        this.protocol = protocol;
+    }
+
+    /** Fills frame with the credit grant of the server */
+    void encodeCredit(int credits, MessageBuffer frame) {
+        frame.clear().append("+").appendNumber(credits);
+    }
+
+    /** @return credits granted by the server */
+    int decodeCredit(CharSequence frame) throws IOException {
+        if (frame.length() == 0 || frame.charAt(0) != '+') {
+            throw new IOException("Expected a credit frame from the server, got \"" + frame + "\"");
+        }
+        long credits = parseNumber(frame, 1, frame.length());
+        if (credits <= 0 || credits > Integer.MAX_VALUE) throw new IOException("Invalid credit frame \"" + frame + "\"");
+        return (int) credits;
+    }
+
+    /** Fills frame with the next request of the client */
+    void encodeRequest(MessageBuffer request, MessageBuffer frame) {
+        frame.clear().appendNumber(sentSequence++).append(":").append(request, 0, request.length());
+    }
+
+    /** Replaces request with the next request received by the server */
+    void decodeRequest(CharSequence frame, MessageBuffer request) throws IOException {
+        int payloadStart = nextPayloadStart(frame);
+        request.clear().append(frame, payloadStart, frame.length());
+    }
+
+    /**
+     * Fills frame with the server's response to its latest request.
+     *
+     * @param requestLength length of the request that response extends
+     */
+    void encodeResponse(MessageBuffer response, int requestLength, MessageBuffer frame) {
+        frame.clear().appendNumber(sentSequence++).append(":")
+                .append(response, protocol == WireProtocol.DELTA ? requestLength : 0, response.length());
+    }
+
+    /**
+     * Applies the next response received by the client.
+     *
+     * @param request the request this response must answer, turned into the full response
+     */
+    void decodeResponse(CharSequence frame, MessageBuffer request) throws IOException {
+        int payloadStart = nextPayloadStart(frame);
+        if (protocol != WireProtocol.DELTA) request.clear();
+        request.append(frame, payloadStart, frame.length());
+    }
+
+    /** Checks that frame carries the next expected sequence number and returns where its payload starts */
+    private int nextPayloadStart(CharSequence frame) throws IOException {
+        int separator = indexOf(frame, ':', frame.length());
+        if (separator < 0) throw new IOException("Malformed pipelined frame: missing ':' in \"" + frame + "\"");
+        long sequence = parseNumber(frame, 0, separator);
+        if (sequence != receivedSequence) {
+            throw new IOException("Out of sequence pipelined frame: expected " + receivedSequence + ", got " + sequence);
+        }
+        receivedSequence++;
+        return separator + 1;
+    }
+
+}
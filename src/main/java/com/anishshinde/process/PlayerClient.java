@@ -1,53 +1,134 @@
 package com.anishshinde.process;
 
+import com.anishshinde.common.CommandLineOptions;
+
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Represents the Initiator player (client) in the 2-Player Communication Program
  * when using multiprocessing (each player runs in a separate JVM).
  *
  * Responsibilities:
- * - Connects to the responder (server) via a TCP socket.
+ * - Connects to the responder (server) via a TCP socket, a Unix domain socket or shared memory.
  * - Delegates sending and receiving messages to ClientMessageService.
  * - Runs inside a separate Java process (instance of the Java Virtual Machine).
  *
  * Developer Decisions:
  * - HOST and PORT are hardcoded for simplicity and demonstration purposes.
+ * - The connection is a Socket or a SocketChannel depending on the IoMode in ProcessOptions, or the
+ *   memory-mapped file created by the server for Transport.SHARED_MEMORY.
+ * - Both processes are started at the same time, so a Unix domain socket connection is retried until the server
+ *   has bound its socket file (up to CONNECT_TIMEOUT_SECONDS).
+ * - Socket options of ProcessOptions (TCP_NODELAY, buffer sizes) are applied before connecting, and frames are
+ *   coalesced as the writeBatch in ProcessOptions decides.
+ * - With --metrics the summary of the PlayerMetrics is printed once the game is over.
  * - Uses try-with-resources to ensure the socket is automatically closed.
  */
 public class PlayerClient {
 
     private static final String HOST = "localhost";
     private static final int PORT = 5001;
+    private static final long CONNECT_TIMEOUT_SECONDS = 30;
 
     private final int maxMessages;
+    private final ProcessOptions options;
 
     public PlayerClient(int maxMessages) {
+        this(maxMessages, ProcessOptions.defaults());
+    }
+
+    public PlayerClient(int maxMessages, ProcessOptions options) {
         this.maxMessages = maxMessages;
+        this.options = options;
     }
 
     /** Starts Player Client (initiator) process */
     public void startPlayerInitiator(){
-        try (Socket socket = new Socket(HOST, PORT)
-        ){
-            ClientMessageService clientMessageService = new ClientMessageService(socket, maxMessages);
-            clientMessageService.sendMessage();
+        try {
+            playGame();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Connects to the responder and plays one game, e.g. one operation of a LoadGenerator against a serving PlayerServer.
+     *
+     * @throws IOException if the connection fails or breaks during the game
+     */
+    public void playGame() throws IOException {
+        try (FrameChannel channel = connect()
+        ){
+            ClientMessageService clientMessageService = new ClientMessageService(channel, maxMessages, options);
+            clientMessageService.sendMessage();
+            if (clientMessageService.getMetrics() != null) System.out.println(clientMessageService.getMetrics().summary());
+        }
+    }
+
+    /** Connects to the responder using the configured Transport and IoMode */
+    private FrameChannel connect() throws IOException {
+        if (options.getTransport() == Transport.SHARED_MEMORY) {
+            return FrameChannel.sharedMemoryClient(options.getSharedMemoryFile());
+        }
+        if (options.getTransport() == Transport.UNIX_SOCKET) {
+            SocketChannel channel = connectUnixSocket();
+            return options.getIoMode() == IoMode.CHANNEL
+                    ? FrameChannel.lengthPrefixed(channel, options.getWriteBatch())
+                    : FrameChannel.lines(channel, options.getWriteBatch());
+        }
+        // socket options are set before connecting, so a receive buffer beyond 64 KB is part of the TCP handshake
+        if (options.getIoMode() == IoMode.CHANNEL) {
+            SocketChannel channel = SocketChannel.open();
+            options.configure(channel);
+            channel.connect(new InetSocketAddress(HOST, PORT));
+            return FrameChannel.lengthPrefixed(channel, options.getWriteBatch());
+        }
+        Socket socket = new Socket();
+        options.configure(socket);
+        socket.connect(new InetSocketAddress(HOST, PORT));
+        return FrameChannel.lines(socket, options.getWriteBatch());
+    }
+
+    /** Connects to the Unix domain socket at the configured path, waiting until the server is listening */
+    private SocketChannel connectUnixSocket() throws IOException {
+        UnixDomainSocketAddress address = UnixDomainSocketAddress.of(options.getSocketPath());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CONNECT_TIMEOUT_SECONDS);
+        while (true) {
+            SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            try {
+                options.configure(channel);
+                channel.connect(address);
+                return channel;
+            } catch (SocketException e) {
+                channel.close();
+                // socket file not created yet, or not yet listening
+                if (System.nanoTime() > deadline) throw e;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            if (Thread.interrupted()) throw new InterruptedIOException("Interrupted while connecting to " + address);
+        }
+    }
+
     /**
      * Main entry point for the initiator process.
-     * Expects maxMessages as a command-line argument.
+     * Expects maxMessages as a command-line argument, optionally followed by named arguments (see ProcessOptions).
      *
-     * @param args command-line arguments: args[0] = maxMessages
+     * @param args command-line arguments: args[0] = maxMessages, e.g. --protocol=delta
      */
     public static void main(String[] args){
+        CommandLineOptions options = CommandLineOptions.parse(args);
         int maxMessages = 4;
-        if(args.length > 0) maxMessages = Integer.parseInt(args[0]);
-        PlayerClient playerInitiator = new PlayerClient(maxMessages);
+        if(options.getPositionalCount() > 0) maxMessages = Integer.parseInt(options.getPositional(0, null));
+        PlayerClient playerInitiator = new PlayerClient(maxMessages, ProcessOptions.fromCommandLine(options));
         playerInitiator.startPlayerInitiator();
     }
 
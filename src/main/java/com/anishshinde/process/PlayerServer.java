@@ -1,54 +1,272 @@
 package com.anishshinde.process;
 
+import com.anishshinde.common.CommandLineOptions;
+
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static com.anishshinde.process.ParticipantNames.SERVER_NAME;
 
 /**
  * Represents the responder player (server) in the 2-Player Communication Program
  * when using multiprocessing (each player runs in a separate JVM).
  *
  * Responsibilities:
- * - Listens for incoming connections from the initiator (client) via a TCP socket.
+ * - Listens for incoming connections from the initiator (client) via a TCP or Unix domain socket, or creates the
+ *   shared memory file the initiator attaches to.
  * - Delegates sending and receiving messages to ServerMessageService.
  * - Runs inside a separate Java process (instance of the Java Virtual Machine).
  *
  * Developer Decisions:
  * - PORT is hardcoded for simplicity and demonstration purposes.
+ * - Listens with a ServerSocket or a ServerSocketChannel depending on the IoMode in ProcessOptions, or
+ *   creates the memory-mapped file for Transport.SHARED_MEMORY.
+ * - For Transport.UNIX_SOCKET a stale socket file left by an earlier run is deleted before binding, and the socket
+ *   file is deleted again once the initiator is connected.
+ * - With --metrics the summary of the PlayerMetrics is printed once the game is over.
+ * - Socket options of ProcessOptions (TCP_NODELAY, buffer sizes) are applied to every accepted connection, the
+ *   receive buffer already to the listener so the TCP handshake can offer it; frames are coalesced as the
+ *   writeBatch in ProcessOptions decides.
  * - Uses try-with-resources to ensure ServerSocket and Socket are automatically closed.
+ * - With --serve the server keeps listening (serve()) and plays an independent game with every initiator that
+ *   connects, each with its own ServerMessageService on its own virtual thread. A blocked socket read only parks
+ *   the virtual thread, so thousands of connections need no thread pool and no hand-written Selector loop.
+ *   Games are capped at ProcessOptions.getMaxConnections(): the server stops accepting while the cap is reached,
+ *   so further initiators wait in the listen backlog (LISTEN_BACKLOG). Nothing is printed while serving, since
+ *   the lines of concurrent games would interleave; metrics are published per connection as player2-&lt;n&gt; and removed,
+ *   after printing their summary, once the game is over.
+ * - shutdown() (also run by a shutdown hook, e.g. on Ctrl+C) stops accepting and waits for the running games
+ *   to finish, for at most SHUTDOWN_TIMEOUT_SECONDS. Shared memory connects exactly two processes and is not
+ *   supported by serve().
  */
 public class PlayerServer {
 
     private static final int PORT = 5001;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    // connections the kernel queues for serve() while the cap is reached
+    private static final int LISTEN_BACKLOG = 1024;
 
     private final int maxMessages;
+    private final ProcessOptions options;
+    private final CountDownLatch listening = new CountDownLatch(1);
+    private final CountDownLatch served = new CountDownLatch(1);
+    private volatile ServerSocketChannel listener;
 
     public PlayerServer(int maxMessages) {
+        this(maxMessages, ProcessOptions.defaults());
+    }
+
+    public PlayerServer(int maxMessages, ProcessOptions options) {
         this.maxMessages = maxMessages;
+        this.options = options;
     }
 
     /** Starts Player Server (responder) process */
     public void startPlayerResponder(){
-        try( ServerSocket serverSocket = new ServerSocket(PORT);
-             Socket socket = serverSocket.accept()
+        try( FrameChannel channel = accept()
              ) {
-            ServerMessageService serverMessageService = new ServerMessageService(socket, maxMessages);
+            ServerMessageService serverMessageService = new ServerMessageService(channel, maxMessages, options);
             serverMessageService.sendMessage();
+            if (serverMessageService.getMetrics() != null) System.out.println(serverMessageService.getMetrics().summary());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Plays a game with every initiator that connects, at most getMaxConnections() at a time, until shutdown().
+     * Returns once the last game is over.
+     *
+     * @throws IOException if the server cannot listen
+     * @throws InterruptedException if interrupted while waiting for a free connection or for the running games
+     * @throws IllegalStateException if the transport is SHARED_MEMORY
+     */
+    public void serve() throws IOException, InterruptedException {
+        if (options.getTransport() == Transport.SHARED_MEMORY) {
+            throw new IllegalStateException("Serving many initiators needs a socket transport, not " + options.getTransport());
+        }
+        ProcessOptions gameOptions = options.withPrintMessages(false);
+        Semaphore connections = new Semaphore(options.getMaxConnections());
+        int games = 0;
+        try (ServerSocketChannel serverChannel = openListener();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            listener = serverChannel;
+            listening.countDown();
+            while (true) {
+                connections.acquire();
+                SocketChannel accepted;
+                try {
+                    accepted = serverChannel.accept();
+                } catch (ClosedChannelException e) {
+                    // shutdown() closed the listener
+                    connections.release();
+                    break;
+                }
+                String playerName = SERVER_NAME + "-" + ++games;
+                executor.submit(() -> {
+                    try {
+                        playGame(accepted, gameOptions, playerName);
+                    } finally {
+                        connections.release();
+                    }
+                });
+            }
+            // closing the executor waits for the running games
+        } finally {
+            listening.countDown();
+            if (options.getTransport() == Transport.UNIX_SOCKET) Files.deleteIfExists(options.getSocketPath());
+            served.countDown();
+        }
+    }
+
+    /**
+     * Blocks until serve() is accepting connections.
+     *
+     * @return false if it did not within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitListening(long timeout, TimeUnit unit) throws InterruptedException {
+        return listening.await(timeout, unit) && listener != null;
+    }
+
+    /**
+     * Stops serve() from accepting further initiators and waits until the running games are over,
+     * for at most SHUTDOWN_TIMEOUT_SECONDS. Does nothing if the server is not serving.
+     */
+    public void shutdown() {
+        ServerSocketChannel serverChannel = listener;
+        if (serverChannel == null) return;
+        try {
+            serverChannel.close();
+            if (!served.await(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Games still running after " + SHUTDOWN_TIMEOUT_SECONDS + " s, shutting down anyway");
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot close the listener: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Plays one game of serve() on the calling virtual thread; a failed game does not affect the others */
+    private void playGame(SocketChannel accepted, ProcessOptions gameOptions, String playerName) {
+        FrameChannel channel;
+        try {
+            channel = frameChannel(accepted);
+        } catch (IOException e) {
+            System.err.println(playerName + " failed: " + e);
+            closeQuietly(accepted);
+            return;
+        }
+        ServerMessageService service = new ServerMessageService(channel, maxMessages, gameOptions, playerName);
+        try {
+            service.sendMessage();
+        } catch (IOException | RuntimeException e) {
+            System.err.println(playerName + " failed: " + e);
+        } finally {
+            if (service.getMetrics() != null) {
+                System.out.println(service.getMetrics().summary());
+                service.getMetrics().unregister();
+            }
+        }
+    }
+
+    /** Opens the listener of serve() on the configured socket transport */
+    private ServerSocketChannel openListener() throws IOException {
+        if (options.getTransport() == Transport.UNIX_SOCKET) {
+            Files.deleteIfExists(options.getSocketPath());
+            return ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                    .bind(UnixDomainSocketAddress.of(options.getSocketPath()), LISTEN_BACKLOG);
+        }
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        options.configure(serverChannel);
+        return serverChannel.bind(new InetSocketAddress(PORT), LISTEN_BACKLOG);
+    }
+
+    /** Waits for the single initiator connection using the configured Transport and IoMode */
+    private FrameChannel accept() throws IOException {
+        if (options.getTransport() == Transport.SHARED_MEMORY) {
+            return FrameChannel.sharedMemoryServer(options.getSharedMemoryFile(), options.getSharedMemoryCapacity());
+        }
+        if (options.getTransport() == Transport.UNIX_SOCKET) {
+            return acceptUnixSocket();
+        }
+        if (options.getIoMode() == IoMode.CHANNEL) {
+            try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+                options.configure(serverChannel);
+                return frameChannel(serverChannel.bind(new InetSocketAddress(PORT)).accept());
+            }
+        }
+        try (ServerSocket serverSocket = new ServerSocket()) {
+            // set before binding, so accepted sockets inherit a receive buffer beyond 64 KB
+            if (options.getReceiveBufferSize() != ProcessOptions.OS_DEFAULT_BUFFER_SIZE) {
+                serverSocket.setReceiveBufferSize(options.getReceiveBufferSize());
+            }
+            serverSocket.bind(new InetSocketAddress(PORT));
+            Socket socket = serverSocket.accept();
+            options.configure(socket);
+            return FrameChannel.lines(socket, options.getWriteBatch());
+        }
+    }
+
+    /** Waits for the single initiator connection on the Unix domain socket at the configured path */
+    private FrameChannel acceptUnixSocket() throws IOException {
+        Files.deleteIfExists(options.getSocketPath());
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                .bind(UnixDomainSocketAddress.of(options.getSocketPath()))) {
+            return frameChannel(serverChannel.accept());
+        } finally {
+            Files.deleteIfExists(options.getSocketPath());
+        }
+    }
+
+    /** @return the accepted connection with the configured socket options, framed as the IoMode decides */
+    private FrameChannel frameChannel(SocketChannel accepted) throws IOException {
+        options.configure(accepted);
+        return options.getIoMode() == IoMode.CHANNEL
+                ? FrameChannel.lengthPrefixed(accepted, options.getWriteBatch())
+                : FrameChannel.lines(accepted, options.getWriteBatch());
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // the game failed already
+        }
+    }
+
     /**
      * Main entry point for the responder process.
-     * Expects maxMessages as a command-line argument.
+     * Expects maxMessages as a command-line argument, optionally followed by named arguments (see ProcessOptions).
      *
-     * @param args command-line arguments: args[0] = maxMessages
+     * With --serve the process keeps serving initiators (see serve()) until it is terminated.
+     *
+     * @param args command-line arguments: args[0] = maxMessages, e.g. --protocol=delta
      */
-    public static void main(String[] args){
+    public static void main(String[] args) throws IOException, InterruptedException {
+        CommandLineOptions options = CommandLineOptions.parse(args);
         int maxMessages = 4;
-        if(args.length > 0) maxMessages = Integer.parseInt(args[0]);
-        PlayerServer playerResponder = new PlayerServer(maxMessages);
-        playerResponder.startPlayerResponder();
+        if(options.getPositionalCount() > 0) maxMessages = Integer.parseInt(options.getPositional(0, null));
+        PlayerServer playerResponder = new PlayerServer(maxMessages, ProcessOptions.fromCommandLine(options));
+        if (options.getBoolean("serve", false)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(playerResponder::shutdown, "player-server-shutdown"));
+            playerResponder.serve();
+        } else {
+            playerResponder.startPlayerResponder();
+        }
     }
 }
@@ -1,7 +1,11 @@
 package com.anishshinde.process;
 
+import com.anishshinde.common.AsyncConsole;
+import com.anishshinde.common.ConsoleMode;
+
 import static com.anishshinde.process.ParticipantNames.CLIENT_NAME;
 import static com.anishshinde.process.ParticipantNames.SERVER_NAME;
+import static com.anishshinde.process.ServerMessageService.MESSAGE_DELAY_MS;
 
 /**
  * Utility class for printing messages exchanged between the initiator(client) and responder(server)
@@ -15,18 +19,56 @@ import static com.anishshinde.process.ParticipantNames.SERVER_NAME;
  *   since it only provides static methods.
  * - Uses hardcoded participant names from ParticipantNames.java to decouple printing from socket logic,
  *   and keep things simple
+ * - With ConsoleMode.ASYNC the client prints both directions through an AsyncConsole, under the position of the
+ *   line in the game: 2n for message n of the initiator and 2k - 1 for response k of the responder.
+ *   With a null console the lines are printed directly, as before.
  */
 public class PrintCommunicationProcesses {
 
     private PrintCommunicationProcesses() {}
 
     /** Prints a message sent by the initiator(client) to the responder(server) */
-    public static void printInitiatorMessage(String message) {
+    public static void printInitiatorMessage(CharSequence message) {
         System.out.println(CLIENT_NAME + ": \"" + message + "\" -> " + SERVER_NAME);
     }
 
     /** Prints a message(response) sent by the responder(server) back to the initiator(client) */
-    public static void printResponderMessage(String message) {
+    public static void printResponderMessage(CharSequence message) {
         System.out.println(CLIENT_NAME + " <- " + SERVER_NAME + ": \"" + message + "\"");
     }
+
+    /**
+     * Prints a message sent by the initiator(client), through the console if there is one
+     *
+     * @param messageNumber number of the message, counting from 0
+     */
+    public static void printInitiatorMessage(AsyncConsole console, int messageNumber, CharSequence message) {
+        if (console == null) {
+            printInitiatorMessage(message);
+        } else {
+            console.publish(2L * messageNumber, CLIENT_NAME + ": \"" + message + "\" -> " + SERVER_NAME);
+        }
+    }
+
+    /**
+     * Prints a response received by the initiator(client), through the console if there is one
+     *
+     * @param responseNumber number of the response, counting from 1
+     */
+    public static void printResponderMessage(AsyncConsole console, int responseNumber, CharSequence message) {
+        if (console == null) {
+            printResponderMessage(message);
+        } else {
+            console.publish(2L * responseNumber - 1, CLIENT_NAME + " <- " + SERVER_NAME + ": \"" + message + "\"");
+        }
+    }
+
+    /**
+     * Sleeps MESSAGE_DELAY_MS if messages are printed directly by both processes, so the lines appear in order.
+     *
+     * @throws InterruptedException if the thread is interrupted while sleeping
+     */
+    public static void awaitDirectOutput(ProcessOptions options) throws InterruptedException {
+        if (options.isPrintMessages() && options.getConsoleMode() == ConsoleMode.DIRECT) Thread.sleep(MESSAGE_DELAY_MS);
+    }
 }
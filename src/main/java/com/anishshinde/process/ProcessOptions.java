@@ -0,0 +1,467 @@
+package com.anishshinde.process;
+
+import com.anishshinde.common.CommandLineOptions;
+import com.anishshinde.common.ConsoleMode;
+import com.anishshinde.common.StopCondition;
+import com.anishshinde.journal.MessageJournal;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.NetworkChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Optional settings of the multiprocessing mode, shared by PlayerClient and PlayerServer.
+ *
+ * Responsibilities:
+ * - Holds everything about a player process that is not part of the game itself (maxMessages),
+ *   e.g. whether messages are printed, which wire protocol is spoken and how the processes are connected.
+ * - Reads these settings from the named command-line arguments that App forwards to both processes.
+ *
+ * Developer Decisions:
+ * - Instances are immutable; every with*() method returns a modified copy (same approach as PlayerOptions
+ *   in the thread module).
+ * - defaults() reproduces the original behaviour: messages are printed and every line carries the full message,
+ *   read and written through BufferedReader/PrintWriter, every frame sent on its own with the socket options
+ *   left at the defaults of the operating system, nothing journaled, and the game played to maxMessages.
+ * - Socket options only apply to the socket transports and only where the socket supports them (a Unix domain
+ *   socket has no TCP_NODELAY); configure() is package-private, like PlayerOptions.createMailbox().
+ */
+public final class ProcessOptions {
+
+    public static final int DEFAULT_SHARED_MEMORY_CAPACITY = SharedMemoryFrameChannel.DEFAULT_CAPACITY;
+    public static final int DEFAULT_WINDOW = 1;
+    public static final int DEFAULT_MAX_CONNECTIONS = 1024;
+    public static final int DEFAULT_GAMES = 1;
+    public static final int DEFAULT_WRITE_BATCH = 1;
+    /** Buffer size meaning "keep the default of the operating system" */
+    public static final int OS_DEFAULT_BUFFER_SIZE = 0;
+
+    private boolean printMessages;
+    private WireProtocol protocol;
+    private IoMode ioMode;
+    private Transport transport;
+    private Path sharedMemoryFile;
+    private int sharedMemoryCapacity;
+    private Path socketPath;
+    private int window;
+    private ConsoleMode consoleMode;
+    private boolean metrics;
+    private int maxConnections;
+    private int games;
+    private int writeBatch;
+    private boolean tcpNoDelay;
+    private int sendBufferSize;
+    private int receiveBufferSize;
+    private boolean headers;
+    private Path journalDirectory;
+    private int journalSegmentSize;
+    private int journalSyncEvery;
+    private StopCondition stopCondition;
+
+    private ProcessOptions() {
+        printMessages = true;
+        protocol = WireProtocol.FULL;
+        ioMode = IoMode.STREAM;
+        transport = Transport.TCP;
+        sharedMemoryFile = defaultSharedMemoryFile();
+        sharedMemoryCapacity = DEFAULT_SHARED_MEMORY_CAPACITY;
+        socketPath = defaultSocketPath();
+        window = DEFAULT_WINDOW;
+        consoleMode = ConsoleMode.DIRECT;
+        maxConnections = DEFAULT_MAX_CONNECTIONS;
+        games = DEFAULT_GAMES;
+        writeBatch = DEFAULT_WRITE_BATCH;
+        sendBufferSize = OS_DEFAULT_BUFFER_SIZE;
+        receiveBufferSize = OS_DEFAULT_BUFFER_SIZE;
+        journalSegmentSize = MessageJournal.DEFAULT_SEGMENT_SIZE;
+        journalSyncEvery = MessageJournal.DEFAULT_SYNC_EVERY;
+    }
+
+    private ProcessOptions(ProcessOptions other) {
+        printMessages = other.printMessages;
+        protocol = other.protocol;
+        ioMode = other.ioMode;
+        transport = other.transport;
+        sharedMemoryFile = other.sharedMemoryFile;
+        sharedMemoryCapacity = other.sharedMemoryCapacity;
+        socketPath = other.socketPath;
+        window = other.window;
+        consoleMode = other.consoleMode;
+        metrics = other.metrics;
+        maxConnections = other.maxConnections;
+        games = other.games;
+        writeBatch = other.writeBatch;
+        tcpNoDelay = other.tcpNoDelay;
+        sendBufferSize = other.sendBufferSize;
+        receiveBufferSize = other.receiveBufferSize;
+        headers = other.headers;
+        journalDirectory = other.journalDirectory;
+        journalSegmentSize = other.journalSegmentSize;
+        journalSyncEvery = other.journalSyncEvery;
+        stopCondition = other.stopCondition;
+    }
+
+    /** @return options reproducing the original behaviour of the multiprocessing mode */
+    public static ProcessOptions defaults() {
+        return new ProcessOptions();
+    }
+
+    /** @return options read from the named arguments, e.g. --protocol=delta --io=channel --transport=unix-socket */
+    public static ProcessOptions fromCommandLine(CommandLineOptions options) {
+        ProcessOptions defaults = defaults();
+        return defaults
+                .withProtocol(options.getEnum("protocol", WireProtocol.class, WireProtocol.FULL))
+                .withIoMode(options.getEnum("io", IoMode.class, IoMode.STREAM))
+                .withTransport(options.getEnum("transport", Transport.class, Transport.TCP))
+                .withSharedMemory(Path.of(options.get("shm-file", defaults.sharedMemoryFile.toString())),
+                        options.getInt("shm-capacity", DEFAULT_SHARED_MEMORY_CAPACITY))
+                .withSocketPath(Path.of(options.get("socket-path", defaults.socketPath.toString())))
+                .withWindow(options.getInt("window", DEFAULT_WINDOW))
+                .withConsoleMode(options.getEnum("console", ConsoleMode.class, ConsoleMode.DIRECT))
+                .withMetrics(options.getBoolean("metrics", false))
+                .withMaxConnections(options.getInt("max-connections", DEFAULT_MAX_CONNECTIONS))
+                .withGames(options.getInt("games", DEFAULT_GAMES))
+                .withWriteBatch(options.getInt("write-batch", DEFAULT_WRITE_BATCH))
+                .withTcpNoDelay(options.getBoolean("tcp-nodelay", false))
+                .withSocketBufferSizes(options.getInt("send-buffer", OS_DEFAULT_BUFFER_SIZE),
+                        options.getInt("receive-buffer", OS_DEFAULT_BUFFER_SIZE))
+                .withHeaders(options.getBoolean("headers", false))
+                .withJournal(options.has("journal") ? Path.of(options.get("journal", null)) : null,
+                        options.getInt("journal-segment", MessageJournal.DEFAULT_SEGMENT_SIZE),
+                        options.getInt("journal-sync", MessageJournal.DEFAULT_SYNC_EVERY))
+                .withStopCondition(StopCondition.fromCommandLine(options));
+    }
+
+    /** @return /dev/shm/player-communication.shm, or the same name in the temp directory if there is no /dev/shm */
+    public static Path defaultSharedMemoryFile() {
+        Path sharedMemory = Path.of("/dev/shm");
+        Path directory = Files.isDirectory(sharedMemory) ? sharedMemory : Path.of(System.getProperty("java.io.tmpdir"));
+        return directory.resolve("player-communication.shm");
+    }
+
+    /** @return player-communication.sock in the temp directory */
+    public static Path defaultSocketPath() {
+        return Path.of(System.getProperty("java.io.tmpdir")).resolve("player-communication.sock");
+    }
+
+    /** @return copy of these options with printing (and MESSAGE_DELAY_MS) switched on or off */
+    public ProcessOptions withPrintMessages(boolean printMessages) {
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.printMessages = printMessages;
+        return copy;
+    }
+
+    /** @return copy of these options using the given wire protocol */
+    public ProcessOptions withProtocol(WireProtocol protocol) {
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.protocol = protocol;
+        return copy;
+    }
+
+    /** @return copy of these options using the given socket I/O */
+    public ProcessOptions withIoMode(IoMode ioMode) {
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.ioMode = ioMode;
+        return copy;
+    }
+
+    /** @return copy of these options connecting the processes through the given transport */
+    public ProcessOptions withTransport(Transport transport) {
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.transport = transport;
+        return copy;
+    }
+
+    /**
+     * @param file memory-mapped file shared by both processes for Transport.SHARED_MEMORY
+     * @param capacity bytes per direction (rounded up to a power of two); a frame must fit into half of it
+     * @return copy of these options with the given shared memory settings
+     */
+    public ProcessOptions withSharedMemory(Path file, int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("shared memory capacity must be greater than 0");
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.sharedMemoryFile = file;
+        copy.sharedMemoryCapacity = capacity;
+        return copy;
+    }
+
+    /** @return copy of these options using the given path for Transport.UNIX_SOCKET */
+    public ProcessOptions withSocketPath(Path socketPath) {
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.socketPath = socketPath;
+        return copy;
+    }
+
+    /**
+     * @param window messages the client may have in flight at once; for the server the number of credits it grants.
+     *               1 is the original stop-and-wait game, larger windows pipeline it. Both processes must agree on
+     *               whether the game is pipelined (window > 1)
+     * @return copy of these options with the given window
+     */
+    public ProcessOptions withWindow(int window) {
+        if (window <= 0) throw new IllegalArgumentException("window must be greater than 0");
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.window = window;
+        return copy;
+    }
+
+    /**
+     * @param consoleMode DIRECT prints on the messaging thread of each process (with MESSAGE_DELAY_MS),
+     *                    ASYNC lets the client print both directions through an AsyncConsole, without sleeps
+     * @return copy of these options printing as consoleMode decides
+     */
+    public ProcessOptions withConsoleMode(ConsoleMode consoleMode) {
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.consoleMode = consoleMode;
+        return copy;
+    }
+
+    /** @return copy of these options where the message services record PlayerMetrics (published as an MXBean) or not */
+    public ProcessOptions withMetrics(boolean metrics) {
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.metrics = metrics;
+        return copy;
+    }
+
+    /**
+     * @param maxConnections games a serving PlayerServer plays at the same time; further initiators wait in the
+     *                       listen backlog until a game is over. Ignored by the single-game server and the client
+     * @return copy of these options with the given connection cap
+     */
+    public ProcessOptions withMaxConnections(int maxConnections) {
+        if (maxConnections <= 0) throw new IllegalArgumentException("maxConnections must be greater than 0");
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.maxConnections = maxConnections;
+        return copy;
+    }
+
+    /**
+     * @param games games multiplexed over one connection, each with its own stream id (see MultiplexCodec).
+     *              1 is the original single game. Both processes must use the same number, and multiplexed games
+     *              are stop-and-wait (window of 1)
+     * @return copy of these options with the given number of games per connection
+     */
+    public ProcessOptions withGames(int games) {
+        if (games <= 0) throw new IllegalArgumentException("games must be greater than 0");
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.games = games;
+        return copy;
+    }
+
+    /**
+     * @param writeBatch frames a socket channel collects before sending them with one write; a player also sends
+     *                   the collected frames whenever it is about to wait for the other one. 1 sends every frame
+     *                   right away (original behaviour). Ignored by Transport.SHARED_MEMORY
+     * @return copy of these options with the given write batch
+     */
+    public ProcessOptions withWriteBatch(int writeBatch) {
+        if (writeBatch <= 0) throw new IllegalArgumentException("writeBatch must be greater than 0");
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.writeBatch = writeBatch;
+        return copy;
+    }
+
+    /** @return copy of these options switching Nagle's algorithm off (true) or leaving it on, for Transport.TCP */
+    public ProcessOptions withTcpNoDelay(boolean tcpNoDelay) {
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.tcpNoDelay = tcpNoDelay;
+        return copy;
+    }
+
+    /**
+     * @param sendBufferSize SO_SNDBUF in bytes of the socket transports, OS_DEFAULT_BUFFER_SIZE to keep the default
+     * @param receiveBufferSize SO_RCVBUF in bytes of the socket transports, OS_DEFAULT_BUFFER_SIZE to keep the default
+     * @return copy of these options with the given socket buffer sizes (the operating system may round them)
+     */
+    public ProcessOptions withSocketBufferSizes(int sendBufferSize, int receiveBufferSize) {
+        if (sendBufferSize < 0 || receiveBufferSize < 0) throw new IllegalArgumentException("socket buffer sizes must not be negative");
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.sendBufferSize = sendBufferSize;
+        copy.receiveBufferSize = receiveBufferSize;
+        return copy;
+    }
+
+    /**
+     * @param headers true puts a binary MessageHeader (type, game, sequence, sender, timestamp, payload length) in
+     *                front of every frame, validated by the receiver (see HeaderCodec). Needs length-prefixed
+     *                frames: IoMode.CHANNEL or Transport.SHARED_MEMORY. Both processes must agree
+     * @return copy of these options with or without frame headers
+     */
+    public ProcessOptions withHeaders(boolean headers) {
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.headers = headers;
+        return copy;
+    }
+
+    /**
+     * @param directory directory every player process journals its sent and received messages in, each in a
+     *                  subdirectory named after the player (see MessageJournal); null journals nothing
+     * @param segmentSize bytes per journal segment
+     * @param syncEvery journal records after which they are forced to disk, 0 to force them only at the end
+     * @return copy of these options with the given journal settings
+     */
+    public ProcessOptions withJournal(Path directory, int segmentSize, int syncEvery) {
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.journalDirectory = directory;
+        copy.journalSegmentSize = segmentSize;
+        copy.journalSyncEvery = syncEvery;
+        return copy;
+    }
+
+    /**
+     * @param stopCondition budget (time, bytes, latency SLO) after which the client ends its game early and tells the
+     *                      server with an end-of-game frame; maxMessages still caps the game. Only the client evaluates
+     *                      it, and not for multiplexed games. null plays the game to maxMessages (original behaviour)
+     * @return copy of these options using the given stop condition
+     */
+    public ProcessOptions withStopCondition(StopCondition stopCondition) {
+        ProcessOptions copy = new ProcessOptions(this);
+        copy.stopCondition = stopCondition;
+        return copy;
+    }
+
+    /** @return a journal for the given player in its subdirectory of the journal directory, or null if none is set */
+    MessageJournal openJournal(String playerName) throws IOException {
+        return journalDirectory != null
+                ? MessageJournal.open(journalDirectory.resolve(playerName), journalSegmentSize, journalSyncEvery)
+                : null;
+    }
+
+    /** Applies the socket options of these options to a connected Socket (IoMode.STREAM over TCP) */
+    void configure(Socket socket) throws IOException {
+        if (tcpNoDelay) socket.setTcpNoDelay(true);
+        if (sendBufferSize != OS_DEFAULT_BUFFER_SIZE) socket.setSendBufferSize(sendBufferSize);
+        if (receiveBufferSize != OS_DEFAULT_BUFFER_SIZE) socket.setReceiveBufferSize(receiveBufferSize);
+    }
+
+    /**
+     * Applies the socket options of these options that channel supports, e.g. to a connected SocketChannel, or to a
+     * ServerSocketChannel so accepted connections inherit the receive buffer before the TCP handshake sizes the window
+     */
+    void configure(NetworkChannel channel) throws IOException {
+        if (tcpNoDelay) setIfSupported(channel, StandardSocketOptions.TCP_NODELAY, true);
+        if (sendBufferSize != OS_DEFAULT_BUFFER_SIZE) setIfSupported(channel, StandardSocketOptions.SO_SNDBUF, sendBufferSize);
+        if (receiveBufferSize != OS_DEFAULT_BUFFER_SIZE) setIfSupported(channel, StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+    }
+
+    /** @throws IllegalArgumentException if binary headers are combined with newline-terminated text frames */
+    void validateHeaders() {
+        if (headers && transport != Transport.SHARED_MEMORY && ioMode == IoMode.STREAM) {
+            throw new IllegalArgumentException("Binary headers need length-prefixed frames, use IoMode.CHANNEL or shared memory");
+        }
+    }
+
+    private static <T> void setIfSupported(NetworkChannel channel, SocketOption<T> option, T value) throws IOException {
+        if (channel.supportedOptions().contains(option)) channel.setOption(option, value);
+    }
+
+    /** @return true if exchanged messages are printed to the terminal (and delayed by MESSAGE_DELAY_MS)*/
+    public boolean isPrintMessages() {
+        return printMessages;
+    }
+
+    /** @return protocol used to encode messages on the wire*/
+    public WireProtocol getProtocol() {
+        return protocol;
+    }
+
+    /** @return socket I/O used between the player processes*/
+    public IoMode getIoMode() {
+        return ioMode;
+    }
+
+    /** @return how the player processes are connected*/
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /** @return memory-mapped file used by Transport.SHARED_MEMORY*/
+    public Path getSharedMemoryFile() {
+        return sharedMemoryFile;
+    }
+
+    /** @return bytes per direction used by Transport.SHARED_MEMORY*/
+    public int getSharedMemoryCapacity() {
+        return sharedMemoryCapacity;
+    }
+
+    /** @return file system path of the socket used by Transport.UNIX_SOCKET*/
+    public Path getSocketPath() {
+        return socketPath;
+    }
+
+    /** @return messages that may be in flight at once (1 = stop-and-wait)*/
+    public int getWindow() {
+        return window;
+    }
+
+    /** @return how exchanged messages are printed*/
+    public ConsoleMode getConsoleMode() {
+        return consoleMode;
+    }
+
+    /** @return true if the message services record PlayerMetrics*/
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    /** @return games a serving PlayerServer plays at the same time*/
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /** @return games multiplexed over one connection (1 = a single game)*/
+    public int getGames() {
+        return games;
+    }
+
+    /** @return frames collected before a socket channel sends them (1 = every frame right away)*/
+    public int getWriteBatch() {
+        return writeBatch;
+    }
+
+    /** @return true if Nagle's algorithm is switched off on TCP connections*/
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /** @return SO_SNDBUF of the socket transports in bytes (OS_DEFAULT_BUFFER_SIZE = default of the operating system)*/
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    /** @return SO_RCVBUF of the socket transports in bytes (OS_DEFAULT_BUFFER_SIZE = default of the operating system)*/
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    /** @return true if every frame starts with a binary MessageHeader*/
+    public boolean isHeaders() {
+        return headers;
+    }
+
+    /** @return directory the players journal their messages in, or null if nothing is journaled*/
+    public Path getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    /** @return bytes per journal segment*/
+    public int getJournalSegmentSize() {
+        return journalSegmentSize;
+    }
+
+    /** @return journal records after which they are forced to disk (0 = only at the end)*/
+    public int getJournalSyncEvery() {
+        return journalSyncEvery;
+    }
+
+    /** @return budget after which the client ends its game early, or null if it plays to maxMessages*/
+    public StopCondition getStopCondition() {
+        return stopCondition;
+    }
+
+}
@@ -1,12 +1,22 @@
 package com.anishshinde.process;
 
-import java.io.BufferedReader;
+import com.anishshinde.common.ConsoleMode;
+import com.anishshinde.common.GamePublisher;
+import com.anishshinde.common.MessageBuffer;
+import com.anishshinde.common.MessageFlow;
+import com.anishshinde.common.MessageHeader;
+import com.anishshinde.journal.MessageJournal;
+import com.anishshinde.metrics.MessageReceiveEvent;
+import com.anishshinde.metrics.MessageSendEvent;
+import com.anishshinde.metrics.PlayerMetrics;
+
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Socket;
+import java.util.concurrent.Flow;
 
 import static com.anishshinde.common.StopConditions.responderStopConditionFulfilled;
+import static com.anishshinde.process.ParticipantNames.SERVER_NAME;
+import static com.anishshinde.process.PrintCommunicationProcesses.awaitDirectOutput;
 import static com.anishshinde.process.PrintCommunicationProcesses.printResponderMessage;
 
 /**
@@ -18,12 +28,39 @@ import static com.anishshinde.process.PrintCommunicationProcesses.printResponder
  * - Stops after sending a predefined number of responses.
  *
  * Developer Decisions:
- * - Uses BufferedReader and PrintWriter for simple socket I/O.
+ * - Socket I/O is delegated to a FrameChannel: text lines over a Socket (IoMode.STREAM, the original
+ *   BufferedReader/PrintWriter I/O) or length-prefixed binary frames over a SocketChannel (IoMode.CHANNEL).
  * - MESSAGE_DELAY_MS is static and final and not implemented in App.java class, as its purpose is to just make sure
  *   that the print statements are printed out in the terminal in the correct order. It in no way affects the logic
  *   of the program. This small delay is added because the execution of threads can be faster than terminal output,
  *   causing print statements to appear out of order.
- * - Uses try-with-resources to automatically close streams when done.
+ * - printMessages can be switched off (e.g. for benchmarks), in which case MESSAGE_DELAY_MS is skipped as well.
+ * - With ConsoleMode.ASYNC the server prints nothing and does not sleep: the client prints both directions,
+ *   since the lines of two processes can only be ordered by one of them.
+ * - The message is kept locally in a MessageBuffer and only converted to and from lines by the MessageCodec of the
+ *   configured WireProtocol, so with DELTA only the appended counter travels over the socket.
+ *   Received frames are decoded straight from their bytes; a String is only produced when printing.
+ * - With a window > 1 (see ProcessOptions) the game is pipelined: the server grants its window as credits to the
+ *   client and then answers the independent messages in the order they arrive (see PipelineCodec).
+ * - With games > 1 (see ProcessOptions) the connection carries that many independent games: every game has its own
+ *   message, codec and response counter, indexed by its stream id (see MultiplexCodec), and the server answers the
+ *   frames in the order they arrive, printing nothing. responsesSent then counts the frames of the whole connection.
+ * - With a writeBatch > 1 (see ProcessOptions) the channel coalesces frames; the server flushes before every read
+ *   that would block, so responses are sent in batches of whatever it could answer without waiting.
+ * - With headers switched on (see ProcessOptions) every frame starts with a binary MessageHeader (see HeaderCodec):
+ *   messages are validated by type and sequence without parsing text, and every response echoes the game id and
+ *   send timestamp of the message it answers.
+ * - With a journal directory set (see ProcessOptions) every message received and every response sent is recorded in
+ *   a MessageJournal of this player (named like its metrics), one stream per game.
+ * - With metrics switched on (see ProcessOptions) frames and wire bytes are counted in PlayerMetrics, registered
+ *   as an MXBean. The server does not see the client's send times, so it records no round trips.
+ * - Every frame written or read emits a JFR event (MessageSendEvent, MessageReceiveEvent) with the time spent in the
+ *   socket call; disabled by default.
+ * - A client whose StopCondition is met ends a single (stop-and-wait or pipelined) game early with
+ *   MessageCodec.END_OF_GAME_FRAME; the server then stops answering and closes the connection.
+ * - messages() publishes the received messages to a java.util.concurrent.Flow.Subscriber (see GamePublisher): the
+ *   server then only reads a message the subscriber has asked for (see MessageFlow).
+ * - Uses try-with-resources to automatically close the channel when done.
  */
 public class ServerMessageService {
 
@@ -31,32 +68,211 @@ public class ServerMessageService {
     public static final int MESSAGE_DELAY_MS = 20;
 
     private final int maxMessages;
+    private final String playerName;
+    private final ProcessOptions options;
     private int responsesSent;
-    private final Socket socket;
+    private final FrameChannel channel;
+    private final PlayerMetrics metrics;
+    private final HeaderCodec headers;
+
+    public ServerMessageService(Socket socket, int maxMessages) throws IOException {
+        this(socket, maxMessages, ProcessOptions.defaults());
+    }
+
+    public ServerMessageService(Socket socket, int maxMessages, ProcessOptions options) throws IOException {
+        this(FrameChannel.lines(socket), maxMessages, options);
+    }
 
-    public ServerMessageService(Socket socket, int maxMessages) {
-        this.socket = socket;
+    public ServerMessageService(FrameChannel channel, int maxMessages, ProcessOptions options) {
+        this(channel, maxMessages, options, SERVER_NAME);
+    }
+
+    /** @param playerName name the metrics and JFR events are published under, e.g. one per connection of a serving PlayerServer */
+    public ServerMessageService(FrameChannel channel, int maxMessages, ProcessOptions options, String playerName) {
+        this.channel = channel;
         this.maxMessages = maxMessages;
+        this.playerName = playerName;
+        this.options = options;
         responsesSent = 0;
+        metrics = options.isMetrics() ? new PlayerMetrics(playerName).register() : null;
+        if (options.getGames() > 1 && options.getWindow() > 1) {
+            throw new IllegalArgumentException("Multiplexed games are stop-and-wait, window must be 1");
+        }
+        options.validateHeaders();
+        headers = options.isHeaders() ? new HeaderCodec(MessageHeader.SENDER_RESPONDER, options.getGames()) : null;
+    }
+
+    /** @return metrics recorded by this server, or null if metrics are switched off (see ProcessOptions) */
+    public PlayerMetrics getMetrics() {
+        return metrics;
     }
 
     /** Executes the messaging loop for the server(responder) */
     public void sendMessage() throws IOException {
-        String message;
-        try(BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            PrintWriter out = new PrintWriter(socket.getOutputStream(), true)
-        ){
-            while (!responderStopConditionFulfilled(responsesSent, maxMessages)) {
-                message = in.readLine();
-                Thread.sleep(MESSAGE_DELAY_MS);
-                message += " " + ++responsesSent;
-                out.println(message);
-                printResponderMessage(message);
-            }
+        try {
+            play(null);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             System.out.println("Server interrupted and terminating gracefully.");
         }
     }
 
+    /**
+     * Adapts this server to java.util.concurrent.Flow: the game is played once a subscriber subscribes, and every
+     * message received from the client is published to it. The next message is only read once the subscriber has
+     * asked for it, so a slow subscriber holds the client back through the socket instead of filling a queue;
+     * cancelling closes the connection.
+     *
+     * @return a publisher of the messages this server receives, for a single subscriber
+     * @throws IllegalArgumentException if the connection multiplexes several games
+     */
+    public Flow.Publisher<String> messages() {
+        if (options.getGames() > 1) throw new IllegalArgumentException("Only a single game can be published");
+        return new GamePublisher(playerName + "-publisher", this::play);
+    }
+
+    /** @param flow subscription the received messages are published to, or null */
+    private void play(MessageFlow flow) throws IOException, InterruptedException {
+        try(FrameChannel channel = this.channel;
+            MessageJournal journal = options.openJournal(playerName)){
+            if (options.getGames() > 1) {
+                respondMultiplexed(channel, options.getGames(), journal);
+                return;
+            }
+            MessageJournal.Stream journaled = journal != null ? journal.stream(playerName, 0) : null;
+            if (options.getWindow() > 1) {
+                respondPipelined(channel, journaled, flow);
+                return;
+            }
+            MessageBuffer message = new MessageBuffer(MessageBuffer.expectedGameLength(maxMessages));
+            MessageBuffer frame = new MessageBuffer();
+            MessageCodec codec = options.getProtocol().newCodec();
+            while (!responderStopConditionFulfilled(responsesSent, maxMessages)) {
+                if (flow != null && !flow.awaitDemand()) return;
+                CharSequence received = readFrame(channel, frame);
+                // the client ended the game early (see StopCondition)
+                if (MessageCodec.isEndOfGame(received)) return;
+                codec.decode(received, message);
+                if (journaled != null) journaled.received(message);
+                if (flow != null) flow.emit(message);
+                awaitDirectOutput(options);
+                message.appendCounter(++responsesSent);
+                if (journaled != null) journaled.sent(message);
+                codec.encode(message, frame);
+                writeFrame(channel, frame);
+                if (printsDirectly()) printResponderMessage(message);
+            }
+        }
+    }
+
+    /** Pipelined messaging loop: grants the window as credits, then answers every message in arrival order */
+    private void respondPipelined(FrameChannel channel, MessageJournal.Stream journaled, MessageFlow flow)
+            throws IOException, InterruptedException {
+        MessageBuffer message = new MessageBuffer();
+        MessageBuffer frame = new MessageBuffer();
+        PipelineCodec codec = new PipelineCodec(options.getProtocol());
+        codec.encodeCredit(options.getWindow(), frame);
+        if (headers != null) {
+            channel.writeFrame(headers.encode(MessageHeader.TYPE_CREDIT, 0, 0, frame), frame);
+        } else {
+            channel.writeFrame(frame);
+        }
+
+        while (!responderStopConditionFulfilled(responsesSent, maxMessages)) {
+            if (flow != null && !flow.awaitDemand()) return;
+            CharSequence received = readFrame(channel, frame);
+            if (MessageCodec.isEndOfGame(received)) return;
+            codec.decodeRequest(received, message);
+            if (journaled != null) journaled.received(message);
+            if (flow != null) flow.emit(message);
+            awaitDirectOutput(options);
+            int requestLength = message.length();
+            message.appendCounter(++responsesSent);
+            if (journaled != null) journaled.sent(message);
+            codec.encodeResponse(message, requestLength, frame);
+            writeFrame(channel, frame);
+            if (printsDirectly()) printResponderMessage(message);
+        }
+    }
+
+    /**
+     * Multiplexed messaging loop: answers every frame within its own game until all games are over
+     *
+     * @throws IOException also if a game receives more than maxMessages messages
+     */
+    private void respondMultiplexed(FrameChannel channel, int games, MessageJournal journal) throws IOException {
+        MessageBuffer frame = new MessageBuffer();
+        MessageBuffer payload = new MessageBuffer();
+        MultiplexCodec multiplexCodec = new MultiplexCodec(games);
+        MessageBuffer[] messages = new MessageBuffer[games];
+        MessageCodec[] codecs = new MessageCodec[games];
+        int[] gameResponsesSent = new int[games];
+        MessageJournal.Stream[] journaled = new MessageJournal.Stream[games];
+        for (int game = 0; game < games; game++) {
+            messages[game] = new MessageBuffer(MessageBuffer.expectedGameLength(maxMessages));
+            codecs[game] = options.getProtocol().newCodec();
+            if (journal != null) journaled[game] = journal.stream(playerName, game);
+        }
+
+        int gamesOver = 0;
+        while (gamesOver < games) {
+            int game = multiplexCodec.decode(readFrame(channel, frame), payload);
+            if (headers != null && headers.receivedGameId() != game) {
+                throw new IOException("Header of game " + headers.receivedGameId() + " on a frame of game " + game);
+            }
+            if (responderStopConditionFulfilled(gameResponsesSent[game], maxMessages)) {
+                throw new IOException("Game " + game + " is already over");
+            }
+            codecs[game].decode(payload, messages[game]);
+            if (journal != null) journaled[game].received(messages[game]);
+            messages[game].appendCounter(++gameResponsesSent[game]);
+            if (journal != null) journaled[game].sent(messages[game]);
+            responsesSent++;
+            codecs[game].encode(messages[game], payload);
+            multiplexCodec.encode(game, payload, frame);
+            writeFrame(channel, frame);
+            if (responderStopConditionFulfilled(gameResponsesSent[game], maxMessages)) gamesOver++;
+        }
+    }
+
+    /**
+     * Reads the frame of the next message, recording it in the metrics and as a JFR event. Coalesced responses are
+     * sent first unless the message is already buffered, since the client may be waiting for them
+     *
+     * @return the payload of the frame: frame itself, or a view behind its header if headers are on
+     */
+    private CharSequence readFrame(FrameChannel channel, MessageBuffer frame) throws IOException {
+        if (!channel.hasBufferedFrame()) channel.flush();
+        MessageReceiveEvent event = new MessageReceiveEvent();
+        event.begin();
+        channel.readFrame(frame);
+        event.complete(playerName, responsesSent + 1, frame.length());
+        if (metrics != null) metrics.recordReceived(frame.length(), 0);
+        return headers != null ? headers.decode(MessageHeader.TYPE_MESSAGE, frame) : frame;
+    }
+
+    /**
+     * Writes the frame of the latest response, recording it in the metrics and as a JFR event. With headers the
+     * response carries the game id and echoes the send timestamp of the message read last, which it answers
+     */
+    private void writeFrame(FrameChannel channel, MessageBuffer frame) throws IOException {
+        MessageSendEvent event = new MessageSendEvent();
+        event.begin();
+        int wireLength = frame.length();
+        if (headers != null) {
+            channel.writeFrame(headers.encode(MessageHeader.TYPE_RESPONSE, headers.receivedGameId(),
+                    headers.receivedSendTimestamp(), frame), frame);
+            wireLength += MessageHeader.LENGTH;
+        } else {
+            channel.writeFrame(frame);
+        }
+        event.complete(playerName, responsesSent, wireLength);
+        if (metrics != null) metrics.recordSent(wireLength);
+    }
+
+    /** @return true if this process prints its responses itself (otherwise the client prints them) */
+    private boolean printsDirectly() {
+        return options.isPrintMessages() && options.getConsoleMode() == ConsoleMode.DIRECT;
+    }
+
 }
@@ -0,0 +1,246 @@
+package com.anishshinde.process;
+
+import com.anishshinde.common.MessageBuffer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * FrameChannel of Transport.SHARED_MEMORY: the two player processes exchange frames through a memory-mapped file
+ * (by default in /dev/shm, i.e. RAM) laid out as two single-producer/single-consumer byte rings, one per direction.
+ *
+ * File layout:
+ *   [0, 4096)            header: magic, ring capacity, one "closed" flag per side, and per ring a producer position
+ *                        (tail) and a consumer position (head), each in its own 64 byte cache line
+ *   [4096, 4096 + C)     ring 0: frames from the client (initiator) to the server (responder)
+ *   [4096 + C, 4096 + 2C) ring 1: frames from the server to the client
+ * A frame in a ring is a 4 byte length followed by its bytes, padded to 8 bytes. A frame that does not fit before
+ * the end of the ring is preceded by a padding record (length -1) and written at the start of the ring.
+ *
+ * Developer Decisions:
+ * - The server creates and initializes the file and publishes the magic number last, the client maps the file once
+ *   the magic number is visible (waiting up to ATTACH_TIMEOUT_SECONDS, so the client may start before the server).
+ * - Positions are written with release stores and read with acquire loads through a VarHandle view of the mapped
+ *   buffer, so the frame bytes are guaranteed to be visible to the other process before the new position is
+ *   (ordered publication without locks or system calls).
+ * - Both sides wait by spinning first, then yielding, then parking for short periods: a fast peer is caught within
+ *   microseconds, an idle one costs little CPU. There is no cross-process unpark, so parking is time-based.
+ * - A frame must fit into half a ring; with WireProtocol.FULL long games therefore need a larger capacity
+ *   (--shm-capacity), with DELTA frames never grow.
+ * - Closing marks this side as closed, so a peer waiting for a frame gets an EOFException instead of waiting forever.
+ *   The server deletes the file when it closes.
+ */
+class SharedMemoryFrameChannel implements FrameChannel {
+
+    static final int DEFAULT_CAPACITY = 1 << 20;
+    private static final long ATTACH_TIMEOUT_SECONDS = 30;
+
+    private static final int MAGIC = 0x504C4159; // "PLAY"
+    private static final int HEADER_BYTES = 4096;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int CLOSED_OFFSET = 64; // + 4 * side
+    private static final int RING_HEADER_OFFSET = 128; // + 128 * ring
+    private static final int TAIL_OFFSET = 0;
+    private static final int HEAD_OFFSET = 64;
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES;
+    private static final int ALIGNMENT = Long.BYTES;
+    private static final int PADDING_RECORD = -1;
+
+    private static final int SPIN_LIMIT = 1_000;
+    private static final int YIELD_LIMIT = 1_100;
+    private static final long PARK_NANOS = 10_000;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final Path file;
+    private final boolean server;
+    private final MappedByteBuffer mapped;
+    private final int capacity;
+    private final int mask;
+    private final ByteBuffer outRing;
+    private final ByteBuffer inRing;
+    private final int outTailOffset;
+    private final int outHeadOffset;
+    private final int inTailOffset;
+    private final int inHeadOffset;
+    private final int peerClosedOffset;
+    private long outTail;
+    private int reservedBytes; // ring bytes of the record being written, see reserve()
+    private long inHead;
+
+    private SharedMemoryFrameChannel(Path file, boolean server, MappedByteBuffer mapped, int capacity) {
+        this.file = file;
+        this.server = server;
+        this.mapped = mapped;
+        this.capacity = capacity;
+        mask = capacity - 1;
+
+        int outRingIndex = server ? 1 : 0;
+        int inRingIndex = server ? 0 : 1;
+        outRing = mapped.slice(HEADER_BYTES + outRingIndex * capacity, capacity);
+        inRing = mapped.slice(HEADER_BYTES + inRingIndex * capacity, capacity);
+        outTailOffset = RING_HEADER_OFFSET + 128 * outRingIndex + TAIL_OFFSET;
+        outHeadOffset = RING_HEADER_OFFSET + 128 * outRingIndex + HEAD_OFFSET;
+        inTailOffset = RING_HEADER_OFFSET + 128 * inRingIndex + TAIL_OFFSET;
+        inHeadOffset = RING_HEADER_OFFSET + 128 * inRingIndex + HEAD_OFFSET;
+        peerClosedOffset = CLOSED_OFFSET + 4 * (server ? 0 : 1);
+        outTail = (long) LONGS.getAcquire(mapped, outTailOffset);
+        inHead = (long) LONGS.getAcquire(mapped, inHeadOffset);
+    }
+
+    /**
+     * Creates (or replaces) and initializes the shared memory file. Called by the server (responder).
+     *
+     * @param requestedCapacity bytes per ring, rounded up to a power of two
+     */
+    static SharedMemoryFrameChannel create(Path file, int requestedCapacity) throws IOException {
+        int capacity = HEADER_BYTES;
+        while (capacity < requestedCapacity) capacity <<= 1;
+
+        Files.deleteIfExists(file);
+        MappedByteBuffer mapped;
+        try (FileChannel fileChannel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            mapped = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + 2L * capacity);
+        }
+        INTS.setRelease(mapped, CAPACITY_OFFSET, capacity);
+        INTS.setRelease(mapped, MAGIC_OFFSET, MAGIC);
+        return new SharedMemoryFrameChannel(file, true, mapped, capacity);
+    }
+
+    /** Maps the shared memory file created by the server, waiting until it exists. Called by the client (initiator) */
+    static SharedMemoryFrameChannel attach(Path file) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(ATTACH_TIMEOUT_SECONDS);
+        while (true) {
+            if (Files.exists(file) && Files.size(file) > HEADER_BYTES) {
+                try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    MappedByteBuffer mapped = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, fileChannel.size());
+                    if ((int) INTS.getAcquire(mapped, MAGIC_OFFSET) == MAGIC) {
+                        return new SharedMemoryFrameChannel(file, false, mapped, (int) INTS.getAcquire(mapped, CAPACITY_OFFSET));
+                    }
+                }
+            }
+            if (System.nanoTime() > deadline) throw new IOException("Shared memory file " + file + " was not created in time");
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            if (Thread.interrupted()) throw new InterruptedIOException("Interrupted while waiting for " + file);
+        }
+    }
+
+    @Override
+    public void writeFrame(MessageBuffer frame) throws IOException {
+        int index = reserve(frame.length());
+        outRing.putInt(index, frame.length());
+        outRing.position(index + RECORD_HEADER_BYTES);
+        frame.writeTo(outRing);
+        publish();
+    }
+
+    @Override
+    public void writeFrame(ByteBuffer header, MessageBuffer payload) throws IOException {
+        int length = header.remaining() + payload.length();
+        int index = reserve(length);
+        outRing.putInt(index, length);
+        outRing.position(index + RECORD_HEADER_BYTES);
+        outRing.put(header);
+        payload.writeTo(outRing);
+        publish();
+    }
+
+    /**
+     * Waits until the ring has room for a record of length bytes (plus a padding record if it does not fit before the
+     * end of the ring) and returns the index to write it at. The record becomes visible to the peer with publish().
+     */
+    private int reserve(int length) throws IOException {
+        int recordBytes = align(RECORD_HEADER_BYTES + length);
+        if (recordBytes > capacity / 2) {
+            throw new IOException("Frame of " + length + " bytes does not fit into the shared memory ring of "
+                    + capacity + " bytes, use --protocol=delta or a larger --shm-capacity");
+        }
+        int index = (int) (outTail & mask);
+        int untilEnd = capacity - index;
+        int required = recordBytes > untilEnd ? untilEnd + recordBytes : recordBytes;
+
+        int idleCount = 0;
+        while (outTail + required - (long) LONGS.getAcquire(mapped, outHeadOffset) > capacity) {
+            if ((int) INTS.getAcquire(mapped, peerClosedOffset) != 0) throw new EOFException("The other player closed the connection");
+            idleCount = idle(idleCount);
+        }
+
+        reservedBytes = required;
+        if (recordBytes > untilEnd) {
+            outRing.putInt(index, PADDING_RECORD);
+            index = 0;
+        }
+        return index;
+    }
+
+    private void publish() {
+        outTail += reservedBytes;
+        LONGS.setRelease(mapped, outTailOffset, outTail);
+    }
+
+    @Override
+    public void readFrame(MessageBuffer frame) throws IOException {
+        while (true) {
+            int idleCount = 0;
+            while ((long) LONGS.getAcquire(mapped, inTailOffset) == inHead) {
+                if ((int) INTS.getAcquire(mapped, peerClosedOffset) != 0
+                        && (long) LONGS.getAcquire(mapped, inTailOffset) == inHead) {
+                    throw new EOFException("The other player closed the connection");
+                }
+                idleCount = idle(idleCount);
+            }
+
+            int index = (int) (inHead & mask);
+            int length = inRing.getInt(index);
+            if (length == PADDING_RECORD) {
+                inHead += capacity - index;
+                LONGS.setRelease(mapped, inHeadOffset, inHead);
+                continue;
+            }
+            inRing.position(index + RECORD_HEADER_BYTES);
+            frame.clear().append(inRing, length);
+            inHead += align(RECORD_HEADER_BYTES + length);
+            LONGS.setRelease(mapped, inHeadOffset, inHead);
+            return;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        INTS.setRelease(mapped, CLOSED_OFFSET + 4 * (server ? 1 : 0), 1);
+        if (server) Files.deleteIfExists(file);
+    }
+
+    private static int align(int bytes) {
+        return (bytes + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static int idle(int idleCount) throws InterruptedIOException {
+        if (Thread.interrupted()) throw new InterruptedIOException("Interrupted while waiting for the other player");
+        if (idleCount < SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else if (idleCount < YIELD_LIMIT) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+            return idleCount;
+        }
+        return idleCount + 1;
+    }
+
+}
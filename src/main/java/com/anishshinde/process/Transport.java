@@ -0,0 +1,23 @@
+package com.anishshinde.process;
+
+/**
+ * Selects how the two player processes are connected. Both processes must use the same transport.
+ */
+public enum Transport {
+
+    /** TCP over localhost:5001, read and written as selected by IoMode (original behaviour) */
+    TCP,
+
+    /**
+     * A memory-mapped file (in /dev/shm by default) holding one lock-free ring per direction. Only works when both
+     * processes run on the same host, which is always the case when App starts them, and bypasses the network stack.
+     */
+    SHARED_MEMORY,
+
+    /**
+     * A Unix domain socket at a file system path, read and written as selected by IoMode. Same-host only like
+     * SHARED_MEMORY, but still a socket: skips TCP/IP processing and needs no port, so games do not conflict.
+     */
+    UNIX_SOCKET
+
+}
@@ -0,0 +1,32 @@
+package com.anishshinde.process;
+
+/**
+ * Selects how the accumulated message is encoded on the wire between PlayerClient and PlayerServer.
+ * Both processes must use the same protocol.
+ */
+public enum WireProtocol {
+
+    /** Every frame carries the whole accumulated message (original behaviour); frames grow with every message */
+    FULL {
+        @Override
+        MessageCodec newCodec() {
+            return new FullMessageCodec();
+        }
+    },
+
+    /**
+     * Every frame carries only the text appended since the previous frame plus a sequence number, and
+     * periodically a checksum of the whole message; each side rebuilds the full message locally.
+     * Frames stay the same size for the whole game.
+     */
+    DELTA {
+        @Override
+        MessageCodec newCodec() {
+            return new DeltaMessageCodec();
+        }
+    };
+
+    /** @return a new codec with its own per-connection state */
+    abstract MessageCodec newCodec();
+
+}
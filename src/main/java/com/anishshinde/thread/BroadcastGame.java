@@ -0,0 +1,162 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.common.MessageBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.anishshinde.common.StopConditions.initiatorMaySend;
+import static com.anishshinde.common.StopConditions.initiatorStopConditionFulfilled;
+import static com.anishshinde.common.StopConditions.responderStopConditionFulfilled;
+
+/**
+ * One-to-many game of the multithreading mode: one initiator fans every message out to N responders.
+ *
+ * Responsibilities:
+ * - The initiator publishes "message n" once into a MulticastRing; every responder reads it with its own cursor,
+ *   answers it with "message n k" in a reply buffer of its own and releases it.
+ * - The initiator tracks the reply sequence of every responder (its cursor) and stops, by the same StopConditions
+ *   as a two-player game, once maxMessages messages have been sent and every responder has answered all of them.
+ *
+ * Developer Decisions:
+ * - A message is written once however many responders read it, so the cost of the initiator does not grow with
+ *   the responders, unlike copying the message into N mailboxes. The ring slots are preallocated messages reused
+ *   for every lap, so a round allocates nothing.
+ * - The message of the slowest responder bounds the game: with a window > 1 the initiator keeps up to 'window'
+ *   messages ahead of it (the ring holds at least 'window' messages), with 1 it waits for all replies per message.
+ * - Messages are independent like those of a pipelined two-player game, since N responders cannot all append to
+ *   the one shared message.
+ * - The initiator runs on the calling thread, every responder on a platform or virtual thread of its own
+ *   (ExecutionMode.EVENT_LOOP is rejected, since the players wait for the ring, and so are the wait strategies
+ *   that never park on virtual threads, see GameRunner). A failed responder fails the
+ *   game instead of leaving the initiator waiting for its replies.
+ * - Printing, metrics, the message pool and the journal of the options are not used; only the window and the
+ *   wait strategy (BLOCKING backs off like SLEEPING, see MulticastRing) apply.
+ */
+public final class BroadcastGame {
+
+    // "message n k", with room to spare
+    private static final int MESSAGE_CAPACITY = 64;
+
+    private final int responders;
+    private final int maxMessages;
+    private final int window;
+    private final WaitStrategy waitStrategy;
+    private final MulticastRing<MessageBuffer> ring;
+    private final List<MulticastRing<MessageBuffer>.Cursor> cursors = new ArrayList<>();
+    private final MessageBuffer[] lastReplies;
+    private volatile Throwable failure;
+
+    /**
+     * @param responders number of responders every message is sent to
+     * @param maxMessages messages the initiator sends and every responder answers
+     * @param options window and wait strategy of all players
+     */
+    public BroadcastGame(int responders, int maxMessages, PlayerOptions options) {
+        if (responders <= 0) throw new IllegalArgumentException("responders must be greater than 0");
+        if (maxMessages <= 0) throw new IllegalArgumentException("maxMessages must be greater than 0");
+
+        this.responders = responders;
+        this.maxMessages = maxMessages;
+        window = options.getWindow();
+        waitStrategy = options.getWaitStrategy();
+        ring = new MulticastRing<>(window, () -> new MessageBuffer(MESSAGE_CAPACITY));
+        lastReplies = new MessageBuffer[responders];
+        for (int responder = 0; responder < responders; responder++) {
+            cursors.add(ring.subscribe());
+            lastReplies[responder] = new MessageBuffer(MESSAGE_CAPACITY);
+        }
+    }
+
+    /**
+     * Plays the game: the initiator on the calling thread, the responders on threads of the given kind.
+     *
+     * @throws InterruptedException if interrupted while waiting for replies
+     * @throws IllegalArgumentException for EVENT_LOOP, or YIELDING or BUSY_SPIN combined with VIRTUAL
+     * @throws IllegalStateException if a responder failed
+     */
+    public void play(ExecutionMode executionMode) throws InterruptedException {
+        if (executionMode == ExecutionMode.EVENT_LOOP) {
+            throw new IllegalArgumentException("A broadcast game waits for its ring and cannot run on an event loop");
+        }
+        if (executionMode == ExecutionMode.VIRTUAL && !waitStrategy.parks()) {
+            throw new IllegalArgumentException(waitStrategy
+                    + " would occupy a carrier thread per waiting virtual thread, use BLOCKING or SLEEPING");
+        }
+        List<Future<?>> responderThreads = new ArrayList<>(responders);
+        try (ExecutorService executor = executionMode == ExecutionMode.VIRTUAL
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newThreadPerTaskExecutor(Thread.ofPlatform().factory())) {
+            for (int responder = 0; responder < responders; responder++) {
+                int index = responder;
+                responderThreads.add(executor.submit(() -> {
+                    try {
+                        respond(cursors.get(index), lastReplies[index]);
+                    } catch (Throwable e) {
+                        failure = e;
+                        throw e;
+                    }
+                    return null;
+                }));
+            }
+            try {
+                initiate();
+                for (Future<?> responder : responderThreads) responder.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A responder failed", e.getCause());
+            } finally {
+                // stops the responders if the initiator gave up; a no-op once they are done
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /** @return number of responders */
+    public int getResponders() {
+        return responders;
+    }
+
+    /** @return replies the slowest responder has sent so far */
+    public long getMinimumReplies() {
+        return ring.getMinimumConsumed();
+    }
+
+    /** @return the last reply of the given responder, once the game is over */
+    public MessageBuffer getLastReply(int responder) {
+        return lastReplies[responder];
+    }
+
+    private void initiate() throws InterruptedException {
+        int messagesSent = 0;
+        int idleCount = 0;
+        while (true) {
+            // a responder releases a message only after answering it, so its cursor is its reply sequence
+            int repliesReceived = (int) ring.getMinimumConsumed();
+            if (initiatorStopConditionFulfilled(repliesReceived, messagesSent, maxMessages)) return;
+            if (initiatorMaySend(messagesSent, repliesReceived, window, maxMessages)) {
+                ring.claim(waitStrategy).clear().append("message").appendCounter(messagesSent);
+                ring.publish();
+                messagesSent++;
+                idleCount = 0;
+                continue;
+            }
+            if (failure != null) throw new IllegalStateException("A responder failed", failure);
+            idleCount = waitStrategy.idle(idleCount);
+        }
+    }
+
+    private void respond(MulticastRing<MessageBuffer>.Cursor cursor, MessageBuffer reply) throws InterruptedException {
+        int responsesSent = 0;
+        do {
+            MessageBuffer message = cursor.take(waitStrategy);
+            // the message is shared by all responders, so the answer goes into this responder's own buffer
+            reply.clear().append(message).appendCounter(++responsesSent);
+            cursor.release();
+        } while (!responderStopConditionFulfilled(responsesSent, maxMessages));
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.anishshinde.thread;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One thread of an EventLoopGroup, dispatching the mailboxes of the PlayerActors living on it.
+ *
+ * Responsibilities:
+ * - Runs tasks submitted from other threads (e.g. starting a game) through execute().
+ * - Keeps the actors that have messages waiting in a ready queue and lets each of them handle up to
+ *   DISPATCH_BATCH messages per turn, so one busy game cannot starve the others on this loop.
+ *
+ * Developer Decisions:
+ * - Everything except execute() is only called on the loop thread, so the ready queue is a plain ArrayDeque and
+ *   scheduling an actor is a method call: no lock, no atomic operation and no context switch.
+ * - An idle loop parks until execute() unparks it; once a game runs, both of its players live on this loop and
+ *   wake each other up through the ready queue without parking.
+ * - A failing handler only fails its own game (see PlayerActor); the loop keeps serving all other games.
+ * - A loop created without a thread (see Tournament) is driven by runUntilDone() on the caller's thread instead,
+ *   e.g. a ForkJoinPool worker playing one game from start to finish.
+ */
+final class EventLoop implements Runnable {
+
+    // messages an actor handles before the next ready actor gets its turn
+    static final int DISPATCH_BATCH = 64;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<PlayerActor> ready = new ArrayDeque<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    EventLoop(String name) {
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Creates a loop without a thread of its own, driven by runUntilDone() */
+    EventLoop() {
+        thread = null;
+    }
+
+    /** Runs task on this loop; may be called from any thread */
+    void execute(Runnable task) {
+        tasks.add(task);
+        if (thread != null) LockSupport.unpark(thread);
+    }
+
+    /** Queues actor for its next turn. Must only be called on this loop */
+    void schedule(PlayerActor actor) {
+        ready.add(actor);
+    }
+
+    /** Stops the loop once the current turn is over and waits for its thread; unfinished games stay unfinished */
+    void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join();
+    }
+
+    /**
+     * Runs a loop without a thread of its own on the calling thread until game is done.
+     *
+     * @throws IllegalStateException if no player has anything left to do although the game is not over
+     */
+    void runUntilDone(Future<?> game) {
+        while (!game.isDone()) {
+            Runnable task;
+            while ((task = tasks.poll()) != null) task.run();
+
+            PlayerActor actor = ready.poll();
+            if (actor != null) {
+                actor.dispatch(DISPATCH_BATCH);
+            } else if (tasks.isEmpty() && !game.isDone()) {
+                throw new IllegalStateException("Game stalled, no player has a message to handle");
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            Runnable task;
+            while ((task = tasks.poll()) != null) task.run();
+
+            PlayerActor actor = ready.poll();
+            if (actor != null) {
+                actor.dispatch(DISPATCH_BATCH);
+            } else if (tasks.isEmpty()) {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.metrics.PlayerMetrics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed pool of event-loop threads running games of PlayerActors (ExecutionMode.EVENT_LOOP).
+ *
+ * Responsibilities:
+ * - Starts one EventLoop thread per core (or as many as requested).
+ * - startGame() creates the two players of a game as actors on one loop and starts the initiator.
+ *
+ * Developer Decisions:
+ * - Both players of a game are placed on the same loop, so a hop never crosses threads: it is a method dispatch
+ *   on a warm cache instead of a wake-up of another thread. Games are spread over the loops round-robin.
+ * - A waiting player costs its actor, two small queues and no thread, so the number of games is only limited
+ *   by memory. The price is cooperative scheduling: a handler must never block (see MessageHandler).
+ * - Loop threads are daemon threads, so a group that is never closed cannot keep the JVM alive.
+ */
+public final class EventLoopGroup implements AutoCloseable {
+
+    private final EventLoop[] loops;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+
+    /** Starts one event loop per available processor */
+    public EventLoopGroup() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /** @param loopCount number of event-loop threads */
+    public EventLoopGroup(int loopCount) {
+        if (loopCount <= 0) throw new IllegalArgumentException("loopCount must be greater than 0");
+        loops = new EventLoop[loopCount];
+        for (int index = 0; index < loopCount; index++) loops[index] = new EventLoop("event-loop-" + index);
+    }
+
+    /**
+     * Starts a game between a new initiator and a new responder on the next event loop.
+     *
+     * @param maxMessages messages of the game
+     * @param options settings of both players; mailbox and wait strategy are ignored
+     * @return future completing when both players are finished, or exceptionally if the game failed
+     */
+    public CompletableFuture<Void> startGame(String initiatorName, String responderName, int maxMessages,
+                                             PlayerOptions options) {
+        return startGame(initiatorName, responderName, maxMessages, options, null, null);
+    }
+
+    /**
+     * Like startGame(), merging the metrics of the players into initiators and responders before the game completes
+     *
+     * @param initiators aggregate of all initiators, or null; must be given together with responders if
+     *                   options has metrics switched on
+     */
+    CompletableFuture<Void> startGame(String initiatorName, String responderName, int maxMessages,
+                                      PlayerOptions options, PlayerMetrics initiators, PlayerMetrics responders) {
+        EventLoop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+        CompletableFuture<Void> game = new CompletableFuture<>();
+        PlayerActor player1 = new PlayerActor(initiatorName, true, maxMessages, options, loop, game);
+        PlayerActor player2 = new PlayerActor(responderName, false, maxMessages, options, loop, game);
+        player1.setOtherPlayer(player2);
+        player2.setOtherPlayer(player1);
+        if (initiators != null) {
+            player1.reportTo(initiators);
+            player2.reportTo(responders);
+        }
+        loop.execute(player1::start);
+        return game;
+    }
+
+    /** Stops all event loops; games still running are abandoned. An interrupt is kept for the caller */
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        for (EventLoop loop : loops) {
+            try {
+                loop.shutdown();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.anishshinde.thread;
+
+/**
+ * Selects the kind of thread a Player runs on (--execution=platform|virtual|event-loop), see GameRunner.
+ */
+public enum ExecutionMode {
+
+    /** One platform (OS) thread per player (original behaviour): a few thousand concurrent games at most */
+    PLATFORM,
+
+    /**
+     * One virtual thread per player: a blocked player only parks its virtual thread and frees the carrier thread,
+     * so hundreds of thousands of games can wait for messages at the same time
+     */
+    VIRTUAL,
+
+    /**
+     * No thread per player: both players of a game are PlayerActors on one thread of an EventLoopGroup
+     * (one per core), whose handlers never block, so a hop is a method dispatch without a context switch
+     */
+    EVENT_LOOP
+
+}
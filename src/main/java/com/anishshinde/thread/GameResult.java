@@ -0,0 +1,49 @@
+package com.anishshinde.thread;
+
+/**
+ * Outcome of one game of a Tournament.
+ *
+ * Developer Decisions:
+ * - Immutable and created on the worker thread that played the game, so a report can be read from any thread.
+ */
+public final class GameResult {
+
+    private final int game;
+    private final long durationNanos;
+    private final long messages;
+    private final int finalMessageLength;
+
+    GameResult(int game, long durationNanos, long messages, int finalMessageLength) {
+        this.game = game;
+        this.durationNanos = durationNanos;
+        this.messages = messages;
+        this.finalMessageLength = finalMessageLength;
+    }
+
+    /** @return index of the game in its tournament, from 0 */
+    public int getGame() {
+        return game;
+    }
+
+    /** @return time from the start of the initiator until both players were finished */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /** @return messages sent by both players together */
+    public long getMessages() {
+        return messages;
+    }
+
+    /** @return length of the last message the initiator received, i.e. the final payload of the game */
+    public int getFinalMessageLength() {
+        return finalMessageLength;
+    }
+
+    @Override
+    public String toString() {
+        return "game " + game + ": " + messages + " messages in " + durationNanos / 1_000 + " us, final message of "
+                + finalMessageLength + " characters";
+    }
+
+}
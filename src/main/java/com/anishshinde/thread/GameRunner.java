@@ -0,0 +1,135 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.metrics.PlayerMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs many games of the multithreading mode at the same time, each one a pair of Players.
+ *
+ * Responsibilities:
+ * - Creates and links 'pairs' independent player pairs and runs every Player on its own thread, either a platform
+ *   thread or a virtual thread (Executors.newVirtualThreadPerTaskExecutor()), or runs every game as a pair of
+ *   PlayerActors on an EventLoopGroup with one thread per core.
+ * - Waits until every game is over and reports the first failure (interrupting all other games).
+ *
+ * Developer Decisions:
+ * - Nothing on the messaging path pins a virtual thread to its carrier: the mailboxes block with
+ *   LinkedBlockingQueue (ReentrantLock/Condition) or LockSupport.park, the wait strategies sleep with
+ *   LockSupport.parkNanos, and no player code holds a monitor (synchronized) while it blocks.
+ *   Printing with System.out no longer pins either, since PrintStream uses an internal ReentrantLock.
+ *   This holds for the wait strategies that park (BLOCKING and SLEEPING, see WaitStrategy.parks()).
+ * - WaitStrategy.YIELDING and BUSY_SPIN are rejected for virtual threads: a spinning or yielding player never parks,
+ *   so it occupies a carrier thread (one per core) while it waits. With few cores its own partner may never get a
+ *   carrier to answer on, and the games livelock.
+ * - Players of game i are named "player1-i" and "player2-i", unless there is a single game, which keeps the
+ *   original names. With more than one game nothing is printed, since the lines of concurrent games would
+ *   interleave (and an AsyncConsole orders the lines of one game only).
+ * - With metrics switched on every player publishes its MXBean while its game runs and unregisters it when the
+ *   game is over; the metrics of all initiators and of all responders are merged into one PlayerMetrics per role
+ *   (see PlayerMetrics.add()) and returned, since one summary per game would not be readable for many games.
+ * - Players are waited for in the order they finish (ExecutorCompletionService), not in the order they started:
+ *   the partner of a failed player waits for a message forever, so the failure has to be seen first for all games
+ *   to be stopped.
+ * - EVENT_LOOP ignores the mailbox and wait strategy of the options, since no thread waits for a message.
+ * - Memory per game is two mailboxes plus the messages: for very many games keep maxMessages small and prefer
+ *   MailboxType.LINKED or a small RING capacity, since a RING mailbox preallocates its capacity. A MessagePool in
+ *   the options lets games reuse the messages of games that are over instead of allocating their own.
+ */
+public final class GameRunner {
+
+    private GameRunner() {}
+
+    /**
+     * Runs 'pairs' concurrent games and waits for all of them to finish.
+     *
+     * @param pairs number of games, each with an initiator and a responder
+     * @param maxMessages messages per game
+     * @param options settings shared by all players
+     * @param executionMode kind of thread each player runs on
+     * @return the merged metrics of all initiators and of all responders (in this order), or an empty list if
+     *         metrics are switched off
+     * @throws InterruptedException if interrupted while waiting for the games
+     * @throws IllegalArgumentException if pairs is not positive, or YIELDING or BUSY_SPIN is combined with VIRTUAL
+     * @throws IllegalStateException if a player failed
+     */
+    public static List<PlayerMetrics> runGames(int pairs, int maxMessages, PlayerOptions options, ExecutionMode executionMode)
+            throws InterruptedException {
+        if (pairs <= 0) throw new IllegalArgumentException("pairs must be greater than 0");
+        if (executionMode == ExecutionMode.VIRTUAL && !options.getWaitStrategy().parks()) {
+            throw new IllegalArgumentException(options.getWaitStrategy()
+                    + " would occupy a carrier thread per waiting virtual thread, use BLOCKING or SLEEPING");
+        }
+        PlayerOptions gameOptions = pairs > 1 ? options.withPrintMessages(false) : options;
+        PlayerMetrics initiators = options.isMetrics() ? new PlayerMetrics("initiators") : null;
+        PlayerMetrics responders = options.isMetrics() ? new PlayerMetrics("responders") : null;
+        if (executionMode == ExecutionMode.EVENT_LOOP) {
+            runEventLoopGames(pairs, maxMessages, gameOptions, initiators, responders);
+            return totals(initiators, responders);
+        }
+
+        List<Player> players = new ArrayList<>(2 * pairs);
+        ExecutorService executor = newExecutor(executionMode);
+        CompletionService<Void> finished = new ExecutorCompletionService<>(executor);
+        try {
+            for (int game = 0; game < pairs; game++) {
+                String suffix = pairs > 1 ? "-" + game : "";
+                Player player1 = new Player("player1" + suffix, true, maxMessages, gameOptions);
+                Player player2 = new Player("player2" + suffix, false, maxMessages, gameOptions);
+                player1.setOtherPlayer(player2);
+                player2.setOtherPlayer(player1);
+                players.add(player1);
+                players.add(player2);
+                finished.submit(player1, null);
+                finished.submit(player2, null);
+            }
+            for (int player = 0; player < players.size(); player++) finished.take().get();
+            if (initiators != null) {
+                for (Player player : players) (player.isInitiator() ? initiators : responders).add(player.getMetrics());
+            }
+            return totals(initiators, responders);
+        } catch (ExecutionException e) {
+            // the other player of the failed game would wait forever, so stop all games
+            executor.shutdownNow();
+            throw new IllegalStateException("A player failed", e.getCause());
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            throw e;
+        } finally {
+            executor.close();
+            for (Player player : players) player.close();
+        }
+    }
+
+    private static void runEventLoopGames(int pairs, int maxMessages, PlayerOptions options,
+                                          PlayerMetrics initiators, PlayerMetrics responders) throws InterruptedException {
+        List<CompletableFuture<Void>> games = new ArrayList<>(pairs);
+        try (EventLoopGroup group = new EventLoopGroup()) {
+            for (int game = 0; game < pairs; game++) {
+                String suffix = pairs > 1 ? "-" + game : "";
+                games.add(group.startGame("player1" + suffix, "player2" + suffix, maxMessages, options, initiators, responders));
+            }
+            for (CompletableFuture<Void> game : games) game.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A player failed", e.getCause());
+        }
+    }
+
+    private static List<PlayerMetrics> totals(PlayerMetrics initiators, PlayerMetrics responders) {
+        return initiators != null ? List.of(initiators, responders) : List.of();
+    }
+
+    private static ExecutorService newExecutor(ExecutionMode executionMode) {
+        return executionMode == ExecutionMode.VIRTUAL
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newThreadPerTaskExecutor(Thread.ofPlatform().factory());
+    }
+
+}
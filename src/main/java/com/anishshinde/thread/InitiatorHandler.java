@@ -0,0 +1,116 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.common.MessageBuffer;
+import com.anishshinde.common.StopCondition;
+import com.anishshinde.metrics.PlayerMetrics;
+
+import static com.anishshinde.common.StopConditions.initiatorMaySend;
+import static com.anishshinde.common.StopConditions.initiatorStopConditionFulfilled;
+import static com.anishshinde.thread.PlayerInitiator.PIPELINED_MESSAGE_CAPACITY;
+import static com.anishshinde.thread.PlayerInitiator.acquireMessage;
+import static com.anishshinde.thread.PlayerInitiator.recordRoundTrip;
+import static com.anishshinde.thread.PlayerInitiator.releaseMessage;
+import static com.anishshinde.thread.PrintCommunicationThreads.printCommunicationStarted;
+import static com.anishshinde.thread.PrintCommunicationThreads.printInitiatorMessage;
+
+/**
+ * Messaging logic of the initiator on an event loop: PlayerInitiator rewritten as a non-blocking message handler.
+ *
+ * Responsibilities:
+ * Sends the first message(s) when the game starts, and on every response sends the next message until the
+ * stop condition is met, then finishes the player.
+ *
+ * Developer Decisions:
+ * The loop of PlayerInitiator is turned inside out: where it would block in takeMessage(), this handler returns,
+ * and onMessage() continues with the response. The messages are the same as in the threaded game:
+ * one MessageBuffer per game extended in place for a window of 1, otherwise independent "message n" buffers
+ * in 'window' reusable slots, matched to their responses by identity. They are acquired from and released to the
+ * MessagePool of the options like in PlayerInitiator.
+ * A StopCondition is checked after every response and handed the round trips timed for it, as in PlayerInitiator:
+ * once it is met no further message is sent, and the game ends (PlayerActor.endGame()) as soon as the messages in
+ * flight are answered.
+ */
+final class InitiatorHandler implements MessageHandler {
+
+    private final PlayerActor player;
+    private int window;
+    private MessageBuffer[] inFlight;
+    private long[] sentAt;
+    private int messagesSent;
+    private int responsesReceived;
+    private StopCondition.Check check;
+    private long bytes;
+    private boolean stopping;
+
+    InitiatorHandler(PlayerActor player) {
+        this.player = player;
+    }
+
+    @Override
+    public void onStart() {
+        window = Math.min(player.getWindow(), player.getOtherPlayerWindow());
+        inFlight = new MessageBuffer[window];
+        sentAt = new long[window];
+        StopCondition stopCondition = player.getStopCondition();
+        check = stopCondition != null ? stopCondition.start() : null;
+        if (window == 1) {
+            // one buffer per game, extended in place by both players instead of concatenating Strings
+            inFlight[0] = acquireMessage(player.getMessagePool(),
+                    MessageBuffer.expectedGameLength(player.getMaxMessages()));
+        } else {
+            for (int slot = 0; slot < window; slot++) {
+                inFlight[slot] = acquireMessage(player.getMessagePool(), PIPELINED_MESSAGE_CAPACITY);
+            }
+        }
+
+        if (player.isPrintMessages()) printCommunicationStarted(player);
+        sendWhileCreditsLeft();
+    }
+
+    /**
+     * @throws IllegalStateException if a response does not answer the oldest message in flight
+     */
+    @Override
+    public void onMessage(MessageBuffer response) {
+        int slot = responsesReceived % window;
+        if (response != inFlight[slot]) {
+            throw new IllegalStateException("Response out of sequence, expected the response to message " + responsesReceived);
+        }
+        PlayerMetrics metrics = player.getMetrics();
+        if (metrics != null || StopCondition.samplesRoundTrip(check, responsesReceived)) {
+            recordRoundTrip(metrics, check, System.nanoTime() - sentAt[slot]);
+        }
+        responsesReceived++;
+        if (check != null) {
+            bytes += response.length();
+            stopping = stopping || check.isMet(responsesReceived, bytes);
+        }
+
+        if (initiatorStopConditionFulfilled(responsesReceived, messagesSent, player.getMaxMessages())
+                || (stopping && messagesSent == responsesReceived)) {
+            for (MessageBuffer message : inFlight) releaseMessage(player.getMessagePool(), message);
+            if (responsesReceived < player.getMaxMessages()) player.endGame();
+            player.finish();
+            return;
+        }
+        if (!stopping) sendWhileCreditsLeft();
+    }
+
+    private void sendWhileCreditsLeft() {
+        while (initiatorMaySend(messagesSent, responsesReceived, window, player.getMaxMessages())) {
+            int slot = messagesSent % window;
+            MessageBuffer message = window == 1 && messagesSent > 0
+                    ? inFlight[slot].appendCounter(messagesSent)
+                    : inFlight[slot].clear().append("message").appendCounter(messagesSent);
+            // print before sending, since the buffer belongs to the responder once it is sent
+            if (player.isPrintMessages()) printInitiatorMessage(player, messagesSent, message);
+            if (player.getMetrics() != null || StopCondition.samplesRoundTrip(check, messagesSent)) {
+                sentAt[slot] = System.nanoTime();
+            }
+            if (check != null) bytes += message.length();
+            player.sendMessage(message);
+            messagesSent++;
+        }
+    }
+
+}
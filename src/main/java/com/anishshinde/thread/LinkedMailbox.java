@@ -0,0 +1,46 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.common.MessageBuffer;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Mailbox backed by an unbounded LinkedBlockingQueue (the original behaviour of Player).
+ *
+ * Developer Decisions:
+ * - With the BLOCKING wait strategy take() is BlockingQueue.take(); every other strategy polls the queue
+ *   and waits between polls as the strategy decides.
+ */
+class LinkedMailbox implements Mailbox {
+
+    private final BlockingQueue<MessageBuffer> queue = new LinkedBlockingQueue<>();
+    private final WaitStrategy waitStrategy;
+
+    LinkedMailbox(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    @Override
+    public void put(MessageBuffer message) throws InterruptedException {
+        queue.put(message);
+    }
+
+    @Override
+    public MessageBuffer take() throws InterruptedException {
+        if (waitStrategy == WaitStrategy.BLOCKING) return queue.take();
+
+        MessageBuffer message;
+        int idleCount = 0;
+        while ((message = queue.poll()) == null) {
+            idleCount = waitStrategy.idle(idleCount);
+        }
+        return message;
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+}
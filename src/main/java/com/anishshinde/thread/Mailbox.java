@@ -0,0 +1,23 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.common.MessageBuffer;
+
+/**
+ * The incoming message queue of a Player. The other player is the only producer and the owning
+ * player the only consumer.
+ *
+ * Developer Decisions:
+ * - Package-private, since only Player decides which implementation backs its queue (see MailboxType).
+ */
+interface Mailbox {
+
+    /** Appends a message, waiting while the mailbox is full */
+    void put(MessageBuffer message) throws InterruptedException;
+
+    /** Removes and returns the oldest message, waiting until one is available */
+    MessageBuffer take() throws InterruptedException;
+
+    /** @return number of messages currently waiting in the mailbox */
+    int size();
+
+}
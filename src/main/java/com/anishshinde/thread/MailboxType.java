@@ -0,0 +1,14 @@
+package com.anishshinde.thread;
+
+/**
+ * Selects the data structure backing the mailbox (incoming message queue) of a Player.
+ */
+public enum MailboxType {
+
+    /** Unbounded LinkedBlockingQueue: allocates a node per message and locks on every put/take */
+    LINKED,
+
+    /** Bounded, preallocated single-producer/single-consumer ring: lock-free and allocation free per message */
+    RING
+
+}
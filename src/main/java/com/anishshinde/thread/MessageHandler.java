@@ -0,0 +1,17 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.common.MessageBuffer;
+
+/**
+ * Non-blocking game logic of a PlayerActor, called by its EventLoop (see InitiatorHandler and ResponderHandler).
+ * A handler must never block or sleep, since every other game on the same loop would wait with it.
+ */
+interface MessageHandler {
+
+    /** Called once when the game starts, e.g. to send the first messages */
+    void onStart();
+
+    /** Called for every message taken from the player's mailbox, in the order the messages were sent */
+    void onMessage(MessageBuffer message);
+
+}
@@ -0,0 +1,68 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.common.MessageBuffer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of reusable MessageBuffers for the multithreading mode, shared by any number of games.
+ *
+ * Responsibilities:
+ * - Hands out empty messages (acquire()) and takes back messages that are no longer needed (release()),
+ *   so games that follow each other reuse the same buffers instead of allocating new ones.
+ * - Counts the buffers it had to create, which shows whether the pool is large enough.
+ *
+ * Developer Decisions:
+ * - Within a game nothing needs pooling: a message is passed by reference and its ownership moves with
+ *   sendMessage()/takeMessage(), so the player that took it may extend it and send it back. Only the initiator,
+ *   which owns every message once its last response arrived, releases them at the end of the game.
+ * - A released buffer keeps its grown array, so once the pool is warm a game allocates no message memory at all.
+ * - Backed by an ArrayBlockingQueue: thread-safe for players on any thread, and unlike a linked queue it allocates
+ *   no node per release. It is touched once per game and message slot, not once per hop.
+ * - Bounded by maxPooled: a release into a full pool drops the buffer, so the pool never holds more memory than
+ *   the most messages in use at the same time (up to maxPooled).
+ */
+public final class MessagePool {
+
+    private final BlockingQueue<MessageBuffer> pooled;
+    private final AtomicLong created = new AtomicLong();
+
+    /** @param maxPooled most buffers kept for reuse, e.g. the number of games running at the same time */
+    public MessagePool(int maxPooled) {
+        if (maxPooled <= 0) throw new IllegalArgumentException("maxPooled must be greater than 0");
+        pooled = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    /**
+     * @param initialCapacity bytes a newly created buffer is presized for (see MessageBuffer.expectedGameLength());
+     *                        a pooled buffer keeps its capacity and grows on demand
+     * @return an empty message owned by the caller until it is sent or released
+     */
+    public MessageBuffer acquire(int initialCapacity) {
+        MessageBuffer message = pooled.poll();
+        if (message != null) return message;
+        created.incrementAndGet();
+        return new MessageBuffer(initialCapacity);
+    }
+
+    /**
+     * Returns a message to the pool. The caller must own it (e.g. the initiator after the last response arrived)
+     * and must not use it afterwards.
+     */
+    public void release(MessageBuffer message) {
+        pooled.offer(message.clear());
+    }
+
+    /** @return buffers created by acquire() because the pool was empty */
+    public long getCreated() {
+        return created.get();
+    }
+
+    /** @return buffers currently waiting in the pool */
+    public int getPooled() {
+        return pooled.size();
+    }
+
+}
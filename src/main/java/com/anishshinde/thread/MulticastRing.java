@@ -0,0 +1,178 @@
+package com.anishshinde.thread;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, preallocated ring for one producer thread publishing to any number of consumers, each reading every
+ * element with a cursor of its own (a multicast ring, as in the LMAX Disruptor).
+ *
+ * Responsibilities:
+ * - claim() hands the producer the slot of the next element once every cursor has released it, publish() makes
+ *   the element visible to all cursors at once.
+ * - Cursor.take() waits for the next published element, Cursor.release() hands its slot back to the producer.
+ *
+ * Developer Decisions:
+ * - An element is written once and read in place by every consumer, so a message to N consumers costs one write
+ *   and N reads instead of N copies into N queues. Consumers must therefore treat the element as read-only.
+ * - The elements are created up front by a factory and reused for every lap of the ring, so publishing allocates
+ *   nothing; the producer overwrites a slot only after the slowest cursor released it.
+ * - Every sequence (the producer's and each cursor's) is a counter in a cache line of its own, published with a
+ *   release store and read with an acquire load. The producer caches the slowest cursor and each cursor the last
+ *   published sequence, like the cached indices of SpscRingBuffer, so the shared lines are only re-read when the
+ *   cached value says the ring is full or empty.
+ * - Waiting is left to a WaitStrategy; BLOCKING cannot be woken up by a ring and backs off like SLEEPING.
+ * - Cursors must subscribe before the first element is published; a later cursor would start in the middle.
+ *
+ * @param <E> type of the elements
+ */
+public final class MulticastRing<E> {
+
+    private final Object[] slots;
+    private final int mask;
+    private final Sequence published = new Sequence();
+    private volatile Sequence[] consumed = new Sequence[0];
+    // producer only: lowest consumed sequence seen last time
+    private long cachedMinimum;
+
+    /**
+     * @param requestedCapacity elements the ring holds, rounded up to the next power of two
+     * @param factory creates the preallocated elements
+     */
+    public MulticastRing(int requestedCapacity, Supplier<E> factory) {
+        if (requestedCapacity <= 0) throw new IllegalArgumentException("capacity must be greater than 0");
+        if (requestedCapacity > 1 << 30) throw new IllegalArgumentException("capacity must not exceed 2^30");
+        int capacity = 1;
+        while (capacity < requestedCapacity) capacity <<= 1;
+        slots = new Object[capacity];
+        for (int slot = 0; slot < capacity; slot++) slots[slot] = factory.get();
+        mask = capacity - 1;
+    }
+
+    /** @return number of elements the ring can hold */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /** Adds a consumer that reads every element published from now on */
+    public synchronized Cursor subscribe() {
+        Sequence sequence = new Sequence();
+        sequence.setRelease(published.getAcquire());
+        Sequence[] cursors = Arrays.copyOf(consumed, consumed.length + 1);
+        cursors[cursors.length - 1] = sequence;
+        consumed = cursors;
+        return new Cursor(sequence);
+    }
+
+    /** @return elements published so far */
+    public long getPublished() {
+        return published.getAcquire();
+    }
+
+    /** @return elements released by the slowest cursor, or the published ones if there is no cursor */
+    public long getMinimumConsumed() {
+        long minimum = published.getAcquire();
+        for (Sequence sequence : consumed) minimum = Math.min(minimum, sequence.getAcquire());
+        return minimum;
+    }
+
+    /**
+     * Waits until the slot of the next element is free. Must only be called by the producer thread.
+     *
+     * @return the element to fill in before publish()
+     * @throws InterruptedException if interrupted while waiting for the slowest cursor
+     */
+    @SuppressWarnings("unchecked")
+    public E claim(WaitStrategy waitStrategy) throws InterruptedException {
+        long next = published.getPlain();
+        int idleCount = 0;
+        while (next - cachedMinimum > mask) {
+            cachedMinimum = getMinimumConsumed();
+            if (next - cachedMinimum <= mask) break;
+            idleCount = waitStrategy.idle(idleCount);
+        }
+        return (E) slots[(int) (next & mask)];
+    }
+
+    /** Publishes the element returned by the last claim() to all cursors. Must only be called by the producer thread */
+    public void publish() {
+        published.setRelease(published.getPlain() + 1);
+    }
+
+    /** Reading position of one consumer; must only be used by that consumer's thread */
+    public final class Cursor {
+
+        private final Sequence sequence;
+        private long cachedPublished;
+
+        private Cursor(Sequence sequence) {
+            this.sequence = sequence;
+            cachedPublished = sequence.getPlain();
+        }
+
+        /**
+         * Waits for the next element. The element stays valid until release().
+         *
+         * @throws InterruptedException if interrupted while waiting for the producer
+         */
+        @SuppressWarnings("unchecked")
+        public E take(WaitStrategy waitStrategy) throws InterruptedException {
+            long next = sequence.getPlain();
+            int idleCount = 0;
+            while (next >= cachedPublished) {
+                cachedPublished = published.getAcquire();
+                if (next < cachedPublished) break;
+                idleCount = waitStrategy.idle(idleCount);
+            }
+            return (E) slots[(int) (next & mask)];
+        }
+
+        /** Hands the slot of the element returned by take() back to the producer */
+        public void release() {
+            sequence.setRelease(sequence.getPlain() + 1);
+        }
+
+        /** @return elements this cursor has released */
+        public long getConsumed() {
+            return sequence.getAcquire();
+        }
+    }
+
+    /** A sequence counter padded to a cache line of its own (the JVM keeps superclass fields first) */
+    private static final class Sequence extends SequenceValue {
+        long p10, p11, p12, p13, p14, p15, p16;
+
+        long getPlain() {
+            return value;
+        }
+
+        long getAcquire() {
+            return (long) VALUE.getAcquire(this);
+        }
+
+        void setRelease(long newValue) {
+            VALUE.setRelease(this, newValue);
+        }
+    }
+
+    private static class SequencePadding {
+        long p00, p01, p02, p03, p04, p05, p06;
+    }
+
+    private static class SequenceValue extends SequencePadding {
+        long value;
+    }
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+}
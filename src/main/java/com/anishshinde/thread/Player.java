@@ -1,44 +1,101 @@
 package com.anishshinde.thread;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import com.anishshinde.common.AsyncConsole;
+import com.anishshinde.common.MessageBuffer;
+import com.anishshinde.common.MessageFlow;
+import com.anishshinde.common.StopCondition;
+import com.anishshinde.journal.MessageJournal;
+import com.anishshinde.metrics.MessageReceiveEvent;
+import com.anishshinde.metrics.MessageSendEvent;
+import com.anishshinde.metrics.PlayerMetrics;
 
 /**
  * Represents a player in a 2-Player messaging game.
  * Responsibilities:
- * - Each Player instance runs on a separate thread and communicates with the other Player via a BlockingQueue.
+ * - Each Player instance runs on a separate thread and communicates with the other Player via its Mailbox.
  * - The initiator sends the first message
  * - Handles sending and receiving messages through the queue in a thread-safe manner.
  *
  * Developer Decisions:
- * - The queue is private and only accessible through sendMessage() and takeMessage(), preventing misuse from other classes.
+ * - The mailbox is private and only accessible through sendMessage() and takeMessage(), preventing misuse from other classes.
+ * - Each mailbox has exactly one producer (the other player) and one consumer (this player), so besides the original
+ *   unbounded LinkedBlockingQueue it can be backed by a lock-free single-producer/single-consumer ring (see PlayerOptions).
  * - otherPlayer must be set exactly once before the run() method; attempting to change it later throws an exception.
  * - MESSAGE_DELAY_MS is static and final and not implemented in App.java class, as its purpose is to just make sure
  *   that the print statements are printed out in the terminal in the correct order. It in no way affects the logic
  *   of the program. This small delay is added because the execution of threads can be faster than terminal output,
  *   causing print statements to appear out of order.
+ * - Messages are MessageBuffers that are passed by reference: the receiving player owns the buffer and may append
+ *   to it, so the growing message is never copied between the players. Ownership moves explicitly: sendMessage()
+ *   hands the buffer over, takeMessage() takes it over. The initiator acquires the messages of a game and releases
+ *   them once all responses are back, from and to the MessagePool of the options if there is one; the hop itself
+ *   allocates nothing with a RING mailbox (a LINKED mailbox allocates a queue node per message).
+ * - With a window > 1 (see PlayerOptions) the initiator pipelines the game and keeps up to
+ *   min(own window, credits granted by the responder) messages in flight; see PlayerInitiator.
+ * - With metrics switched on (see PlayerOptions) sendMessage() and takeMessage() count messages, bytes and the
+ *   backlog of the mailbox in PlayerMetrics, registered as an MXBean; the initiator adds its round-trip latencies.
+ *   Whoever runs the game calls close() once it is over, which unregisters the MXBean (the PlayerMetrics object
+ *   stays readable, e.g. for a summary).
+ * - With a MessageJournal in the options sendMessage() and takeMessage() record every message in it (see
+ *   MessageJournal.Stream); a message is journaled before it is handed over, so its receipt is always journaled
+ *   after it. Journaling copies bytes into a mapped file and does no blocking I/O on the player's thread.
+ * - sendMessage() and takeMessage() emit JFR events (MessageSendEvent, MessageReceiveEvent) with the time spent
+ *   blocked; they are disabled by default and cost next to nothing until a recording enables them.
+ * - printMessages (see PlayerOptions) can be switched off (e.g. for benchmarks); since MESSAGE_DELAY_MS only exists to keep the
+ *   printed lines in order, the delay is skipped as well when nothing is printed, or when the lines are published to
+ *   an AsyncConsole that orders them itself.
+ * - With a StopCondition in the options the initiator may end the game before maxMessages (see PlayerInitiator).
+ *   It tells the responder with endGame(), which puts the END_OF_GAME marker into the responder's mailbox; the
+ *   marker is not a message, so it is neither counted, journaled nor traced, and takeMessage() returns null for it.
+ * - An initiator published through a PlayerPublisher only sends a message once its subscriber has asked for the
+ *   response (see MessageFlow), so the game runs at the pace of the subscriber.
  * - Lombok is not used to avoid introducing 3rd-party dependencies (as per project requirements),
  *   so simple getters are manually provided.
  */
-public class Player implements Runnable {
+public class Player implements Runnable, AutoCloseable {
 
     // small delay to ensure messages are printed in the correct order in the terminal
     public static final int MESSAGE_DELAY_MS = 20;
 
+    // put into the other player's mailbox by endGame(), never sent as a message
+    static final MessageBuffer END_OF_GAME = new MessageBuffer(0);
+
     private final String playerName;
     private final boolean initiator;
     private final int maxMessages;
-    private final BlockingQueue<String> queue;
+    private final boolean printMessages;
+    private final int window;
+    private final AsyncConsole console;
+    private final Mailbox mailbox;
+    private final PlayerMetrics metrics;
+    private final MessagePool messagePool;
+    private final MessageJournal journal;
+    private final StopCondition stopCondition;
+    private MessageJournal.Stream journalStream;
+    private MessageFlow flow;
     private Player otherPlayer;
+    private long messagesSent;
+    private long messagesReceived;
 
     public Player(String playerName, boolean initiator, int maxMessages) {
+        this(playerName, initiator, maxMessages, PlayerOptions.defaults());
+    }
+
+    public Player(String playerName, boolean initiator, int maxMessages, PlayerOptions options) {
         // Ensure maxMessages is greater than zero to avoid unexpected behavior
         if (maxMessages <= 0) throw new IllegalArgumentException("maxMessages must be greater than 0");
 
         this.playerName = playerName;
         this.initiator = initiator;
         this.maxMessages = maxMessages;
-        queue = new LinkedBlockingQueue<>();
+        printMessages = options.isPrintMessages();
+        window = options.getWindow();
+        console = options.getConsole();
+        mailbox = options.createMailbox();
+        metrics = options.isMetrics() ? new PlayerMetrics(playerName).register() : null;
+        messagePool = options.getMessagePool();
+        journal = options.getJournal();
+        stopCondition = options.getStopCondition();
     }
 
     /** @return name of this player*/
@@ -51,11 +108,51 @@ public class Player implements Runnable {
         return maxMessages;
     }
 
+    /** @return true if exchanged messages are printed to the terminal (and delayed by MESSAGE_DELAY_MS)*/
+    public boolean isPrintMessages(){
+        return printMessages;
+    }
+
+    /** @return console this player prints through, or null if it prints directly to System.out*/
+    public AsyncConsole getConsole(){
+        return console;
+    }
+
+    /** @return metrics recorded by this player, or null if metrics are switched off (see PlayerOptions)*/
+    public PlayerMetrics getMetrics(){
+        return metrics;
+    }
+
+    /** @return pool the initiator acquires its messages from, or null if every game allocates its own*/
+    public MessagePool getMessagePool(){
+        return messagePool;
+    }
+
+    /** @return messages this player may have in flight (initiator), or credits it grants the other player (responder)*/
+    public int getWindow(){
+        return window;
+    }
+
+    /** @return budget after which this initiator ends the game early, or null if it runs to maxMessages*/
+    public StopCondition getStopCondition(){
+        return stopCondition;
+    }
+
     /** @return true if this player is an initiator*/
     public boolean isInitiator(){
         return initiator;
     }
 
+    /** @return the subscription this initiator publishes its responses to, or null if it is not published */
+    MessageFlow getFlow(){
+        return flow;
+    }
+
+    /** Publishes the responses this initiator receives to flow; must be called before run() */
+    void publishTo(MessageFlow flow){
+        this.flow = flow;
+    }
+
     /**
      * Sets the other player instance for communication.
      * otherPlayer must be set exactly once before run(), further calls will throw an exception
@@ -67,6 +164,11 @@ public class Player implements Runnable {
             throw new IllegalStateException("Other player already set, cannot change");
         }
         this.otherPlayer = otherPlayer;
+        if (journal != null) {
+            // both players of a game journal under the game id of whichever player was linked first
+            int game = otherPlayer.journalStream != null ? otherPlayer.journalStream.getGame() : journal.nextGame();
+            journalStream = journal.stream(playerName, game);
+        }
     }
 
     /** @return name of otherPlayer*/
@@ -74,24 +176,59 @@ public class Player implements Runnable {
         return otherPlayer.playerName;
     }
 
+    /** @return credits granted by otherPlayer, i.e. how many messages it accepts before answering the first one*/
+    public int getOtherPlayerWindow(){
+        return otherPlayer.window;
+    }
+
     /**
-     * Sends a message to the queue of otherPlayer. Blocks if the queue is full.
+     * Sends a message to the mailbox of otherPlayer. Blocks if the mailbox is full.
      *
-     * @param message the message to be sent
+     * @param message the message to be sent; the sender must not modify it afterwards
      * @throws InterruptedException if the thread is interrupted while waiting
      */
-    public void sendMessage(String message) throws InterruptedException {
-        otherPlayer.queue.put(message);
+    public void sendMessage(MessageBuffer message) throws InterruptedException {
+        // read before handing over the buffer, the other player may append to it right away
+        int length = message.length();
+        if (metrics != null) metrics.recordSent(length);
+        if (journalStream != null) journalStream.sent(message);
+        MessageSendEvent event = new MessageSendEvent();
+        event.begin();
+        otherPlayer.mailbox.put(message);
+        event.complete(playerName, ++messagesSent, length);
     }
 
     /**
-     * Retrieves and removes the next message from this player's queue, blocking
-     * if necessary until a message is available
-     * @return the message received from otherPlayer
+     * Tells otherPlayer that the game has ended before maxMessages were exchanged, so its next takeMessage()
+     * returns null. Used by an initiator whose StopCondition is met.
+     *
      * @throws InterruptedException if the thread is interrupted while waiting
      */
-    public String takeMessage() throws InterruptedException {
-        return queue.take();
+    void endGame() throws InterruptedException {
+        otherPlayer.mailbox.put(END_OF_GAME);
+    }
+
+    /**
+     * Retrieves and removes the next message from this player's mailbox, waiting
+     * if necessary until a message is available (how it waits is decided by the WaitStrategy in PlayerOptions)
+     * @return the message received from otherPlayer, or null if otherPlayer ended the game early (see endGame())
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public MessageBuffer takeMessage() throws InterruptedException {
+        MessageReceiveEvent event = new MessageReceiveEvent();
+        event.begin();
+        MessageBuffer message = mailbox.take();
+        if (message == END_OF_GAME) return null;
+        event.complete(playerName, ++messagesReceived, message.length());
+        if (metrics != null) metrics.recordReceived(message.length(), mailbox.size());
+        if (journalStream != null) journalStream.received(message);
+        return message;
+    }
+
+    /** Unregisters the MXBean of this player's metrics, if any; call once the game is over */
+    @Override
+    public void close() {
+        if (metrics != null) metrics.unregister();
     }
 
     /**
@@ -0,0 +1,238 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.common.AsyncConsole;
+import com.anishshinde.common.MessageBuffer;
+import com.anishshinde.common.StopCondition;
+import com.anishshinde.journal.MessageJournal;
+import com.anishshinde.metrics.MessageReceiveEvent;
+import com.anishshinde.metrics.MessageSendEvent;
+import com.anishshinde.metrics.PlayerMetrics;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A player of the event-loop engine (ExecutionMode.EVENT_LOOP): the counterpart of Player without a thread of its own.
+ *
+ * Responsibilities:
+ * - Owns a mailbox and a MessageHandler (InitiatorHandler or ResponderHandler) holding the game logic.
+ * - sendMessage() puts a message into the other player's mailbox and schedules that player on the EventLoop;
+ *   the loop later hands the message to its handler.
+ * - Completes the game's future once both players are finished, or fails it if a handler throws.
+ *
+ * Developer Decisions:
+ * - Both players of a game live on the same EventLoop (see EventLoopGroup), and an actor is only touched by that
+ *   loop thread once the game has started. The mailbox is therefore a plain ArrayDeque, and a hop is a method
+ *   call plus a ready-queue entry instead of a blocking hand-over between two threads.
+ * - Messages are MessageBuffers passed by reference, exactly like Player; the receiver owns the buffer.
+ * - The options of Player apply (including the MessagePool), except mailbox and wait strategy: there is no blocked
+ *   thread to wait.
+ * - Printing needs no MESSAGE_DELAY_MS: both players print on the same loop thread, so their lines are in order.
+ * - Metrics, JFR events and the MessageJournal are recorded as in Player; the queue depth is the backlog of this actor's mailbox.
+ *   Once the game is over (completed or failed) both actors unregister their metrics MXBeans.
+ * - An initiator that ends its game early (see StopCondition) delivers Player.END_OF_GAME with endGame(); the
+ *   responder finishes when it is dispatched, without handing it to its handler.
+ */
+final class PlayerActor {
+
+    private final String playerName;
+    private final boolean initiator;
+    private final int maxMessages;
+    private final boolean printMessages;
+    private final int window;
+    private final AsyncConsole console;
+    private final PlayerMetrics metrics;
+    private final MessagePool messagePool;
+    private final MessageJournal journal;
+    private final StopCondition stopCondition;
+    private MessageJournal.Stream journalStream;
+    private final EventLoop loop;
+    private final CompletableFuture<Void> game;
+    private final ArrayDeque<MessageBuffer> mailbox = new ArrayDeque<>();
+    private final MessageHandler handler;
+    private PlayerActor otherPlayer;
+    private PlayerMetrics metricsTotal;
+    private boolean scheduled;
+    private boolean finished;
+    private long messagesSent;
+    private long messagesReceived;
+    private int lastMessageLength;
+
+    PlayerActor(String playerName, boolean initiator, int maxMessages, PlayerOptions options,
+                EventLoop loop, CompletableFuture<Void> game) {
+        if (maxMessages <= 0) throw new IllegalArgumentException("maxMessages must be greater than 0");
+
+        this.playerName = playerName;
+        this.initiator = initiator;
+        this.maxMessages = maxMessages;
+        printMessages = options.isPrintMessages();
+        window = options.getWindow();
+        console = options.getConsole();
+        metrics = options.isMetrics() ? new PlayerMetrics(playerName).register() : null;
+        messagePool = options.getMessagePool();
+        journal = options.getJournal();
+        stopCondition = options.getStopCondition();
+        this.loop = loop;
+        this.game = game;
+        handler = initiator ? new InitiatorHandler(this) : new ResponderHandler(this);
+        if (metrics != null) game.whenComplete((result, failure) -> metrics.unregister());
+    }
+
+    String getPlayerName() {
+        return playerName;
+    }
+
+    boolean isInitiator() {
+        return initiator;
+    }
+
+    int getMaxMessages() {
+        return maxMessages;
+    }
+
+    boolean isPrintMessages() {
+        return printMessages;
+    }
+
+    int getWindow() {
+        return window;
+    }
+
+    AsyncConsole getConsole() {
+        return console;
+    }
+
+    PlayerMetrics getMetrics() {
+        return metrics;
+    }
+
+    MessagePool getMessagePool() {
+        return messagePool;
+    }
+
+    StopCondition getStopCondition() {
+        return stopCondition;
+    }
+
+    /** @return messages this player has sent so far */
+    long getMessagesSent() {
+        return messagesSent;
+    }
+
+    /** @return length of the message this player received last, e.g. the final message of the game for the initiator */
+    int getLastMessageLength() {
+        return lastMessageLength;
+    }
+
+    /** Links this player with the other player of its game; must be called exactly once before start() */
+    void setOtherPlayer(PlayerActor otherPlayer) {
+        if (this.otherPlayer != null) {
+            throw new IllegalStateException("Other player already set, cannot change");
+        }
+        if (otherPlayer.loop != loop) throw new IllegalArgumentException("Both players must live on the same event loop");
+        this.otherPlayer = otherPlayer;
+        if (journal != null) {
+            // both players of a game journal under the game id of whichever player was linked first
+            int game = otherPlayer.journalStream != null ? otherPlayer.journalStream.getGame() : journal.nextGame();
+            journalStream = journal.stream(playerName, game);
+        }
+    }
+
+    String getOtherPlayerName() {
+        return otherPlayer.playerName;
+    }
+
+    int getOtherPlayerWindow() {
+        return otherPlayer.window;
+    }
+
+    /** Starts the game logic of this player. Must be called on its event loop */
+    void start() {
+        try {
+            handler.onStart();
+        } catch (RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Puts a message into the mailbox of otherPlayer and schedules it, never blocks.
+     *
+     * @param message the message to be sent; the sender must not modify it afterwards
+     */
+    void sendMessage(MessageBuffer message) {
+        int length = message.length();
+        if (metrics != null) metrics.recordSent(length);
+        if (journalStream != null) journalStream.sent(message);
+        MessageSendEvent event = new MessageSendEvent();
+        event.begin();
+        otherPlayer.deliver(message);
+        event.complete(playerName, ++messagesSent, length);
+    }
+
+    /** Tells otherPlayer that the game has ended before maxMessages were exchanged, so it finishes as well */
+    void endGame() {
+        otherPlayer.deliver(Player.END_OF_GAME);
+    }
+
+    /** Merges this player's metrics into total once the game has completed; requires metrics to be switched on */
+    void reportTo(PlayerMetrics total) {
+        metricsTotal = total;
+    }
+
+    /** Marks this player as finished; the game completes once both players are */
+    void finish() {
+        finished = true;
+        if (!otherPlayer.finished) return;
+        // both players are done, so their metrics are final and are merged before anyone sees the game complete
+        if (metricsTotal != null) metricsTotal.add(metrics);
+        if (otherPlayer.metricsTotal != null) otherPlayer.metricsTotal.add(otherPlayer.metrics);
+        game.complete(null);
+    }
+
+    /**
+     * Hands up to 'batch' waiting messages to the handler and schedules this player again if more are waiting.
+     * Called by the event loop only.
+     */
+    void dispatch(int batch) {
+        scheduled = false;
+        try {
+            for (int handled = 0; handled < batch && !mailbox.isEmpty(); handled++) {
+                MessageReceiveEvent event = new MessageReceiveEvent();
+                event.begin();
+                MessageBuffer message = mailbox.poll();
+                if (message == Player.END_OF_GAME) {
+                    finish();
+                    continue;
+                }
+                event.complete(playerName, ++messagesReceived, message.length());
+                lastMessageLength = message.length();
+                if (metrics != null) metrics.recordReceived(message.length(), mailbox.size());
+                if (journalStream != null) journalStream.received(message);
+                handler.onMessage(message);
+            }
+        } catch (RuntimeException e) {
+            fail(e);
+            return;
+        }
+        if (!mailbox.isEmpty()) schedule();
+    }
+
+    private void deliver(MessageBuffer message) {
+        mailbox.add(message);
+        if (!scheduled) schedule();
+    }
+
+    private void schedule() {
+        scheduled = true;
+        loop.schedule(this);
+    }
+
+    private void fail(RuntimeException e) {
+        // the game is over: drop what is left, so neither player is dispatched again
+        mailbox.clear();
+        otherPlayer.mailbox.clear();
+        game.completeExceptionally(e);
+    }
+
+}
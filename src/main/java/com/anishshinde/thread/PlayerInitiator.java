@@ -1,7 +1,14 @@
 package com.anishshinde.thread;
 
-import static com.anishshinde.thread.Player.MESSAGE_DELAY_MS;
+import com.anishshinde.common.MessageBuffer;
+import com.anishshinde.common.MessageFlow;
+import com.anishshinde.common.StopCondition;
+import com.anishshinde.metrics.PlayerMetrics;
+
+import static com.anishshinde.thread.PrintCommunicationThreads.awaitDirectOutput;
+import static com.anishshinde.thread.PrintCommunicationThreads.printCommunicationStarted;
 import static com.anishshinde.thread.PrintCommunicationThreads.printInitiatorMessage;
+import static com.anishshinde.common.StopConditions.initiatorMaySend;
 import static com.anishshinde.common.StopConditions.initiatorStopConditionFulfilled;
 
 /**
@@ -12,11 +19,37 @@ import static com.anishshinde.common.StopConditions.initiatorStopConditionFulfil
  * waiting for responses, and sending subsequent messages until the stop condition is met.
  *
  * Developer Decisions:
- * Using String instead of StringBuilder for simplicity, otherwise StringBuilder is more
- * efficient for multiple concatenations
+ * The message is a MessageBuffer created once per game (presized for maxMessages) and extended in place
+ * by both players, so a hop appends a few digits instead of copying the whole, ever-growing String.
+ * The printed text is identical to the former String concatenation.
+ *
+ * With a window > 1 the game is pipelined instead: every message is independent ("message n", answered as
+ * "message n k"), so up to 'window' of them can be in flight before the first response arrives.
+ * The responder grants the credits (its own window), every response returns one.
+ * Each in-flight message occupies the slot 'sequence % window' and the slot's buffer is reused once its response
+ * has arrived, so a response is matched to its request by identity and pipelining allocates nothing per message.
+ *
+ * With metrics switched on the initiator records the round trip of every message (send until its response is
+ * taken) in the player's PlayerMetrics; otherwise System.nanoTime() is only called for the round trips a
+ * StopCondition samples (one message per StopCondition.SLO_BLOCK), and not at all without one.
+ *
+ * When the player is published (see PlayerPublisher) every response is emitted to its MessageFlow, and a message is
+ * only sent once the subscriber has asked for its response; a cancelled subscription ends the game early.
+ *
+ * With a StopCondition the initiator asks its Check after every response whether the game should end early,
+ * passing the payload lengths it sent and received (only added up when there is a check) and any round trip it
+ * timed (see StopCondition.Check.roundTrip()). A stop-and-wait game
+ * ends right away; a pipelined one stops sending and ends once the messages in flight are answered. Either way
+ * the responder is told with Player.endGame().
+ *
+ * The buffers are acquired from the player (its MessagePool, if any) at the start and released once every response
+ * is back, since then no message of the game is in flight any more.
  */
 public class PlayerInitiator {
 
+    // "message n k" of a pipelined game, with room to spare
+    static final int PIPELINED_MESSAGE_CAPACITY = 64;
+
     private final Player player;
     private int messagesSent;
     private int responsesReceived;
@@ -30,37 +63,153 @@ public class PlayerInitiator {
 
     /**
      * Starts the initiator player's messaging loop where the initiator sends the first message,
-     * and then waits until it receives back a response. One receiving a response, it again concatenates
-     * the received message with its own and sends back. This process is repeated until pre-defined
+     * and then waits until it receives back a response. One receiving a response, it again appends
+     * its own counter to the received message and sends it back. This process is repeated until pre-defined
      * number of messages have been sent.
      *
      * A small delay (MESSAGE_DELAY_MS) is added to ensure the console prints messages
      * in the intended order, as thread execution can be faster than terminal output.
+     * Printing and the delay are both skipped when the player does not print messages, and the delay is skipped
+     * when the player prints through an AsyncConsole.
      *
      * @throws InterruptedException if the thread is interrupted while waiting
      */
     public void startPlayerInitiator() throws InterruptedException {
-        // use String for simplicity, otherwise StringBuilder is more efficient for multiple concatenations
-        String message;
+        int window = Math.min(player.getWindow(), player.getOtherPlayerWindow());
+        if (window > 1) {
+            startPipelinedInitiator(window);
+            return;
+        }
+
+        PlayerMetrics metrics = player.getMetrics();
+        MessageFlow flow = player.getFlow();
+        StopCondition.Check check = startCheck();
+        long bytes = 0;
+        if (flow != null && !flow.awaitDemand()) return;
+        // one buffer per game, extended in place by both players instead of concatenating Strings
+        MessageBuffer message = acquireMessage(player.getMessagePool(),
+                MessageBuffer.expectedGameLength(player.getMaxMessages()));
 
         // send initial message
-        message = "message 0";
+        message.append("message").appendCounter(0);
+        // print before sending, since the buffer belongs to the responder once it is sent
+        if (player.isPrintMessages()) {
+            printCommunicationStarted(player);
+            printInitiatorMessage(player, messagesSent, message);
+        }
+        boolean timed = metrics != null || StopCondition.samplesRoundTrip(check, messagesSent);
+        long sentAt = timed ? System.nanoTime() : 0;
+        if (check != null) bytes += message.length();
         player.sendMessage(message);
-        System.out.println("Player communication started");
-        printInitiatorMessage(player, message);
         messagesSent++;
 
         while (true) {
             message = player.takeMessage();
-            Thread.sleep(MESSAGE_DELAY_MS);
+            if (timed) recordRoundTrip(metrics, check, System.nanoTime() - sentAt);
+            awaitDirectOutput(player);
 
             responsesReceived++;
-            if (initiatorStopConditionFulfilled(responsesReceived, messagesSent, player.getMaxMessages())) break;
-            message = message + " " + messagesSent;
+            if (flow != null) flow.emit(message);
+            if (check != null) bytes += message.length();
+            boolean finished = initiatorStopConditionFulfilled(responsesReceived, messagesSent, player.getMaxMessages());
+            if (!finished && check != null && check.isMet(responsesReceived, bytes)) {
+                player.endGame();
+                finished = true;
+            }
+            if (finished || (flow != null && !flow.awaitDemand())) {
+                // the last response is back (or nobody wants the next one), so this player owns the message again
+                releaseMessage(player.getMessagePool(), message);
+                break;
+            }
+            message.appendCounter(messagesSent);
+            if (player.isPrintMessages()) printInitiatorMessage(player, messagesSent, message);
+            timed = metrics != null || StopCondition.samplesRoundTrip(check, messagesSent);
+            if (timed) sentAt = System.nanoTime();
+            if (check != null) bytes += message.length();
             player.sendMessage(message);
-            printInitiatorMessage(player, message);
             messagesSent++;
         }
     }
 
+    /**
+     * Pipelined messaging loop: sends new messages as long as credits are left, then waits for the oldest response.
+     *
+     * @param window messages that may be in flight at once
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @throws IllegalStateException if a response does not answer the oldest message in flight
+     */
+    private void startPipelinedInitiator(int window) throws InterruptedException {
+        PlayerMetrics metrics = player.getMetrics();
+        MessageFlow flow = player.getFlow();
+        StopCondition.Check check = startCheck();
+        long bytes = 0;
+        boolean stopping = false;
+        MessageBuffer[] inFlight = new MessageBuffer[window];
+        long[] sentAt = new long[window];
+        for (int slot = 0; slot < window; slot++) {
+            inFlight[slot] = acquireMessage(player.getMessagePool(), PIPELINED_MESSAGE_CAPACITY);
+        }
+
+        if (player.isPrintMessages()) printCommunicationStarted(player);
+        while (!initiatorStopConditionFulfilled(responsesReceived, messagesSent, player.getMaxMessages())
+                && !(stopping && messagesSent == responsesReceived)) {
+            while (!stopping && initiatorMaySend(messagesSent, responsesReceived, window, player.getMaxMessages())
+                    && (flow == null || flow.hasDemand(messagesSent - responsesReceived))) {
+                MessageBuffer message = inFlight[messagesSent % window].clear().append("message").appendCounter(messagesSent);
+                if (player.isPrintMessages()) printInitiatorMessage(player, messagesSent, message);
+                if (metrics != null || StopCondition.samplesRoundTrip(check, messagesSent)) {
+                    sentAt[messagesSent % window] = System.nanoTime();
+                }
+                if (check != null) bytes += message.length();
+                player.sendMessage(message);
+                messagesSent++;
+            }
+
+            if (messagesSent == responsesReceived) {
+                // only reached with a flow: nothing in flight and no demand, so wait for the subscriber
+                if (!flow.awaitDemand()) break;
+                continue;
+            }
+            MessageBuffer response = player.takeMessage();
+            if (response != inFlight[responsesReceived % window]) {
+                throw new IllegalStateException("Response out of sequence, expected the response to message " + responsesReceived);
+            }
+            if (metrics != null || StopCondition.samplesRoundTrip(check, responsesReceived)) {
+                recordRoundTrip(metrics, check, System.nanoTime() - sentAt[responsesReceived % window]);
+            }
+            awaitDirectOutput(player);
+            responsesReceived++;
+            if (flow != null) flow.emit(response);
+            if (check != null) {
+                bytes += response.length();
+                stopping = stopping || check.isMet(responsesReceived, bytes);
+            }
+        }
+        // with every response back, a game that stopped early still has to tell the responder
+        if (stopping && responsesReceived < player.getMaxMessages()) player.endGame();
+        for (MessageBuffer message : inFlight) releaseMessage(player.getMessagePool(), message);
+    }
+
+    /** Hands a timed round trip to the metrics and the check, whichever of them is there */
+    static void recordRoundTrip(PlayerMetrics metrics, StopCondition.Check check, long nanos) {
+        if (metrics != null) metrics.recordRoundTrip(nanos);
+        if (check != null) check.roundTrip(nanos);
+    }
+
+    /** @return a check of the player's StopCondition for a game starting now, or null if it has none */
+    private StopCondition.Check startCheck() {
+        StopCondition stopCondition = player.getStopCondition();
+        return stopCondition != null ? stopCondition.start() : null;
+    }
+
+    /** @return an empty message from the pool, or a new one presized for initialCapacity bytes if pool is null */
+    static MessageBuffer acquireMessage(MessagePool pool, int initialCapacity) {
+        return pool != null ? pool.acquire(initialCapacity) : new MessageBuffer(initialCapacity);
+    }
+
+    /** Returns a message the initiator owns again (no response outstanding) to the pool, if there is one */
+    static void releaseMessage(MessagePool pool, MessageBuffer message) {
+        if (pool != null) pool.release(message);
+    }
+
 }
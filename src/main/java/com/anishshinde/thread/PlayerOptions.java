@@ -0,0 +1,212 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.common.AsyncConsole;
+import com.anishshinde.common.StopCondition;
+import com.anishshinde.journal.MessageJournal;
+
+/**
+ * Optional settings of a Player that are chosen once at construction.
+ *
+ * Responsibilities:
+ * - Holds everything about a player that is not part of the game itself (name, role, maxMessages),
+ *   e.g. whether messages are printed, which mailbox implementation is used, how a player waits for messages and
+ *   how many messages may be in flight at once.
+ *
+ * Developer Decisions:
+ * - Instances are immutable; every with*() method returns a modified copy, so one instance can be shared
+ *   by both players of a game.
+ * - defaults() reproduces the original behaviour of Player: messages are printed and the mailbox is an
+ *   unbounded LinkedBlockingQueue that blocks in take(), and the game is stop-and-wait (window of 1).
+ *   Without a MessagePool every game allocates its own messages, as before, and without a MessageJournal nothing
+ *   is journaled. Without a StopCondition every game runs to maxMessages.
+ */
+public final class PlayerOptions {
+
+    public static final int DEFAULT_MAILBOX_CAPACITY = 1024;
+    public static final int DEFAULT_WINDOW = 1;
+
+    private boolean printMessages;
+    private MailboxType mailboxType;
+    private int mailboxCapacity;
+    private WaitStrategy waitStrategy;
+    private int window;
+    private AsyncConsole console;
+    private boolean metrics;
+    private MessagePool messagePool;
+    private MessageJournal journal;
+    private StopCondition stopCondition;
+
+    private PlayerOptions() {
+        printMessages = true;
+        mailboxType = MailboxType.LINKED;
+        mailboxCapacity = DEFAULT_MAILBOX_CAPACITY;
+        waitStrategy = WaitStrategy.BLOCKING;
+        window = DEFAULT_WINDOW;
+    }
+
+    private PlayerOptions(PlayerOptions other) {
+        printMessages = other.printMessages;
+        mailboxType = other.mailboxType;
+        mailboxCapacity = other.mailboxCapacity;
+        waitStrategy = other.waitStrategy;
+        window = other.window;
+        console = other.console;
+        metrics = other.metrics;
+        messagePool = other.messagePool;
+        journal = other.journal;
+        stopCondition = other.stopCondition;
+    }
+
+    /** @return options reproducing the original behaviour of Player */
+    public static PlayerOptions defaults() {
+        return new PlayerOptions();
+    }
+
+    /** @return copy of these options with printing (and MESSAGE_DELAY_MS) switched on or off */
+    public PlayerOptions withPrintMessages(boolean printMessages) {
+        PlayerOptions copy = new PlayerOptions(this);
+        copy.printMessages = printMessages;
+        return copy;
+    }
+
+    /**
+     * @param mailboxType implementation backing the player's incoming queue
+     * @param mailboxCapacity capacity of a RING mailbox (rounded up to a power of two), ignored for LINKED
+     * @return copy of these options with the given mailbox
+     */
+    public PlayerOptions withMailbox(MailboxType mailboxType, int mailboxCapacity) {
+        if (mailboxCapacity <= 0) throw new IllegalArgumentException("mailboxCapacity must be greater than 0");
+        PlayerOptions copy = new PlayerOptions(this);
+        copy.mailboxType = mailboxType;
+        copy.mailboxCapacity = mailboxCapacity;
+        return copy;
+    }
+
+    /** @return copy of these options where takeMessage() waits for messages as waitStrategy decides */
+    public PlayerOptions withWaitStrategy(WaitStrategy waitStrategy) {
+        PlayerOptions copy = new PlayerOptions(this);
+        copy.waitStrategy = waitStrategy;
+        return copy;
+    }
+
+    /**
+     * @param window messages the initiator may have in flight at once; for a responder the number of credits it
+     *               grants the initiator. 1 is the original stop-and-wait game, larger windows pipeline the game
+     * @return copy of these options with the given window
+     */
+    public PlayerOptions withWindow(int window) {
+        if (window <= 0) throw new IllegalArgumentException("window must be greater than 0");
+        PlayerOptions copy = new PlayerOptions(this);
+        copy.window = window;
+        return copy;
+    }
+
+    /**
+     * @param console console both players publish their lines to (ConsoleMode.ASYNC), which also removes the
+     *                MESSAGE_DELAY_MS sleeps; null prints directly to System.out (original behaviour)
+     * @return copy of these options printing through the given console
+     */
+    public PlayerOptions withConsole(AsyncConsole console) {
+        PlayerOptions copy = new PlayerOptions(this);
+        copy.console = console;
+        return copy;
+    }
+
+    /** @return copy of these options where every player records PlayerMetrics (published as an MXBean) or not */
+    public PlayerOptions withMetrics(boolean metrics) {
+        PlayerOptions copy = new PlayerOptions(this);
+        copy.metrics = metrics;
+        return copy;
+    }
+
+    /**
+     * @param messagePool pool the initiator takes its messages from and returns them to at the end of the game,
+     *                    usually shared by many games; null allocates new messages for every game (original behaviour)
+     * @return copy of these options using the given message pool
+     */
+    public PlayerOptions withMessagePool(MessagePool messagePool) {
+        PlayerOptions copy = new PlayerOptions(this);
+        copy.messagePool = messagePool;
+        return copy;
+    }
+
+    /**
+     * @param journal journal every player records its sent and received messages in, usually shared by all games;
+     *                null journals nothing (original behaviour). The caller opens and closes it
+     * @return copy of these options using the given journal
+     */
+    public PlayerOptions withJournal(MessageJournal journal) {
+        PlayerOptions copy = new PlayerOptions(this);
+        copy.journal = journal;
+        return copy;
+    }
+
+    /**
+     * @param stopCondition budget (time, bytes, latency SLO) after which the initiator ends a game early; maxMessages
+     *                      still caps every game. null runs every game to maxMessages (original behaviour)
+     * @return copy of these options using the given stop condition
+     */
+    public PlayerOptions withStopCondition(StopCondition stopCondition) {
+        PlayerOptions copy = new PlayerOptions(this);
+        copy.stopCondition = stopCondition;
+        return copy;
+    }
+
+    /** @return true if exchanged messages are printed to the terminal (and delayed by MESSAGE_DELAY_MS)*/
+    public boolean isPrintMessages() {
+        return printMessages;
+    }
+
+    /** @return implementation backing the player's incoming queue*/
+    public MailboxType getMailboxType() {
+        return mailboxType;
+    }
+
+    /** @return capacity of a RING mailbox*/
+    public int getMailboxCapacity() {
+        return mailboxCapacity;
+    }
+
+    /** @return how takeMessage() waits while the mailbox is empty*/
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /** @return messages that may be in flight at once (1 = stop-and-wait)*/
+    public int getWindow() {
+        return window;
+    }
+
+    /** @return console the players print through, or null if they print directly to System.out*/
+    public AsyncConsole getConsole() {
+        return console;
+    }
+
+    /** @return true if players record PlayerMetrics*/
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    /** @return pool of the players' messages, or null if every game allocates its own*/
+    public MessagePool getMessagePool() {
+        return messagePool;
+    }
+
+    /** @return journal of the players' messages, or null if nothing is journaled*/
+    public MessageJournal getJournal() {
+        return journal;
+    }
+
+    /** @return budget after which the initiator ends a game early, or null if every game runs to maxMessages*/
+    public StopCondition getStopCondition() {
+        return stopCondition;
+    }
+
+    /** Creates a new, empty mailbox as configured by these options */
+    Mailbox createMailbox() {
+        return mailboxType == MailboxType.RING
+                ? new RingMailbox(mailboxCapacity, waitStrategy)
+                : new LinkedMailbox(waitStrategy);
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.common.GamePublisher;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Adapts a game of two Players to java.util.concurrent.Flow: the responses the initiator receives are published
+ * to a subscriber, at the pace the subscriber requests them.
+ *
+ * Responsibilities:
+ * - Creates the two linked players of a game; the initiator runs on the publisher's thread (see GamePublisher),
+ *   the responder on a platform thread of its own.
+ * - Stops the responder when the subscriber cancels before the game is over.
+ *
+ * Developer Decisions:
+ * - The initiator sends a message only once the subscriber asked for its response (see PlayerInitiator), so at most
+ *   the requested messages are ever in the game and nothing queues up in front of a slow subscriber. With a window
+ *   > 1 the initiator keeps min(window, outstanding demand) messages in flight.
+ * - A cancelled (or failed) game cannot be finished by the responder, which waits for maxMessages messages, so it
+ *   is interrupted.
+ */
+public final class PlayerPublisher {
+
+    private PlayerPublisher() {}
+
+    /**
+     * @param maxMessages messages of the game
+     * @param options settings of both players
+     * @return a publisher of the initiator's responses, for a single subscriber
+     */
+    public static Flow.Publisher<String> responses(int maxMessages, PlayerOptions options) {
+        Player player1 = new Player("player1", true, maxMessages, options);
+        Player player2 = new Player("player2", false, maxMessages, options);
+        player1.setOtherPlayer(player2);
+        player2.setOtherPlayer(player1);
+        return new GamePublisher("player1-publisher", flow -> {
+            player1.publishTo(flow);
+            Thread responder = Thread.ofPlatform().name("player2").start(player2);
+            boolean finished = false;
+            try {
+                new PlayerInitiator(player1).startPlayerInitiator();
+                finished = !flow.isCancelled();
+            } finally {
+                if (!finished) responder.interrupt();
+                responder.join();
+                player1.close();
+                player2.close();
+            }
+        });
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.anishshinde.thread;
 
-import static com.anishshinde.thread.Player.MESSAGE_DELAY_MS;
+import com.anishshinde.common.MessageBuffer;
+
+import static com.anishshinde.thread.PrintCommunicationThreads.awaitDirectOutput;
 import static com.anishshinde.thread.PrintCommunicationThreads.printResponderMessage;
 import static com.anishshinde.common.StopConditions.responderStopConditionFulfilled;
 
@@ -12,8 +14,11 @@ import static com.anishshinde.common.StopConditions.responderStopConditionFulfil
  * sending back responses, and continuing messaging loop until the stop condition is met.
  *
  * Developer Decisions:
- * Using String instead of StringBuilder for simplicity, otherwise StringBuilder is more
- * efficient for multiple concatenations
+ * The received MessageBuffer is extended in place and sent back, so a hop appends a few digits
+ * instead of copying the whole, ever-growing String.
+ * The loop is the same for pipelined games (see PlayerInitiator): messages are answered in the order they arrive,
+ * and the initiator never sends more than the credits granted through this player's window.
+ * An initiator with a StopCondition may end the game before maxMessages; takeMessage() then returns null.
  */
 public class PlayerResponder {
 
@@ -28,27 +33,32 @@ public class PlayerResponder {
 
     /**
      * Starts the responder player's messaging loop where the responder waits until it receives the
-     * first message from the initiator. Then this message is concatenated with the number of
-     * responsesSent until now by the responder and sent back. Then the responder waits again.
-     * This process is repeated until pre-defined number of responses have been sent.
+     * first message from the initiator. Then the number of responsesSent until now by the responder
+     * is appended to this message and it is sent back. Then the responder waits again.
+     * This process is repeated until pre-defined number of responses have been sent, or until the initiator
+     * ends the game early.
      *
      * A small delay (MESSAGE_DELAY_MS) is added to ensure the console prints messages
      * in the intended order, as thread execution can be faster than terminal output.
+     * Printing and the delay are both skipped when the player does not print messages, and the delay is skipped
+     * when the player prints through an AsyncConsole.
      *
      * @throws InterruptedException if the thread is interrupted while waiting
      */
     public void startPlayerResponder() throws InterruptedException {
-        // use String for simplicity, otherwise StringBuilder is more efficient for multiple concatenations
-        String message;
+        MessageBuffer message;
 
         do {
             message = player.takeMessage();
-            Thread.sleep(MESSAGE_DELAY_MS);
+            // the initiator ended the game early (see StopCondition)
+            if (message == null) break;
+            awaitDirectOutput(player);
 
             // increment responsesSent before sendMessage() so that the message contains the count of this response
-            message = message + " " + ++responsesSent;
+            message.appendCounter(++responsesSent);
+            // print before sending, since the buffer belongs to the initiator again once it is sent
+            if (player.isPrintMessages()) printResponderMessage(player, responsesSent, message);
             player.sendMessage(message);
-            printResponderMessage(player, message);
         } while (!responderStopConditionFulfilled(responsesSent, player.getMaxMessages()));
     }
 
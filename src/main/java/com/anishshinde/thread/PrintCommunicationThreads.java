@@ -1,5 +1,9 @@
 package com.anishshinde.thread;
 
+import com.anishshinde.common.AsyncConsole;
+
+import static com.anishshinde.thread.Player.MESSAGE_DELAY_MS;
+
 /**
  * Utility class for printing messages exchanged between the initiator and responder in the terminal
  *
@@ -11,6 +15,12 @@ package com.anishshinde.thread;
  * Developer Decisions:
  * - Class is provided with a private constructor to prevent instantiation,
  *   since it only provides static methods.
+ * - Lines are printed with System.out.println on the calling thread, or published to the player's AsyncConsole
+ *   (see PlayerOptions) under their position in the game: 0 for the start, 2n + 1 for message n of the initiator
+ *   and 2k for response k of the responder. The writer thread of the console prints them in this order.
+ * - The PlayerActor overloads print the same lines for event-loop games; both players of such a game print on
+ *   the same loop thread, so they never need awaitDirectOutput().
+ * - awaitDirectOutput() holds the MESSAGE_DELAY_MS sleep, which is only needed when printing directly.
  *
  * Example:
  * [ player1 sends {message} to player2 ]
@@ -23,18 +33,76 @@ public class PrintCommunicationThreads {
 
     private PrintCommunicationThreads(){}
 
-    /** Prints a message sent by the initiator to the responder */
-    public static void printInitiatorMessage(Player player, String message) {
+    /** Prints that the initiator started the communication */
+    public static void printCommunicationStarted(Player player) {
+        print(player, 0, "Player communication started");
+    }
+
+    /**
+     * Prints a message sent by the initiator to the responder
+     *
+     * @param messageNumber number of the message, counting from 0
+     */
+    public static void printInitiatorMessage(Player player, int messageNumber, CharSequence message) {
+        if(!(player.isInitiator())) System.err.println(
+                "[ERROR] Invalid player passed to printInitiatorMessage(): Expected initiator, got responder");
+        print(player, 2L * messageNumber + 1,
+                player.getPlayerName() + ": \"" + message + "\" -> " + player.getOtherPlayerName());
+    }
+
+    /**
+     * Prints a message(response) sent by the responder back to the initiator
+     *
+     * @param responseNumber number of the response, counting from 1
+     */
+    public static void printResponderMessage(Player player, int responseNumber, CharSequence message) {
+        if(player.isInitiator()) System.err.println(
+                "[ERROR] Invalid player passed to printResponderMessage(): Expected responder, got initiator");
+        print(player, 2L * responseNumber,
+                player.getOtherPlayerName() + " <- " + player.getPlayerName() + ": \"" + message + "\"");
+    }
+
+    /** Prints that the initiator of an event-loop game started the communication */
+    static void printCommunicationStarted(PlayerActor player) {
+        print(player.getConsole(), 0, "Player communication started");
+    }
+
+    /** Prints a message sent by the initiator of an event-loop game, see printInitiatorMessage(Player, ...) */
+    static void printInitiatorMessage(PlayerActor player, int messageNumber, CharSequence message) {
         if(!(player.isInitiator())) System.err.println(
                 "[ERROR] Invalid player passed to printInitiatorMessage(): Expected initiator, got responder");
-        System.out.println(player.getPlayerName() + ": \"" + message + "\" -> " + player.getOtherPlayerName());
+        print(player.getConsole(), 2L * messageNumber + 1,
+                player.getPlayerName() + ": \"" + message + "\" -> " + player.getOtherPlayerName());
     }
 
-    /** Prints a message(response) sent by the responder back to the initiator */
-    public static void printResponderMessage(Player player, String message) {
+    /** Prints a response sent by the responder of an event-loop game, see printResponderMessage(Player, ...) */
+    static void printResponderMessage(PlayerActor player, int responseNumber, CharSequence message) {
         if(player.isInitiator()) System.err.println(
                 "[ERROR] Invalid player passed to printResponderMessage(): Expected responder, got initiator");
-        System.out.println(player.getOtherPlayerName() + " <- " + player.getPlayerName() + ": \"" + message + "\"");
+        print(player.getConsole(), 2L * responseNumber,
+                player.getOtherPlayerName() + " <- " + player.getPlayerName() + ": \"" + message + "\"");
+    }
+
+    /**
+     * Sleeps MESSAGE_DELAY_MS if the player prints directly to System.out, so the lines of both threads appear
+     * in order. Returns immediately if nothing is printed or the player prints through an AsyncConsole.
+     *
+     * @throws InterruptedException if the thread is interrupted while sleeping
+     */
+    public static void awaitDirectOutput(Player player) throws InterruptedException {
+        if (player.isPrintMessages() && player.getConsole() == null) Thread.sleep(MESSAGE_DELAY_MS);
+    }
+
+    private static void print(Player player, long sequence, String line) {
+        print(player.getConsole(), sequence, line);
+    }
+
+    private static void print(AsyncConsole console, long sequence, String line) {
+        if (console != null) {
+            console.publish(sequence, line);
+        } else {
+            System.out.println(line);
+        }
     }
 
 }
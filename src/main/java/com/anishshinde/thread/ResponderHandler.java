@@ -0,0 +1,39 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.common.MessageBuffer;
+
+import static com.anishshinde.common.StopConditions.responderStopConditionFulfilled;
+import static com.anishshinde.thread.PrintCommunicationThreads.printResponderMessage;
+
+/**
+ * Messaging logic of the responder on an event loop: PlayerResponder rewritten as a non-blocking message handler.
+ *
+ * Responsibilities:
+ * Appends the number of responses sent to every received message, sends it back, and finishes the player
+ * once the stop condition is met.
+ */
+final class ResponderHandler implements MessageHandler {
+
+    private final PlayerActor player;
+    private int responsesSent;
+
+    ResponderHandler(PlayerActor player) {
+        this.player = player;
+    }
+
+    @Override
+    public void onStart() {
+        // the responder only reacts to messages
+    }
+
+    @Override
+    public void onMessage(MessageBuffer message) {
+        // increment responsesSent before sendMessage() so that the message contains the count of this response
+        message.appendCounter(++responsesSent);
+        // print before sending, since the buffer belongs to the initiator again once it is sent
+        if (player.isPrintMessages()) printResponderMessage(player, responsesSent, message);
+        player.sendMessage(message);
+        if (responderStopConditionFulfilled(responsesSent, player.getMaxMessages())) player.finish();
+    }
+
+}
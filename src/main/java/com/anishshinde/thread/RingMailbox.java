@@ -0,0 +1,79 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.common.MessageBuffer;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Mailbox backed by a bounded, preallocated SpscRingBuffer.
+ *
+ * Developer Decisions:
+ * - The ring itself never blocks, so take() waits as the configured WaitStrategy decides while the ring is empty.
+ * - For BLOCKING, the consumer publishes itself as waiting thread and parks; the producer unparks it after
+ *   every offer. A full fence on both sides ensures that either the consumer sees the new message or the
+ *   producer sees the waiting consumer, so no wake-up is lost. Only BLOCKING pays for the fence and unpark.
+ * - put() only has to wait when the ring is full, which the strictly alternating game never causes, so the
+ *   producer simply backs off as the wait strategy decides (BLOCKING backs off like SLEEPING).
+ */
+class RingMailbox implements Mailbox {
+
+    private final SpscRingBuffer<MessageBuffer> ring;
+    private final WaitStrategy waitStrategy;
+    private volatile Thread waitingConsumer;
+
+    RingMailbox(int capacity, WaitStrategy waitStrategy) {
+        ring = new SpscRingBuffer<>(capacity);
+        this.waitStrategy = waitStrategy;
+    }
+
+    @Override
+    public void put(MessageBuffer message) throws InterruptedException {
+        int idleCount = 0;
+        while (!ring.offer(message)) {
+            idleCount = waitStrategy.idle(idleCount);
+        }
+        if (waitStrategy == WaitStrategy.BLOCKING) {
+            VarHandle.fullFence();
+            Thread consumer = waitingConsumer;
+            if (consumer != null) LockSupport.unpark(consumer);
+        }
+    }
+
+    @Override
+    public MessageBuffer take() throws InterruptedException {
+        MessageBuffer message = ring.poll();
+        if (message != null) return message;
+        return waitStrategy == WaitStrategy.BLOCKING ? takeBlocking() : takeWaiting();
+    }
+
+    private MessageBuffer takeWaiting() throws InterruptedException {
+        MessageBuffer message;
+        int idleCount = 0;
+        while ((message = ring.poll()) == null) {
+            idleCount = waitStrategy.idle(idleCount);
+        }
+        return message;
+    }
+
+    private MessageBuffer takeBlocking() throws InterruptedException {
+        waitingConsumer = Thread.currentThread();
+        try {
+            MessageBuffer message;
+            while (true) {
+                VarHandle.fullFence();
+                if ((message = ring.poll()) != null) return message;
+                LockSupport.park(this);
+                if (Thread.interrupted()) throw new InterruptedException();
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+    }
+
+    @Override
+    public int size() {
+        return ring.size();
+    }
+
+}
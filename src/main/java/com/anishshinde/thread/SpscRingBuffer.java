@@ -0,0 +1,138 @@
+package com.anishshinde.thread;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Bounded, preallocated, lock-free ring buffer for exactly one producer thread and one consumer thread.
+ *
+ * Responsibilities:
+ * - offer() appends an element if there is free space, poll() removes the oldest element if there is one.
+ * - Neither operation blocks, takes a lock or allocates; waiting is left to the caller.
+ *
+ * Developer Decisions:
+ * - The capacity is rounded up to the next power of two so that the slot index is a cheap bit mask.
+ * - The producer index (tail) and the consumer index (head) live in separate cache lines, separated by
+ *   padding superclasses (the JVM keeps superclass fields before subclass fields), so that the two threads
+ *   do not invalidate each other's cache line on every message (false sharing).
+ * - Each side caches the last value it read of the other side's index and only re-reads the volatile
+ *   index when the cached value says the ring is full (producer) or empty (consumer).
+ * - Indices are published with release stores and read with acquire loads, which is all the ordering
+ *   a single-producer/single-consumer hand-off needs.
+ * - The element array is padded at both ends so its first and last slots do not share a cache line
+ *   with neighbouring objects.
+ *
+ * @param <E> type of the elements
+ */
+public final class SpscRingBuffer<E> extends SpscRingBufferConsumerFields {
+
+    // slots added in front of and behind the used part of the array (8 references = one 64 byte cache line)
+    private static final int ARRAY_PADDING = 16;
+
+    private final Object[] buffer;
+    private final int mask;
+
+    long p10, p11, p12, p13, p14, p15, p16;
+
+    public SpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity <= 0) throw new IllegalArgumentException("capacity must be greater than 0");
+        if (requestedCapacity > 1 << 30) throw new IllegalArgumentException("capacity must not exceed 2^30");
+        int capacity = 1;
+        while (capacity < requestedCapacity) capacity <<= 1;
+        buffer = new Object[capacity + 2 * ARRAY_PADDING];
+        mask = capacity - 1;
+    }
+
+    /** @return number of elements the ring can hold */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Appends an element. Must only be called by the producer thread.
+     *
+     * @param element the element to append, must not be null
+     * @return false if the ring is full and the element was not appended
+     */
+    public boolean offer(E element) {
+        if (element == null) throw new NullPointerException("element must not be null");
+        long currentTail = tail;
+        if (currentTail - cachedHead > mask) {
+            cachedHead = (long) HEAD.getAcquire(this);
+            if (currentTail - cachedHead > mask) return false;
+        }
+        buffer[slot(currentTail)] = element;
+        TAIL.setRelease(this, currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest element. Must only be called by the consumer thread.
+     *
+     * @return the oldest element, or null if the ring is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long currentHead = head;
+        if (currentHead >= cachedTail) {
+            cachedTail = (long) TAIL.getAcquire(this);
+            if (currentHead >= cachedTail) return null;
+        }
+        int slot = slot(currentHead);
+        E element = (E) buffer[slot];
+        buffer[slot] = null;
+        HEAD.setRelease(this, currentHead + 1);
+        return element;
+    }
+
+    /** @return true if the ring holds no elements at the moment of the call */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** @return number of elements in the ring at the moment of the call (may be stale when read concurrently) */
+    public int size() {
+        long currentHead = (long) HEAD.getAcquire(this);
+        long currentTail = (long) TAIL.getAcquire(this);
+        return (int) Math.max(0, Math.min(currentTail - currentHead, capacity()));
+    }
+
+    private int slot(long index) {
+        return ARRAY_PADDING + (int) (index & mask);
+    }
+
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(SpscRingBufferConsumerFields.class, "head", long.class);
+            TAIL = lookup.findVarHandle(SpscRingBufferProducerFields.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
+
+/** Cache line padding in front of the producer fields */
+abstract class SpscRingBufferPadding0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+}
+
+/** Fields written by the producer thread only (tail is read by the consumer through the TAIL VarHandle) */
+abstract class SpscRingBufferProducerFields extends SpscRingBufferPadding0 {
+    long tail;
+    long cachedHead;
+}
+
+/** Cache line padding between the producer and the consumer fields */
+abstract class SpscRingBufferPadding1 extends SpscRingBufferProducerFields {
+    long p20, p21, p22, p23, p24, p25, p26, p27;
+}
+
+/** Fields written by the consumer thread only (head is read by the producer through the HEAD VarHandle) */
+abstract class SpscRingBufferConsumerFields extends SpscRingBufferPadding1 {
+    long head;
+    long cachedTail;
+}
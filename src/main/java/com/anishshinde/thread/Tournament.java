@@ -0,0 +1,128 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.metrics.PlayerMetrics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Plays a batch of independent games on a work-stealing ForkJoinPool and collects their results.
+ *
+ * Responsibilities:
+ * - Splits the games of a tournament recursively over a ForkJoinPool with the requested parallelism.
+ * - Records duration, messages and final message length of every game (GameResult) and aggregates them into a
+ *   TournamentReport.
+ *
+ * Developer Decisions:
+ * - A game is a pair of PlayerActors, running the same game logic as the Players (InitiatorHandler and
+ *   ResponderHandler), on an EventLoop without a thread of its own: the worker that picks up a game plays it from
+ *   start to finish with runUntilDone(). A pair of blocking Players would need two threads per game and make
+ *   every hop a wake-up of another thread, so the pool could not keep its workers busy.
+ * - No game ever waits for another one, so the games scale with the workers up to the number of games (or cores).
+ *   Idle workers steal the larger halves of the remaining ranges, which balances games of unequal length.
+ * - Each worker writes only the results of its own games into a shared array; invoke() returning
+ *   makes all of them visible to the caller.
+ * - Players of game i are named "player1-i" and "player2-i" and nothing is printed, like GameRunner with more
+ *   than one game. A failed game fails the tournament with an IllegalStateException naming the game.
+ * - With metrics switched on the players' metrics are merged into one PlayerMetrics per role (see
+ *   PlayerMetrics.add(), safe from several workers) and reported with the TournamentReport; the players' own
+ *   MXBeans are unregistered when their game is over.
+ */
+public final class Tournament {
+
+    private Tournament() {}
+
+    /**
+     * Plays 'games' independent games and waits for all of them to finish.
+     *
+     * @param games number of games, each with an initiator and a responder
+     * @param maxMessages messages per game
+     * @param options settings shared by all players; mailbox and wait strategy are ignored
+     * @param parallelism worker threads of the pool
+     * @return results of all games
+     * @throws IllegalArgumentException if games or parallelism is not positive
+     * @throws IllegalStateException if a game failed
+     */
+    public static TournamentReport run(int games, int maxMessages, PlayerOptions options, int parallelism) {
+        if (games <= 0) throw new IllegalArgumentException("games must be greater than 0");
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be greater than 0");
+        if (maxMessages <= 0) throw new IllegalArgumentException("maxMessages must be greater than 0");
+
+        GameResult[] results = new GameResult[games];
+        PlayerMetrics initiators = options.isMetrics() ? new PlayerMetrics("initiators") : null;
+        PlayerMetrics responders = options.isMetrics() ? new PlayerMetrics("responders") : null;
+        PlayGames task = new PlayGames(0, games, maxMessages, options.withPrintMessages(false), results,
+                initiators, responders);
+        long start = System.nanoTime();
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            pool.invoke(task);
+        }
+        return new TournamentReport(parallelism, System.nanoTime() - start, results, initiators, responders);
+    }
+
+    /** Plays one game on the calling thread, merging the players' metrics into initiators and responders if not null */
+    static GameResult playGame(int index, int maxMessages, PlayerOptions options,
+                               PlayerMetrics initiators, PlayerMetrics responders) {
+        EventLoop loop = new EventLoop();
+        CompletableFuture<Void> game = new CompletableFuture<>();
+        PlayerActor player1 = new PlayerActor("player1-" + index, true, maxMessages, options, loop, game);
+        PlayerActor player2 = new PlayerActor("player2-" + index, false, maxMessages, options, loop, game);
+        player1.setOtherPlayer(player2);
+        player2.setOtherPlayer(player1);
+        if (initiators != null) {
+            player1.reportTo(initiators);
+            player2.reportTo(responders);
+        }
+
+        long start = System.nanoTime();
+        loop.execute(player1::start);
+        try {
+            loop.runUntilDone(game);
+            game.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Game " + index + " failed", e.getCause());
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException("Game " + index + " failed", e);
+        }
+        return new GameResult(index, System.nanoTime() - start,
+                player1.getMessagesSent() + player2.getMessagesSent(), player1.getLastMessageLength());
+    }
+
+    /** Plays the games [from, to), splitting the range in halves until a single game is left */
+    @SuppressWarnings("serial") // ForkJoinTask is Serializable, but a running tournament is never serialized
+    private static final class PlayGames extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final int maxMessages;
+        private final PlayerOptions options;
+        private final GameResult[] results;
+        private final PlayerMetrics initiators;
+        private final PlayerMetrics responders;
+
+        PlayGames(int from, int to, int maxMessages, PlayerOptions options, GameResult[] results,
+                  PlayerMetrics initiators, PlayerMetrics responders) {
+            this.from = from;
+            this.to = to;
+            this.maxMessages = maxMessages;
+            this.options = options;
+            this.results = results;
+            this.initiators = initiators;
+            this.responders = responders;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                results[from] = playGame(from, maxMessages, options, initiators, responders);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PlayGames(from, middle, maxMessages, options, results, initiators, responders),
+                    new PlayGames(middle, to, maxMessages, options, results, initiators, responders));
+        }
+    }
+
+}
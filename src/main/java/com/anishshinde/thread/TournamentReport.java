@@ -0,0 +1,106 @@
+package com.anishshinde.thread;
+
+import com.anishshinde.metrics.LatencyHistogram;
+import com.anishshinde.metrics.PlayerMetrics;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregate outcome of a Tournament: the result of every game plus totals, rates and game duration percentiles.
+ *
+ * Developer Decisions:
+ * - Built once all games are over, so the totals and the duration histogram are computed in the constructor
+ *   and the report is immutable afterwards.
+ * - Rates are measured over the wall-clock time of the whole tournament, so they show how well the games scale
+ *   with the parallelism, while the duration percentiles show how long a single game took.
+ * - With metrics switched on the report carries the merged PlayerMetrics of all initiators and of all responders,
+ *   and summary() adds their summaries on lines of their own.
+ */
+public final class TournamentReport {
+
+    private final int parallelism;
+    private final long elapsedNanos;
+    private final List<GameResult> results;
+    private final long totalMessages;
+    private final LatencyHistogram durations = new LatencyHistogram();
+    private final PlayerMetrics initiatorMetrics;
+    private final PlayerMetrics responderMetrics;
+
+    TournamentReport(int parallelism, long elapsedNanos, GameResult[] results,
+                     PlayerMetrics initiatorMetrics, PlayerMetrics responderMetrics) {
+        this.parallelism = parallelism;
+        this.initiatorMetrics = initiatorMetrics;
+        this.responderMetrics = responderMetrics;
+        this.elapsedNanos = elapsedNanos;
+        this.results = List.of(results);
+        long messages = 0;
+        for (GameResult result : results) {
+            messages += result.getMessages();
+            durations.record(result.getDurationNanos());
+        }
+        totalMessages = messages;
+    }
+
+    /** @return number of games played */
+    public int getGames() {
+        return results.size();
+    }
+
+    /** @return worker threads the games were played on */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /** @return wall-clock time of the whole tournament */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /** @return result of every game, in game order */
+    public List<GameResult> getResults() {
+        return results;
+    }
+
+    /** @return messages sent in all games together */
+    public long getTotalMessages() {
+        return totalMessages;
+    }
+
+    /** @return durations of the single games */
+    public LatencyHistogram getDurations() {
+        return durations;
+    }
+
+    /** @return metrics of all initiators merged, or null if metrics are switched off */
+    public PlayerMetrics getInitiatorMetrics() {
+        return initiatorMetrics;
+    }
+
+    /** @return metrics of all responders merged, or null if metrics are switched off */
+    public PlayerMetrics getResponderMetrics() {
+        return responderMetrics;
+    }
+
+    public double getGamesPerSecond() {
+        return perSecond(results.size());
+    }
+
+    public double getMessagesPerSecond() {
+        return perSecond(totalMessages);
+    }
+
+    /** @return e.g. "1000 games, 20000 messages in 120 ms on 4 threads: 8333 games/s, 166667 messages/s; game count=1000 p50=..." */
+    public String summary() {
+        String summary = String.format("%d games, %d messages in %d ms on %d threads: %.0f games/s, %.0f messages/s; game %s",
+                results.size(), totalMessages, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), parallelism,
+                getGamesPerSecond(), getMessagesPerSecond(), durations.summary());
+        return initiatorMetrics == null ? summary : summary + System.lineSeparator() + initiatorMetrics.summary()
+                + System.lineSeparator() + responderMetrics.summary();
+    }
+
+    private double perSecond(long count) {
+        return count * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(elapsedNanos, 1);
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.anishshinde.thread;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides how Player.takeMessage() waits while its mailbox is empty. Chosen per player through PlayerOptions.
+ *
+ * Responsibilities:
+ * - BLOCKING: the thread is parked until the other player hands over a message (original behaviour).
+ *   Costs a park/unpark and a context switch per hop, but no CPU while waiting. Best for shared hosts.
+ * - SLEEPING: spins briefly, then yields, then parks for short periods. No wake-up call is needed from the
+ *   sender, so the sender never pays for an unpark; an idle player costs little CPU.
+ * - YIELDING: spins briefly, then calls Thread.yield() in a loop. Low latency while leaving the core to
+ *   other runnable threads, but the core shows as busy.
+ * - BUSY_SPIN: spins with Thread.onSpinWait() only. Lowest latency (microsecond round trips), but each
+ *   waiting player occupies a full core, so it only makes sense with a dedicated core per player.
+ *
+ * Developer Decisions:
+ * - idle() is called by a mailbox in its polling loop with the number of idle rounds so far and returns the
+ *   updated count, so the strategies keep no state of their own and can be shared between players.
+ * - BLOCKING needs cooperation of the mailbox (a blocking queue or an explicit unpark by the sender), so
+ *   its idle() is only used where a mailbox cannot block, e.g. a producer waiting for space in a full ring,
+ *   and then backs off like SLEEPING.
+ * - Every strategy checks the interrupt flag while waiting, so takeMessage() stays interruptible.
+ * - Only BLOCKING and SLEEPING park (see parks()). YIELDING and BUSY_SPIN keep running, which on a virtual thread
+ *   means keeping its carrier thread: Thread.yield() only helps if another virtual thread is already queued on it.
+ */
+public enum WaitStrategy {
+
+    BLOCKING {
+        @Override
+        int idle(int idleCount) throws InterruptedException {
+            return SLEEPING.idle(idleCount);
+        }
+    },
+
+    SLEEPING {
+        @Override
+        int idle(int idleCount) throws InterruptedException {
+            checkInterrupted();
+            if (idleCount < SPIN_LIMIT) {
+                Thread.onSpinWait();
+            } else if (idleCount < YIELD_LIMIT) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+                return idleCount;
+            }
+            return idleCount + 1;
+        }
+    },
+
+    YIELDING {
+        @Override
+        int idle(int idleCount) throws InterruptedException {
+            checkInterrupted();
+            if (idleCount < SPIN_LIMIT) {
+                Thread.onSpinWait();
+                return idleCount + 1;
+            }
+            Thread.yield();
+            return idleCount;
+        }
+    },
+
+    BUSY_SPIN {
+        @Override
+        int idle(int idleCount) throws InterruptedException {
+            checkInterrupted();
+            Thread.onSpinWait();
+            return idleCount;
+        }
+    };
+
+    private static final int SPIN_LIMIT = 100;
+    private static final int YIELD_LIMIT = 200;
+    private static final long PARK_NANOS = 1_000;
+
+    /** @return true if a waiting thread eventually parks, so a virtual thread gives its carrier back while it waits */
+    boolean parks() {
+        return this == BLOCKING || this == SLEEPING;
+    }
+
+    /**
+     * Waits for one idle round.
+     *
+     * @param idleCount number of idle rounds so far for the current wait (0 for the first round)
+     * @return the count to pass to the next call
+     * @throws InterruptedException if the waiting thread was interrupted
+     */
+    abstract int idle(int idleCount) throws InterruptedException;
+
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) throw new InterruptedException();
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.anishshinde;
+
+import com.anishshinde.common.AsyncConsole;
+import com.anishshinde.thread.Player;
+import com.anishshinde.thread.PlayerOptions;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestAsyncConsole {
+
+    @Test
+    public void linesShouldBePrintedInSequenceOrder() throws InterruptedException {
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        AsyncConsole console = AsyncConsole.start(new PrintStream(printed, true));
+        console.publish(2, "c");
+        console.publish(0, "a");
+        console.publish(3, "d");
+        console.publish(1, "b");
+        console.close();
+
+        String n = System.lineSeparator();
+        assertEquals("a" + n + "b" + n + "c" + n + "d" + n, printed.toString());
+    }
+
+    @Test
+    public void asyncGameShouldPrintTheSameAsDirectGame() throws InterruptedException {
+        String direct = playGame(false);
+        assertEquals(direct, playGame(true));
+    }
+
+    /** Plays one game of printing players and returns everything they printed */
+    private static String playGame(boolean async) throws InterruptedException {
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try {
+            AsyncConsole console = async ? AsyncConsole.start(System.out) : null;
+            PlayerOptions options = PlayerOptions.defaults().withConsole(console);
+            Player player1 = new Player("player1", true, 10, options);
+            Player player2 = new Player("player2", false, 10, options);
+            player1.setOtherPlayer(player2);
+            player2.setOtherPlayer(player1);
+
+            Thread player1Thread = new Thread(player1);
+            Thread player2Thread = new Thread(player2);
+            player1Thread.start();
+            player2Thread.start();
+            player1Thread.join();
+            player2Thread.join();
+            if (console != null) console.close();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return printed.toString();
+    }
+
+}
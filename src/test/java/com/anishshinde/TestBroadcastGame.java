@@ -0,0 +1,66 @@
+package com.anishshinde;
+
+import com.anishshinde.thread.BroadcastGame;
+import com.anishshinde.thread.ExecutionMode;
+import com.anishshinde.thread.MulticastRing;
+import com.anishshinde.thread.PlayerOptions;
+import com.anishshinde.thread.WaitStrategy;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TestBroadcastGame {
+
+    @Test
+    public void everyCursorShouldReadEveryElementInPlace() throws InterruptedException {
+        MulticastRing<AtomicLong> ring = new MulticastRing<>(2, AtomicLong::new);
+        MulticastRing<AtomicLong>.Cursor first = ring.subscribe();
+        MulticastRing<AtomicLong>.Cursor second = ring.subscribe();
+
+        ring.claim(WaitStrategy.BUSY_SPIN).set(7);
+        ring.publish();
+        AtomicLong element = first.take(WaitStrategy.BUSY_SPIN);
+        assertEquals(7, element.get());
+        assertSame(element, second.take(WaitStrategy.BUSY_SPIN));
+
+        first.release();
+        assertEquals(0, ring.getMinimumConsumed());
+        second.release();
+        assertEquals(1, ring.getMinimumConsumed());
+    }
+
+    @Test(timeout = 60_000)
+    public void everyResponderShouldAnswerEveryMessage() throws InterruptedException {
+        BroadcastGame game = new BroadcastGame(8, 100, PlayerOptions.defaults().withWindow(4));
+        game.play(ExecutionMode.PLATFORM);
+
+        assertEquals(100, game.getMinimumReplies());
+        for (int responder = 0; responder < 8; responder++) {
+            assertEquals("message 99 100", game.getLastReply(responder).toString());
+        }
+    }
+
+    @Test(timeout = 60_000)
+    public void hundredsOfRespondersShouldFinishOnVirtualThreads() throws InterruptedException {
+        BroadcastGame game = new BroadcastGame(500, 10, PlayerOptions.defaults());
+        game.play(ExecutionMode.VIRTUAL);
+
+        assertEquals(10, game.getMinimumReplies());
+        assertEquals("message 9 10", game.getLastReply(499).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void eventLoopShouldBeRejected() throws InterruptedException {
+        new BroadcastGame(2, 10, PlayerOptions.defaults()).play(ExecutionMode.EVENT_LOOP);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void yieldingShouldBeRejectedOnVirtualThreads() throws InterruptedException {
+        new BroadcastGame(2, 10, PlayerOptions.defaults().withWaitStrategy(WaitStrategy.YIELDING))
+                .play(ExecutionMode.VIRTUAL);
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.anishshinde;
+
+import com.anishshinde.common.AsyncConsole;
+import com.anishshinde.metrics.PlayerMetrics;
+import com.anishshinde.thread.EventLoopGroup;
+import com.anishshinde.thread.ExecutionMode;
+import com.anishshinde.thread.GameRunner;
+import com.anishshinde.thread.PlayerOptions;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TestEventLoopGroup {
+
+    @Test
+    public void eventLoopGameShouldPrintTheSameAsThreadedGame() throws Exception {
+        String threaded = playGame(ExecutionMode.PLATFORM, 1);
+        assertEquals(threaded, playGame(ExecutionMode.EVENT_LOOP, 1));
+    }
+
+    @Test
+    public void pipelinedEventLoopGameShouldPrintTheSameAsThreadedGame() throws Exception {
+        String threaded = playGame(ExecutionMode.PLATFORM, 4);
+        assertEquals(threaded, playGame(ExecutionMode.EVENT_LOOP, 4));
+    }
+
+    @Test(timeout = 60_000)
+    public void manyGamesShouldShareFewLoops() throws Exception {
+        PlayerOptions options = PlayerOptions.defaults().withPrintMessages(false);
+        List<CompletableFuture<Void>> games = new ArrayList<>();
+        try (EventLoopGroup group = new EventLoopGroup(2)) {
+            for (int game = 0; game < 10_000; game++) {
+                games.add(group.startGame("a" + game, "b" + game, 20, options.withWindow(1 + game % 4)));
+            }
+            for (CompletableFuture<Void> game : games) game.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void eventLoopGameShouldCountEveryHop() throws Exception {
+        PlayerOptions options = PlayerOptions.defaults().withPrintMessages(false).withMetrics(true);
+        List<PlayerMetrics> totals = GameRunner.runGames(1, 50, options, ExecutionMode.EVENT_LOOP);
+
+        PlayerMetrics initiator = totals.get(0);
+        assertEquals(50, initiator.getMessagesSent());
+        assertEquals(50, initiator.getMessagesReceived());
+        assertEquals(50, initiator.getRoundTrips());
+        assertEquals(50, totals.get(1).getMessagesSent());
+        // the game is over, so its MXBeans are gone
+        assertFalse(ManagementFactory.getPlatformMBeanServer()
+                .isRegistered(new ObjectName("com.anishshinde:type=PlayerMetrics,name=player1")));
+    }
+
+    /** Plays one printing game and returns everything it printed; pipelined games print through an AsyncConsole */
+    private static String playGame(ExecutionMode executionMode, int window) throws InterruptedException {
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try {
+            AsyncConsole console = window > 1 ? AsyncConsole.start(System.out) : null;
+            PlayerOptions options = PlayerOptions.defaults().withWindow(window).withConsole(console);
+            GameRunner.runGames(1, 10, options, executionMode);
+            if (console != null) console.close();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return printed.toString();
+    }
+
+}
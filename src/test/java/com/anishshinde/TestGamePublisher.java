@@ -0,0 +1,132 @@
+package com.anishshinde;
+
+import com.anishshinde.thread.PlayerOptions;
+import com.anishshinde.thread.PlayerPublisher;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestGamePublisher {
+
+    @Test(timeout = 60_000)
+    public void gameShouldOnlyAdvanceOnDemand() throws InterruptedException {
+        Flow.Publisher<String> publisher = PlayerPublisher.responses(10, PlayerOptions.defaults().withPrintMessages(false));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(3);
+        subscriber.awaitMessages(3);
+        // no demand left, so the game must not produce a fourth response
+        Thread.sleep(100);
+        assertEquals(List.of("message 0 1", "message 0 1 1 2", "message 0 1 1 2 2 3"), subscriber.messages);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+        assertEquals(10, subscriber.messages.size());
+        assertTrue(subscriber.messages.get(9).endsWith(" 9 10"));
+    }
+
+    @Test(timeout = 60_000)
+    public void pipelinedGameShouldKeepNoMoreInFlightThanRequested() throws InterruptedException {
+        Flow.Publisher<String> publisher = PlayerPublisher.responses(20,
+                PlayerOptions.defaults().withPrintMessages(false).withWindow(8));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(5);
+        subscriber.awaitMessages(5);
+        Thread.sleep(100);
+        assertEquals(5, subscriber.messages.size());
+
+        subscriber.subscription.request(15);
+        assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+        assertEquals(20, subscriber.messages.size());
+        assertEquals("message 19 20", subscriber.messages.get(19));
+    }
+
+    @Test(timeout = 60_000)
+    public void cancelledGameShouldStopWithoutCompleting() throws InterruptedException {
+        Flow.Publisher<String> publisher = PlayerPublisher.responses(1_000, PlayerOptions.defaults().withPrintMessages(false));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(2);
+        subscriber.awaitMessages(2);
+        subscriber.subscription.cancel();
+        Thread.sleep(100);
+        assertEquals(2, subscriber.messages.size());
+        assertFalse(subscriber.completed.await(0, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 60_000)
+    public void secondSubscriberShouldBeRejected() throws InterruptedException {
+        Flow.Publisher<String> publisher = PlayerPublisher.responses(1, PlayerOptions.defaults().withPrintMessages(false));
+        publisher.subscribe(new CollectingSubscriber());
+        CollectingSubscriber second = new CollectingSubscriber();
+        publisher.subscribe(second);
+
+        assertTrue(second.failure instanceof IllegalStateException);
+    }
+
+    @Test(timeout = 60_000)
+    public void invalidRequestShouldBeSignalledByTheGameThread() throws InterruptedException {
+        Flow.Publisher<String> publisher = PlayerPublisher.responses(1_000, PlayerOptions.defaults().withPrintMessages(false));
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(2);
+        subscriber.awaitMessages(2);
+        // the caller only records the invalid request, so onError cannot overlap a signal of the game thread
+        subscriber.subscription.request(0);
+        while (subscriber.failure == null) Thread.sleep(1);
+
+        assertTrue(subscriber.failure instanceof IllegalArgumentException);
+        assertTrue(subscriber.failedOn != Thread.currentThread());
+        assertEquals(2, subscriber.messages.size());
+        assertFalse(subscriber.completed.await(0, TimeUnit.SECONDS));
+    }
+
+    /** Records everything it is signalled; requests nothing on its own */
+    static final class CollectingSubscriber implements Flow.Subscriber<String> {
+
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        volatile Flow.Subscription subscription;
+        volatile Throwable failure;
+        volatile Thread failedOn;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(String message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            failedOn = Thread.currentThread();
+            failure = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        void awaitMessages(int count) throws InterruptedException {
+            while (messages.size() < count) Thread.sleep(1);
+        }
+    }
+
+}
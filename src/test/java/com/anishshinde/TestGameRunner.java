@@ -0,0 +1,71 @@
+package com.anishshinde;
+
+import com.anishshinde.thread.ExecutionMode;
+import com.anishshinde.thread.GameRunner;
+import com.anishshinde.thread.MailboxType;
+import com.anishshinde.thread.PlayerOptions;
+import com.anishshinde.thread.WaitStrategy;
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestGameRunner {
+
+    @Test(timeout = 60_000)
+    public void thousandsOfGamesShouldFinishOnVirtualThreads() throws InterruptedException {
+        GameRunner.runGames(5_000, 10, PlayerOptions.defaults(), ExecutionMode.VIRTUAL);
+    }
+
+    @Test(timeout = 60_000)
+    public void concurrentGamesShouldFinishOnPlatformThreads() throws InterruptedException {
+        GameRunner.runGames(20, 10, PlayerOptions.defaults(), ExecutionMode.PLATFORM);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void busySpinShouldBeRejectedOnVirtualThreads() throws InterruptedException {
+        GameRunner.runGames(1, 10, PlayerOptions.defaults().withWaitStrategy(WaitStrategy.BUSY_SPIN),
+                ExecutionMode.VIRTUAL);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void yieldingShouldBeRejectedOnVirtualThreads() throws InterruptedException {
+        GameRunner.runGames(1, 10, PlayerOptions.defaults().withWaitStrategy(WaitStrategy.YIELDING),
+                ExecutionMode.VIRTUAL);
+    }
+
+    @Test(timeout = 60_000)
+    public void blockingPathsShouldNotPinVirtualThreads() throws Exception {
+        Path file = Files.createTempFile("player-communication", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            for (MailboxType mailboxType : MailboxType.values()) {
+                // the strategies allowed on virtual threads; every blocking path is taken in a few short games
+                for (WaitStrategy waitStrategy : List.of(WaitStrategy.BLOCKING, WaitStrategy.SLEEPING)) {
+                    PlayerOptions options = PlayerOptions.defaults()
+                            .withMailbox(mailboxType, 4)
+                            .withWaitStrategy(waitStrategy)
+                            .withWindow(2);
+                    GameRunner.runGames(8, 10, options, ExecutionMode.VIRTUAL);
+                }
+            }
+            recording.stop();
+            recording.dump(file);
+        }
+        try {
+            List<RecordedEvent> pinned = RecordingFile.readAllEvents(file);
+            assertEquals("pinned: " + pinned, 0, pinned.size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+}
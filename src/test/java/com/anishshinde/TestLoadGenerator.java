@@ -0,0 +1,98 @@
+package com.anishshinde;
+
+import com.anishshinde.load.LoadGenerator;
+import com.anishshinde.load.LoadOptions;
+import com.anishshinde.load.LoadReport;
+import com.anishshinde.load.LoadTarget;
+import com.anishshinde.thread.PlayerOptions;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestLoadGenerator {
+
+    @Test(timeout = 60_000)
+    public void loadShouldBeAppliedAtTheTargetRate() throws Exception {
+        Path reportFile = Files.createTempFile("player-load", ".txt");
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        LoadOptions options = LoadOptions.defaults().withRate(2_000).withDuration(Duration.ofSeconds(1))
+                .withReportInterval(Duration.ofMillis(250)).withReportFile(reportFile);
+
+        LoadReport report;
+        try (LoadTarget target = LoadTarget.eventLoopGames(10, PlayerOptions.defaults())) {
+            report = new LoadGenerator(target, options, new PrintStream(printed, true)).run();
+        }
+
+        assertEquals(2_000, report.getScheduled());
+        assertEquals(2_000, report.getCompleted());
+        assertEquals(0, report.getErrors());
+        assertEquals(2_000, report.getResponseTimes().count());
+        assertTrue(printed.toString().lines().count() >= 4);
+        assertTrue(Files.readString(reportFile).contains("completed: 2000"));
+        Files.delete(reportFile);
+    }
+
+    @Test(timeout = 60_000)
+    public void stallShouldBeChargedToEveryOperationHeldBack() throws Exception {
+        // the first start() blocks the generator for 200 ms, holding back the 200 operations scheduled meanwhile
+        LoadTarget stallingTarget = new LoadTarget() {
+            @Override
+            public CompletableFuture<?> start(long operation) {
+                if (operation == 0) sleep(200);
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public void close() {}
+        };
+        LoadOptions options = LoadOptions.defaults().withRate(1_000).withDuration(Duration.ofMillis(500));
+
+        LoadReport report = new LoadGenerator(stallingTarget, options, new PrintStream(new ByteArrayOutputStream())).run();
+
+        assertEquals(500, report.getCompleted());
+        // a closed-loop measurement would see a single slow operation, the response time sees ~40% of them
+        assertTrue(report.getResponseTimes().valueAtPercentile(50) < TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(report.getResponseTimes().valueAtPercentile(75) > TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(report.getServiceTimes().valueAtPercentile(99) < TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test(timeout = 60_000)
+    public void operationsBeyondMaxInFlightShouldBeDropped() throws Exception {
+        LoadTarget neverAnswering = new LoadTarget() {
+            @Override
+            public CompletableFuture<?> start(long operation) {
+                return operation < 5 ? new CompletableFuture<>() : CompletableFuture.failedFuture(new IllegalStateException());
+            }
+
+            @Override
+            public void close() {}
+        };
+        LoadOptions options = LoadOptions.defaults().withRate(100).withDuration(Duration.ofMillis(100)).withMaxInFlight(5)
+                .withDrainTimeout(Duration.ofMillis(100));
+
+        LoadReport report = new LoadGenerator(neverAnswering, options, new PrintStream(new ByteArrayOutputStream())).run();
+
+        assertEquals(10, report.getScheduled());
+        assertEquals(5, report.getDropped());
+        assertEquals(5, report.getOutstanding());
+        assertEquals(10, report.getErrors());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.anishshinde;
+
+import com.anishshinde.common.MessageBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestMessageBuffer {
+
+    @Test
+    public void appendedTextShouldMatchStringConcatenationOfAGame() {
+        int maxMessages = 1_000;
+        String expected = "message 0";
+        MessageBuffer message = new MessageBuffer(8).append("message").appendCounter(0);
+        for (int counter = 1; counter <= maxMessages; counter++) {
+            expected = expected + " " + counter;
+            message.appendCounter(counter);
+            if (counter < maxMessages) {
+                expected = expected + " " + counter;
+                message.appendCounter(counter);
+            }
+        }
+        assertEquals(expected, message.toString());
+        assertEquals(expected.length(), message.length());
+        assertEquals(expected.length(), MessageBuffer.expectedGameLength(maxMessages));
+    }
+
+    @Test
+    public void shouldBehaveLikeACharSequence() {
+        MessageBuffer message = new MessageBuffer("message").appendCounter(-42).appendCounter(Integer.MIN_VALUE);
+        assertEquals("message -42 " + Integer.MIN_VALUE, message.toString());
+        assertEquals('m', message.charAt(0));
+        assertEquals("-42", message.subSequence(8, 11));
+    }
+
+    @Test
+    public void sliceShouldViewPartOfTheBufferInPlace() {
+        MessageBuffer frame = new MessageBuffer("0123message 4 5");
+        frame.asByteBuffer().put(0, (byte) 'X');
+        MessageBuffer.Slice payload = new MessageBuffer.Slice().wrap(frame, 4, frame.length());
+        assertEquals("message 4 5", payload.toString());
+        assertEquals('m', payload.charAt(0));
+        assertEquals("4", payload.subSequence(8, 9));
+        assertEquals('X', frame.charAt(0));
+        assertEquals("message 4 5", new MessageBuffer().append(payload).toString());
+    }
+
+    @Test
+    public void contentHashShouldEqualStringHashCode() {
+        MessageBuffer message = new MessageBuffer("message").appendCounter(0).appendCounter(1);
+        MessageBuffer copy = new MessageBuffer(4).append(message, 0, 9).append(message, 9, message.length());
+        assertEquals("message 0 1".hashCode(), message.contentHash());
+        assertEquals(message.contentHash(), copy.contentHash());
+        assertEquals(0, copy.clear().contentHash());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void charAtShouldRejectIndexBeyondLength() {
+        new MessageBuffer(64).append("abc").charAt(3);
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.anishshinde;
+
+import com.anishshinde.common.MessageHeader;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class TestMessageHeader {
+
+    @Test
+    public void fieldsShouldBeWrittenAndReadInPlace() {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + MessageHeader.LENGTH);
+        new MessageHeader().wrap(buffer, 8)
+                .type(MessageHeader.TYPE_RESPONSE).sender(MessageHeader.SENDER_RESPONDER)
+                .version(MessageHeader.SCHEMA_VERSION).gameId(17).sequence(42).payloadLength(9)
+                .sendTimestamp(Long.MAX_VALUE - 1);
+
+        MessageHeader header = new MessageHeader().wrap(buffer, 8);
+        assertEquals(MessageHeader.TYPE_RESPONSE, header.type());
+        assertEquals(MessageHeader.SENDER_RESPONDER, header.sender());
+        assertEquals(MessageHeader.SCHEMA_VERSION, header.version());
+        assertEquals(17, header.gameId());
+        assertEquals(42, header.sequence());
+        assertEquals(9, header.payloadLength());
+        assertEquals(Long.MAX_VALUE - 1, header.sendTimestamp());
+        assertEquals("the flyweight must not move the buffer", 0, buffer.position());
+        assertEquals(42, buffer.getInt(8 + 8));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void wrapShouldRejectAHeaderThatDoesNotFit() {
+        new MessageHeader().wrap(ByteBuffer.allocate(MessageHeader.LENGTH), 1);
+    }
+
+}
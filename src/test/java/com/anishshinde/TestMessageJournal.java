@@ -0,0 +1,151 @@
+package com.anishshinde;
+
+import com.anishshinde.common.MessageBuffer;
+import com.anishshinde.journal.JournalReader;
+import com.anishshinde.journal.MessageJournal;
+import com.anishshinde.thread.ExecutionMode;
+import com.anishshinde.thread.GameRunner;
+import com.anishshinde.thread.PlayerOptions;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestMessageJournal {
+
+    private static final int MAX_MESSAGES = 50;
+
+    @Test(timeout = 60_000)
+    public void gamesShouldBeJournaledAndVerified() throws Exception {
+        for (ExecutionMode executionMode : new ExecutionMode[] {ExecutionMode.PLATFORM, ExecutionMode.EVENT_LOOP}) {
+            for (int window : new int[] {1, 4}) {
+                Path directory = Files.createTempDirectory("player-journal");
+                try (MessageJournal journal = MessageJournal.open(directory)) {
+                    PlayerOptions options = PlayerOptions.defaults().withPrintMessages(false).withWindow(window)
+                            .withJournal(journal);
+                    GameRunner.runGames(10, MAX_MESSAGES, options, executionMode);
+                    assertEquals(10 * 4 * MAX_MESSAGES, journal.getRecordsAppended());
+                }
+                assertEquals(executionMode + " window " + window, 10 * 4 * MAX_MESSAGES, JournalReader.verify(directory));
+            }
+        }
+    }
+
+    @Test
+    public void replayShouldRebuildEveryMessage() throws IOException {
+        Path directory = Files.createTempDirectory("player-journal");
+        List<String> expected = new ArrayList<>();
+        // segments of 256 bytes force many rollovers, and some messages do not fit into a segment at all
+        try (MessageJournal journal = MessageJournal.open(directory, 256, 3)) {
+            MessageJournal.Stream sender = journal.stream("player1", journal.nextGame());
+            MessageJournal.Stream receiver = journal.stream("player2", sender.getGame());
+            MessageBuffer message = new MessageBuffer("message");
+            for (int counter = 0; counter < 100; counter++) {
+                message.appendCounter(counter);
+                sender.sent(message);
+                receiver.received(message);
+                expected.add(message.toString());
+            }
+        }
+
+        List<String> replayed = new ArrayList<>();
+        long records = JournalReader.replay(directory, record -> {
+            if (record.isSent()) replayed.add(record.message().toString());
+        });
+        assertEquals(200, records);
+        assertEquals(expected, replayed);
+        assertEquals(200, JournalReader.verify(directory));
+        assertTrue(segments(directory).size() > 10);
+    }
+
+    @Test(timeout = 60_000)
+    public void rollingOverManySmallSegmentsShouldNotLoseRecords() throws Exception {
+        Path directory = Files.createTempDirectory("player-journal");
+        // small segments fill up about as fast as the sync thread prepares (and touches) the next one
+        try (MessageJournal journal = MessageJournal.open(directory, 32 * 4096, 0)) {
+            PlayerOptions options = PlayerOptions.defaults().withPrintMessages(false).withWindow(4).withJournal(journal);
+            GameRunner.runGames(8, 5000, options, ExecutionMode.PLATFORM);
+            assertEquals(8 * 4 * 5000, journal.getRecordsAppended());
+        }
+        assertTrue(segments(directory).size() > 20);
+        assertEquals(8 * 4 * 5000, JournalReader.verify(directory));
+    }
+
+    @Test
+    public void growingMessagesShouldOnlyJournalTheirNewBytes() throws IOException {
+        Path directory = Files.createTempDirectory("player-journal");
+        long messageBytes = 0;
+        try (MessageJournal journal = MessageJournal.open(directory)) {
+            MessageJournal.Stream stream = journal.stream("player1", 0);
+            MessageBuffer message = new MessageBuffer("message");
+            for (int counter = 0; counter < 10_000; counter++) {
+                stream.sent(message.appendCounter(counter));
+                messageBytes += message.length();
+            }
+        }
+        long[] records = {0};
+        JournalReader.replay(directory, record -> records[0]++);
+        assertEquals(10_000, records[0]);
+        // 10,000 records of 40 header bytes, the name and a few digits each, far below the sum of the messages
+        long used = usedBytes(segments(directory).get(0));
+        assertTrue(used < 10_000 * 64L);
+        assertTrue(messageBytes > 100 * used);
+    }
+
+    @Test
+    public void verifyShouldDetectACorruptedMessage() throws IOException {
+        Path directory = Files.createTempDirectory("player-journal");
+        try (MessageJournal journal = MessageJournal.open(directory)) {
+            MessageJournal.Stream stream = journal.stream("player1", 0);
+            stream.sent(new MessageBuffer("message 0"));
+        }
+        Path segment = segments(directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the last byte of the message, behind the 24 byte segment header, 40 byte record header and the name
+            channel.write(ByteBuffer.wrap(new byte[] {'1'}), 24 + 40 + "player1".length() + "message 0".length() - 1);
+        }
+        try {
+            JournalReader.verify(directory);
+            fail("a corrupted message should fail verification");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("hash"));
+        }
+    }
+
+    @Test
+    public void aReopenedJournalShouldContinueAfterTheLastRun() throws IOException {
+        Path directory = Files.createTempDirectory("player-journal");
+        for (int run = 0; run < 2; run++) {
+            try (MessageJournal journal = MessageJournal.open(directory)) {
+                journal.stream("player1", 0).sent(new MessageBuffer("message 0"));
+            }
+        }
+        assertEquals(2, segments(directory).size());
+        assertEquals(2, JournalReader.verify(directory));
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    /** @return bytes up to the end of the last record, found by walking the record lengths */
+    private static long usedBytes(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int position = 24;
+            while (position + 4 <= buffer.capacity() && buffer.getInt(position) != 0) position += buffer.getInt(position);
+            return position;
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.anishshinde;
+
+import com.anishshinde.common.MessageBuffer;
+import com.anishshinde.thread.ExecutionMode;
+import com.anishshinde.thread.GameRunner;
+import com.anishshinde.thread.MessagePool;
+import com.anishshinde.thread.PlayerOptions;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestMessagePool {
+
+    @Test
+    public void releasedBuffersShouldBeReusedUntilThePoolIsFull() {
+        MessagePool pool = new MessagePool(1);
+        MessageBuffer first = pool.acquire(16).append("message 0");
+        MessageBuffer second = pool.acquire(16);
+        assertEquals(2, pool.getCreated());
+
+        pool.release(first);
+        pool.release(second);
+        assertEquals("a full pool should drop the buffer", 1, pool.getPooled());
+
+        MessageBuffer reused = pool.acquire(16);
+        assertSame(first, reused);
+        assertEquals(0, reused.length());
+        assertEquals(2, pool.getCreated());
+    }
+
+    @Test(timeout = 60_000)
+    public void gamesShouldReuseTheMessagesOfFinishedGames() throws InterruptedException {
+        for (ExecutionMode executionMode : ExecutionMode.values()) {
+            for (int window : new int[] {1, 4}) {
+                MessagePool pool = new MessagePool(64);
+                PlayerOptions options = PlayerOptions.defaults().withPrintMessages(false).withWindow(window)
+                        .withMessagePool(pool);
+                GameRunner.runGames(1, 100, options, executionMode);
+                assertEquals(window, pool.getCreated());
+                assertEquals("every message should be back once the game is over", window, pool.getPooled());
+
+                for (int game = 0; game < 10; game++) GameRunner.runGames(1, 100, options, executionMode);
+                assertEquals(executionMode + " window " + window, window, pool.getCreated());
+            }
+        }
+    }
+
+    @Test(timeout = 60_000)
+    public void concurrentGamesShouldShareOnePool() throws InterruptedException {
+        MessagePool pool = new MessagePool(16);
+        PlayerOptions options = PlayerOptions.defaults().withMessagePool(pool);
+        GameRunner.runGames(1_000, 10, options, ExecutionMode.VIRTUAL);
+        GameRunner.runGames(1_000, 10, options, ExecutionMode.EVENT_LOOP);
+        assertEquals(16, pool.getPooled());
+        assertTrue(pool.getCreated() < 2_000);
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.anishshinde;
 
+import com.anishshinde.common.MessageBuffer;
 import com.anishshinde.thread.Player;
 import com.anishshinde.thread.PlayerInitiator;
 import org.junit.Test;
@@ -15,21 +16,21 @@ public class TestPlayerInitiator {
         when(mockPlayer.isInitiator()).thenReturn(true);
 
         when(mockPlayer.takeMessage())
-                .thenReturn("response 1")
-                .thenReturn("response 2");
+                .thenReturn(new MessageBuffer("response 1"))
+                .thenReturn(new MessageBuffer("response 2"));
 
         PlayerInitiator playerInitiator = new PlayerInitiator(mockPlayer);
         playerInitiator.startPlayerInitiator();
 
         InOrder inOrder = inOrder(mockPlayer);
         // initial message
-        inOrder.verify(mockPlayer).sendMessage(anyString());
+        inOrder.verify(mockPlayer).sendMessage(any(MessageBuffer.class));
 
         inOrder.verify(mockPlayer).takeMessage();
-        inOrder.verify(mockPlayer).sendMessage(anyString());
+        inOrder.verify(mockPlayer).sendMessage(any(MessageBuffer.class));
         inOrder.verify(mockPlayer).takeMessage();
 
-        verify(mockPlayer, times(2)).sendMessage(anyString());
+        verify(mockPlayer, times(2)).sendMessage(any(MessageBuffer.class));
         verify(mockPlayer, times(2)).takeMessage();
     }
 
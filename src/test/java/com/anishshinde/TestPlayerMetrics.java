@@ -0,0 +1,136 @@
+package com.anishshinde;
+
+import com.anishshinde.metrics.LatencyHistogram;
+import com.anishshinde.metrics.MessageReceiveEvent;
+import com.anishshinde.metrics.MessageSendEvent;
+import com.anishshinde.metrics.PlayerMetrics;
+import com.anishshinde.thread.ExecutionMode;
+import com.anishshinde.thread.GameRunner;
+import com.anishshinde.thread.Player;
+import com.anishshinde.thread.PlayerOptions;
+import com.anishshinde.thread.Tournament;
+import com.anishshinde.thread.TournamentReport;
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestPlayerMetrics {
+
+    @Test
+    public void histogramShouldReportPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) histogram.record(micros * 1_000);
+
+        assertEquals(10_000, histogram.count());
+        assertEquals(10_000_000, histogram.max());
+        assertWithin(5_000_000, histogram.valueAtPercentile(50));
+        assertWithin(9_900_000, histogram.valueAtPercentile(99));
+        assertWithin(9_990_000, histogram.valueAtPercentile(99.9));
+        assertEquals(10_000_000, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    public void histogramShouldCountSmallValuesExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(-1);
+
+        assertEquals(2, histogram.count());
+        assertEquals(0, histogram.valueAtPercentile(50));
+        assertEquals(3, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    public void gameShouldCountEveryHopAndPublishMXBeans() throws Exception {
+        PlayerOptions options = PlayerOptions.defaults().withPrintMessages(false).withMetrics(true);
+        Player player1 = new Player("player1", true, 50, options);
+        Player player2 = new Player("player2", false, 50, options);
+        playGame(player1, player2);
+
+        PlayerMetrics initiator = player1.getMetrics();
+        assertEquals(50, initiator.getMessagesSent());
+        assertEquals(50, initiator.getMessagesReceived());
+        assertEquals(50, initiator.getRoundTrips());
+        assertEquals(initiator.getBytesSent(), player2.getMetrics().getBytesReceived());
+        assertTrue(initiator.getRoundTripP50Micros() <= initiator.getRoundTripMaxMicros());
+
+        Object sent = ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName("com.anishshinde:type=PlayerMetrics,name=player2"), "MessagesSent");
+        assertEquals(50L, sent);
+    }
+
+    @Test(timeout = 60_000)
+    public void manyGamesShouldMergeMetricsAndUnregisterTheirMXBeans() throws Exception {
+        PlayerOptions options = PlayerOptions.defaults().withPrintMessages(false).withMetrics(true);
+        for (ExecutionMode executionMode : ExecutionMode.values()) {
+            List<PlayerMetrics> totals = GameRunner.runGames(4, 10, options, executionMode);
+
+            assertEquals(2, totals.size());
+            assertEquals(40, totals.get(0).getMessagesSent());
+            assertEquals(40, totals.get(0).getRoundTrips());
+            assertEquals(40, totals.get(1).getMessagesReceived());
+            assertEquals(totals.get(0).getBytesSent(), totals.get(1).getBytesReceived());
+            assertFalse(ManagementFactory.getPlatformMBeanServer()
+                    .isRegistered(new ObjectName("com.anishshinde:type=PlayerMetrics,name=player1-0")));
+        }
+
+        TournamentReport report = Tournament.run(4, 10, options, 2);
+        assertEquals(40, report.getInitiatorMetrics().getRoundTrips());
+        assertEquals(40, report.getResponderMetrics().getMessagesSent());
+        assertFalse(ManagementFactory.getPlatformMBeanServer()
+                .isRegistered(new ObjectName("com.anishshinde:type=PlayerMetrics,name=player2-3")));
+    }
+
+    @Test
+    public void gameShouldEmitJfrEventsOnlyWhenEnabled() throws Exception {
+        Path file = Files.createTempFile("player-communication", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(MessageSendEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(MessageReceiveEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            PlayerOptions options = PlayerOptions.defaults().withPrintMessages(false);
+            playGame(new Player("player1", true, 20, options), new Player("player2", false, 20, options));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(40, events.stream().filter(e -> e.getEventType().getName().equals("com.anishshinde.MessageSend")).count());
+        assertEquals(40, events.stream().filter(e -> e.getEventType().getName().equals("com.anishshinde.MessageReceive")).count());
+        assertTrue(events.stream().anyMatch(e -> e.getString("playerName").equals("player2") && e.getLong("sequence") == 20));
+        Files.delete(file);
+
+        // without a recording enabling them the events are off
+        assertFalse(new MessageSendEvent().isEnabled());
+    }
+
+    private static void playGame(Player player1, Player player2) throws InterruptedException {
+        player1.setOtherPlayer(player2);
+        player2.setOtherPlayer(player1);
+
+        Thread player1Thread = new Thread(player1);
+        Thread player2Thread = new Thread(player2);
+        player1Thread.start();
+        player2Thread.start();
+        player1Thread.join();
+        player2Thread.join();
+    }
+
+    /** Asserts that a percentile is reported at or above the exact value and at most one sub-bucket (6.25%) above */
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual, actual >= expected && actual <= expected * 1.0625);
+    }
+
+}
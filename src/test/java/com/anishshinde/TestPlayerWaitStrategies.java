@@ -0,0 +1,77 @@
+package com.anishshinde;
+
+import com.anishshinde.thread.MailboxType;
+import com.anishshinde.thread.Player;
+import com.anishshinde.thread.PlayerOptions;
+import com.anishshinde.thread.WaitStrategy;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+
+public class TestPlayerWaitStrategies {
+
+    @Test
+    public void gameShouldCompleteWithEveryMailboxAndWaitStrategy() throws InterruptedException {
+        for (MailboxType mailboxType : MailboxType.values()) {
+            for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+                PlayerOptions options = PlayerOptions.defaults()
+                        .withPrintMessages(false)
+                        .withMailbox(mailboxType, 4)
+                        .withWaitStrategy(waitStrategy);
+                Player player1 = new Player("player1", true, 100, options);
+                Player player2 = new Player("player2", false, 100, options);
+                player1.setOtherPlayer(player2);
+                player2.setOtherPlayer(player1);
+
+                Thread player1Thread = new Thread(player1);
+                Thread player2Thread = new Thread(player2);
+                player1Thread.start();
+                player2Thread.start();
+                player1Thread.join(30_000);
+                player2Thread.join(30_000);
+
+                assertFalse(mailboxType + "/" + waitStrategy + " did not finish", player1Thread.isAlive());
+                assertFalse(mailboxType + "/" + waitStrategy + " did not finish", player2Thread.isAlive());
+            }
+        }
+    }
+
+    @Test
+    public void pipelinedGameShouldCompleteWithEveryMailboxAndWaitStrategy() throws InterruptedException {
+        for (MailboxType mailboxType : MailboxType.values()) {
+            for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+                // the window exceeds the ring capacity, so a full mailbox must only slow the initiator down
+                PlayerOptions options = PlayerOptions.defaults()
+                        .withPrintMessages(false)
+                        .withMailbox(mailboxType, 4)
+                        .withWaitStrategy(waitStrategy)
+                        .withWindow(8);
+                Player player1 = new Player("player1", true, 100, options);
+                Player player2 = new Player("player2", false, 100, options);
+                player1.setOtherPlayer(player2);
+                player2.setOtherPlayer(player1);
+
+                Thread player1Thread = new Thread(player1);
+                Thread player2Thread = new Thread(player2);
+                player1Thread.start();
+                player2Thread.start();
+                player1Thread.join(30_000);
+                player2Thread.join(30_000);
+
+                assertFalse(mailboxType + "/" + waitStrategy + " did not finish", player1Thread.isAlive());
+                assertFalse(mailboxType + "/" + waitStrategy + " did not finish", player2Thread.isAlive());
+            }
+        }
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void takeMessageShouldStayInterruptibleWhenWaiting() throws InterruptedException {
+        PlayerOptions options = PlayerOptions.defaults()
+                .withMailbox(MailboxType.RING, 4)
+                .withWaitStrategy(WaitStrategy.BLOCKING);
+        Player player = new Player("player1", true, 1, options);
+        Thread.currentThread().interrupt();
+        player.takeMessage();
+    }
+
+}
@@ -0,0 +1,380 @@
+package com.anishshinde;
+
+import com.anishshinde.common.ConsoleMode;
+import com.anishshinde.common.MessageBuffer;
+import com.anishshinde.common.StopCondition;
+import com.anishshinde.journal.JournalReader;
+import com.anishshinde.journal.MessageJournal;
+import com.anishshinde.process.ClientMessageService;
+import com.anishshinde.process.FrameChannel;
+import com.anishshinde.process.IoMode;
+import com.anishshinde.process.PlayerClient;
+import com.anishshinde.process.PlayerServer;
+import com.anishshinde.process.ProcessOptions;
+import com.anishshinde.process.ServerMessageService;
+import com.anishshinde.process.Transport;
+import com.anishshinde.process.WireProtocol;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestProcessMessaging {
+
+    // 40 messages per side cross the checksum interval of the delta protocol several times
+    private static final int MAX_MESSAGES = 40;
+
+    @Test
+    public void deltaProtocolShouldProduceTheSameMessagesAsFullProtocol() throws Exception {
+        String full = playGame(ProcessOptions.defaults().withProtocol(WireProtocol.FULL));
+        String delta = playGame(ProcessOptions.defaults().withProtocol(WireProtocol.DELTA));
+
+        assertTrue(full.contains("player1 <- player2: \"message 0 1 1 2"));
+        assertEquals(full, delta);
+    }
+
+    @Test
+    public void channelIoShouldProduceTheSameMessagesAsStreamIo() throws Exception {
+        String stream = playGame(ProcessOptions.defaults().withIoMode(IoMode.STREAM));
+        for (WireProtocol protocol : WireProtocol.values()) {
+            assertEquals(stream, playGame(ProcessOptions.defaults().withIoMode(IoMode.CHANNEL).withProtocol(protocol)));
+        }
+    }
+
+    @Test
+    public void sharedMemoryShouldProduceTheSameMessagesAsTcp() throws Exception {
+        String tcp = playGame(ProcessOptions.defaults());
+        Path file = Files.createTempDirectory("player-communication").resolve("game.shm");
+        for (WireProtocol protocol : WireProtocol.values()) {
+            ProcessOptions options = ProcessOptions.defaults().withProtocol(protocol).withSharedMemory(file, 4096);
+            assertEquals(tcp, playSharedMemoryGame(options));
+            assertFalse("server should delete the shared memory file", Files.exists(file));
+        }
+    }
+
+    @Test
+    public void unixSocketShouldProduceTheSameMessagesAsTcp() throws Exception {
+        String tcp = playGame(ProcessOptions.defaults());
+        Path socketPath = Files.createTempDirectory("player-communication").resolve("game.sock");
+        for (IoMode ioMode : IoMode.values()) {
+            ProcessOptions options = ProcessOptions.defaults().withTransport(Transport.UNIX_SOCKET)
+                    .withIoMode(ioMode).withSocketPath(socketPath);
+            assertEquals(tcp, playUnixSocketGame(options));
+            assertFalse("server should delete the socket file", Files.exists(socketPath));
+        }
+    }
+
+    @Test
+    public void asyncConsoleShouldPrintTheSameMessagesAsDirectOutput() throws Exception {
+        String direct = playGame(ProcessOptions.defaults());
+        assertEquals(direct, playGame(ProcessOptions.defaults().withConsoleMode(ConsoleMode.ASYNC)));
+
+        // with the async console even a pipelined game is printed in the order of the stop-and-wait game
+        String pipelined = playGame(ProcessOptions.defaults().withWindow(8).withConsoleMode(ConsoleMode.ASYNC));
+        assertTrue(pipelined.startsWith("player1: \"message 0\" -> player2" + System.lineSeparator()
+                + "player1 <- player2: \"message 0 1\"" + System.lineSeparator()
+                + "player1: \"message 1\" -> player2"));
+    }
+
+    @Test
+    public void pipelinedGameShouldAnswerEveryMessageExactlyOnce() throws Exception {
+        String[] full = sortedLines(playGame(ProcessOptions.defaults().withWindow(8)));
+        String[] delta = sortedLines(playGame(ProcessOptions.defaults().withWindow(8).withProtocol(WireProtocol.DELTA)));
+
+        assertEquals(2 * MAX_MESSAGES, full.length);
+        for (int n = 0; n < MAX_MESSAGES; n++) {
+            assertTrue(Arrays.asList(full).contains("player1: \"message " + n + "\" -> player2"));
+            assertTrue(Arrays.asList(full).contains("player1 <- player2: \"message " + n + " " + (n + 1) + "\""));
+        }
+        assertEquals(Arrays.asList(full), Arrays.asList(delta));
+    }
+
+    @Test(timeout = 60_000)
+    public void stopConditionShouldEndTheGameEarly() throws Exception {
+        ProcessOptions options = ProcessOptions.defaults().withStopCondition(StopCondition.bytes(1));
+        for (WireProtocol protocol : WireProtocol.values()) {
+            String[] stopAndWait = sortedLines(playGame(options.withProtocol(protocol)));
+            String[] pipelined = sortedLines(playGame(options.withProtocol(protocol).withWindow(8)));
+
+            assertEquals(Arrays.asList("player1 <- player2: \"message 0 1\"", "player1: \"message 0\" -> player2"),
+                    Arrays.asList(stopAndWait));
+            // the first response stops the game, the other seven messages in flight are still answered
+            assertEquals(2 * 8, pipelined.length);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void multiplexedGamesShouldRejectStopConditions() {
+        new ClientMessageService((FrameChannel) null, MAX_MESSAGES,
+                ProcessOptions.defaults().withGames(2).withStopCondition(StopCondition.bytes(1)));
+    }
+
+    @Test
+    public void coalescedWritesShouldProduceTheSameMessages() throws Exception {
+        String stopAndWait = playGame(ProcessOptions.defaults());
+        List<String> pipelined = Arrays.asList(sortedLines(playGame(ProcessOptions.defaults().withWindow(8))));
+        for (IoMode ioMode : IoMode.values()) {
+            ProcessOptions options = ProcessOptions.defaults().withIoMode(ioMode).withWriteBatch(4);
+            assertEquals(stopAndWait, playGame(options));
+            assertEquals(pipelined, Arrays.asList(sortedLines(playGame(options.withWindow(8)))));
+            assertEquals(pipelined, Arrays.asList(sortedLines(playGame(options.withWindow(8).withWriteBatch(64)))));
+        }
+
+        // through PlayerServer and PlayerClient, which also apply the socket options
+        Path socketPath = Files.createTempDirectory("player-communication").resolve("coalesced.sock");
+        ProcessOptions options = ProcessOptions.defaults().withTransport(Transport.UNIX_SOCKET).withSocketPath(socketPath)
+                .withWriteBatch(16).withTcpNoDelay(true).withSocketBufferSizes(256 * 1024, 256 * 1024);
+        assertEquals(stopAndWait, playUnixSocketGame(options.withIoMode(IoMode.CHANNEL)));
+    }
+
+    @Test
+    public void headersShouldProduceTheSameMessages() throws Exception {
+        String stopAndWait = playGame(ProcessOptions.defaults());
+        List<String> pipelined = Arrays.asList(sortedLines(playGame(ProcessOptions.defaults().withWindow(8))));
+        for (WireProtocol protocol : WireProtocol.values()) {
+            ProcessOptions options = ProcessOptions.defaults().withIoMode(IoMode.CHANNEL).withProtocol(protocol)
+                    .withHeaders(true);
+            assertEquals(stopAndWait, playGame(options));
+            assertEquals(pipelined, Arrays.asList(sortedLines(playGame(options.withWindow(8)))));
+        }
+
+        Path file = Files.createTempDirectory("player-communication").resolve("headers.shm");
+        assertEquals(stopAndWait, playSharedMemoryGame(ProcessOptions.defaults().withTransport(Transport.SHARED_MEMORY)
+                .withSharedMemory(file, 4096).withHeaders(true)));
+    }
+
+    @Test
+    public void journaledGamesShouldBeVerifiable() throws Exception {
+        for (int window : new int[] {1, 4}) {
+            Path directory = Files.createTempDirectory("player-journal");
+            ProcessOptions options = ProcessOptions.defaults().withPrintMessages(false).withProtocol(WireProtocol.DELTA)
+                    .withWindow(window).withJournal(directory, MessageJournal.DEFAULT_SEGMENT_SIZE, 0);
+            playGame(options);
+
+            for (String player : new String[] {"player1", "player2"}) {
+                assertEquals(2 * MAX_MESSAGES, JournalReader.verify(directory.resolve(player)));
+            }
+            if (window == 1) {
+                String[] last = new String[1];
+                JournalReader.replay(directory.resolve("player1"), record -> last[0] = record.message().toString());
+                MessageBuffer expected = new MessageBuffer("message");
+                for (int counter = 0; counter < MAX_MESSAGES; counter++) {
+                    expected.appendCounter(counter).appendCounter(counter + 1);
+                }
+                assertEquals(expected.toString(), last[0]);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void headersShouldRejectLineFrames() {
+        new ClientMessageService((FrameChannel) null, MAX_MESSAGES, ProcessOptions.defaults().withHeaders(true));
+    }
+
+    @Test(timeout = 60_000)
+    public void servingServerShouldPlayEveryConnectingInitiator() throws Exception {
+        Path socketPath = Files.createTempDirectory("player-communication").resolve("serve.sock");
+        ProcessOptions options = ProcessOptions.defaults().withPrintMessages(false).withMetrics(true)
+                .withTransport(Transport.UNIX_SOCKET).withSocketPath(socketPath).withIoMode(IoMode.CHANNEL)
+                .withProtocol(WireProtocol.DELTA).withMaxConnections(4);
+        PlayerServer server = new PlayerServer(MAX_MESSAGES, options);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        serverThread.start();
+        assertTrue(server.awaitListening(10, TimeUnit.SECONDS));
+
+        List<Future<Long>> clients = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < 50; client++) {
+                clients.add(executor.submit(() -> {
+                    SocketChannel socketChannel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+                    ClientMessageService service = new ClientMessageService(open(socketChannel, options), MAX_MESSAGES, options);
+                    service.sendMessage();
+                    return service.getMetrics().getMessagesReceived();
+                }));
+            }
+        }
+        for (Future<Long> client : clients) assertEquals(MAX_MESSAGES, client.get().longValue());
+
+        server.shutdown();
+        serverThread.join();
+        assertFalse("server should delete the socket file", Files.exists(socketPath));
+    }
+
+    @Test(timeout = 60_000)
+    public void multiplexedGamesShouldShareOneConnection() throws Exception {
+        for (WireProtocol protocol : WireProtocol.values()) {
+            for (IoMode ioMode : IoMode.values()) {
+                for (int writeBatch : new int[] {1, 32}) {
+                    ProcessOptions options = ProcessOptions.defaults().withProtocol(protocol).withIoMode(ioMode)
+                            .withGames(1_000).withMetrics(true).withWriteBatch(writeBatch)
+                            .withHeaders(ioMode == IoMode.CHANNEL && writeBatch > 1);
+                    try (ServerSocketChannel serverChannel = ServerSocketChannel.open()
+                            .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+                        ServerMessageService[] server = new ServerMessageService[1];
+                        Thread serverThread = new Thread(() -> {
+                            try {
+                                server[0] = new ServerMessageService(open(serverChannel.accept(), options), MAX_MESSAGES, options);
+                                server[0].sendMessage();
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                        serverThread.start();
+                        ClientMessageService client = new ClientMessageService(
+                                open(SocketChannel.open(serverChannel.getLocalAddress()), options), MAX_MESSAGES, options);
+                        client.sendMessage();
+                        serverThread.join();
+
+                        assertEquals(1_000 * MAX_MESSAGES, client.getMetrics().getMessagesReceived());
+                        assertEquals(1_000 * MAX_MESSAGES, client.getMetrics().getRoundTrips());
+                        assertEquals(1_000 * MAX_MESSAGES, server[0].getMetrics().getMessagesSent());
+                        assertEquals(client.getMetrics().getBytesSent(), server[0].getMetrics().getBytesReceived());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test(timeout = 60_000)
+    public void publishedGameShouldDeliverEveryMessageOnDemand() throws Exception {
+        for (int window : new int[] {1, 4}) {
+            ProcessOptions options = ProcessOptions.defaults().withIoMode(IoMode.CHANNEL).withPrintMessages(false)
+                    .withWindow(window);
+            try (ServerSocketChannel serverChannel = ServerSocketChannel.open()
+                    .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+                ClientMessageService client = new ClientMessageService(
+                        open(SocketChannel.open(serverChannel.getLocalAddress()), options), MAX_MESSAGES, options);
+                ServerMessageService server = new ServerMessageService(open(serverChannel.accept(), options), MAX_MESSAGES, options);
+                TestGamePublisher.CollectingSubscriber responses = new TestGamePublisher.CollectingSubscriber();
+                TestGamePublisher.CollectingSubscriber messages = new TestGamePublisher.CollectingSubscriber();
+                client.responses().subscribe(responses);
+                server.messages().subscribe(messages);
+
+                responses.subscription.request(1);
+                messages.subscription.request(Long.MAX_VALUE);
+                responses.awaitMessages(1);
+                Thread.sleep(100);
+                assertEquals(1, responses.messages.size());
+
+                responses.subscription.request(Long.MAX_VALUE);
+                assertTrue(responses.completed.await(10, TimeUnit.SECONDS));
+                assertTrue(messages.completed.await(10, TimeUnit.SECONDS));
+                assertEquals(MAX_MESSAGES, responses.messages.size());
+                assertEquals(MAX_MESSAGES, messages.messages.size());
+                assertTrue(responses.messages.get(MAX_MESSAGES - 1).startsWith(messages.messages.get(MAX_MESSAGES - 1)));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void multiplexedGamesShouldRejectPipelining() throws Exception {
+        new ServerMessageService((FrameChannel) null, MAX_MESSAGES, ProcessOptions.defaults().withGames(2).withWindow(2));
+    }
+
+    private static String[] sortedLines(String printed) {
+        String[] lines = printed.split(System.lineSeparator());
+        Arrays.sort(lines);
+        return lines;
+    }
+
+    /** Plays one game over a loopback connection and returns everything both sides printed */
+    private static String playGame(ProcessOptions options) throws Exception {
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()
+                .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            Thread serverThread = new Thread(() -> {
+                try (FrameChannel accepted = open(serverChannel.accept(), options)) {
+                    new ServerMessageService(accepted, MAX_MESSAGES, options).sendMessage();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            serverThread.start();
+            try (FrameChannel channel = open(SocketChannel.open(serverChannel.getLocalAddress()), options)) {
+                new ClientMessageService(channel, MAX_MESSAGES, options).sendMessage();
+            }
+            serverThread.join();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return printed.toString();
+    }
+
+    /** Plays one game over shared memory, with the client attaching before the server creates the file */
+    private static String playSharedMemoryGame(ProcessOptions options) throws Exception {
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try {
+            Thread clientThread = new Thread(() -> {
+                try (FrameChannel channel = FrameChannel.sharedMemoryClient(options.getSharedMemoryFile())) {
+                    new ClientMessageService(channel, MAX_MESSAGES, options).sendMessage();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            clientThread.start();
+            try (FrameChannel channel = FrameChannel.sharedMemoryServer(options.getSharedMemoryFile(),
+                    options.getSharedMemoryCapacity())) {
+                new ServerMessageService(channel, MAX_MESSAGES, options).sendMessage();
+            }
+            clientThread.join();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return printed.toString();
+    }
+
+    /** Plays one game through PlayerServer and PlayerClient, with the client connecting before the server listens */
+    private static String playUnixSocketGame(ProcessOptions options) throws Exception {
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try {
+            Thread clientThread = new Thread(() -> new PlayerClient(MAX_MESSAGES, options).startPlayerInitiator());
+            clientThread.start();
+            new PlayerServer(MAX_MESSAGES, options).startPlayerResponder();
+            clientThread.join();
+        } finally {
+            System.setOut(originalOut);
+        }
+        return printed.toString();
+    }
+
+    private static FrameChannel open(SocketChannel socketChannel, ProcessOptions options) throws IOException {
+        return options.getIoMode() == IoMode.CHANNEL
+                ? FrameChannel.lengthPrefixed(socketChannel, options.getWriteBatch())
+                : FrameChannel.lines(socketChannel.socket(), options.getWriteBatch());
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.anishshinde;
+
+import com.anishshinde.thread.SpscRingBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestSpscRingBuffer {
+
+    @Test
+    public void capacityShouldBeRoundedUpToPowerOfTwo() {
+        assertEquals(8, new SpscRingBuffer<String>(5).capacity());
+        assertEquals(1, new SpscRingBuffer<String>(1).capacity());
+    }
+
+    @Test
+    public void offerShouldFailWhenFullAndPollShouldReturnElementsInOrder() {
+        SpscRingBuffer<String> ring = new SpscRingBuffer<>(2);
+        assertNull(ring.poll());
+        assertTrue(ring.offer("a"));
+        assertTrue(ring.offer("b"));
+        assertFalse(ring.offer("c"));
+        assertEquals(2, ring.size());
+
+        assertEquals("a", ring.poll());
+        assertTrue(ring.offer("c"));
+        assertEquals("b", ring.poll());
+        assertEquals("c", ring.poll());
+        assertNull(ring.poll());
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void elementsShouldArriveInOrderAcrossThreads() throws InterruptedException {
+        int count = 100_000;
+        SpscRingBuffer<Integer> ring = new SpscRingBuffer<>(16);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                while (!ring.offer(i)) Thread.yield();
+            }
+        });
+        producer.start();
+
+        for (int expected = 0; expected < count; expected++) {
+            Integer value;
+            while ((value = ring.poll()) == null) Thread.yield();
+            assertEquals(expected, value.intValue());
+        }
+        producer.join();
+        assertTrue(ring.isEmpty());
+    }
+
+}
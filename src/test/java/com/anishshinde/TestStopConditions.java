@@ -0,0 +1,144 @@
+package com.anishshinde;
+
+import com.anishshinde.common.CommandLineOptions;
+import com.anishshinde.common.StopCondition;
+import com.anishshinde.thread.GameResult;
+import com.anishshinde.thread.MailboxType;
+import com.anishshinde.thread.Player;
+import com.anishshinde.thread.PlayerOptions;
+import com.anishshinde.thread.Tournament;
+import com.anishshinde.thread.TournamentReport;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestStopConditions {
+
+    private static final int MAX_MESSAGES = 100_000;
+
+    @Test(timeout = 60_000)
+    public void byteBudgetShouldEndStopAndWaitGameAfterFirstResponse() throws InterruptedException {
+        PlayerOptions options = PlayerOptions.defaults().withPrintMessages(false).withMetrics(true)
+                .withStopCondition(StopCondition.bytes(1));
+        Player[] players = playThreaded(options);
+
+        assertEquals(1, players[0].getMetrics().getMessagesSent());
+        assertEquals(1, players[1].getMetrics().getMessagesSent());
+        assertEquals(1, players[1].getMetrics().getMessagesReceived());
+    }
+
+    @Test(timeout = 60_000)
+    public void pipelinedGameShouldAnswerMessagesInFlightBeforeStopping() throws InterruptedException {
+        PlayerOptions options = PlayerOptions.defaults().withPrintMessages(false).withMetrics(true)
+                .withMailbox(MailboxType.RING, 16).withWindow(4)
+                .withStopCondition(() -> (responses, bytes) -> responses >= 10);
+        Player[] players = playThreaded(options);
+
+        long sent = players[0].getMetrics().getMessagesSent();
+        assertTrue("sent " + sent, sent >= 10 && sent < 10 + 4);
+        assertEquals(sent, players[0].getMetrics().getMessagesReceived());
+        assertEquals(sent, players[1].getMetrics().getMessagesSent());
+    }
+
+    @Test(timeout = 60_000)
+    public void eventLoopGamesShouldStopEarly() {
+        PlayerOptions options = PlayerOptions.defaults().withPrintMessages(false).withStopCondition(StopCondition.bytes(1));
+
+        assertEquals(4 * 2, Tournament.run(4, MAX_MESSAGES, options, 2).getTotalMessages());
+        assertEquals(4 * 2 * 8, Tournament.run(4, MAX_MESSAGES, options.withWindow(8), 2).getTotalMessages());
+    }
+
+    @Test(timeout = 60_000)
+    public void durationShouldEndGameOnTime() {
+        PlayerOptions options = PlayerOptions.defaults().withPrintMessages(false).withWindow(4)
+                .withStopCondition(StopCondition.duration(Duration.ofMillis(100)));
+        TournamentReport report = Tournament.run(1, Integer.MAX_VALUE, options, 1);
+
+        GameResult result = report.getResults().get(0);
+        assertTrue(result.getMessages() < 2L * Integer.MAX_VALUE);
+        assertTrue(result.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(95));
+    }
+
+    @Test
+    public void roundTripPercentileShouldOnlyBeCheckedOncePerBlock() {
+        StopCondition.Check breached = StopCondition.roundTripPercentile(99, Duration.ofNanos(1)).start();
+        StopCondition.Check relaxed = StopCondition.roundTripPercentile(99, Duration.ofHours(1)).start();
+
+        for (int responses = 1; responses < StopCondition.SLO_BLOCK; responses++) {
+            breached.roundTrip(1_000);
+            assertFalse(breached.isMet(responses, 0));
+        }
+        relaxed.roundTrip(1_000);
+        assertTrue(breached.isMet(StopCondition.SLO_BLOCK, 0));
+        assertFalse(relaxed.isMet(StopCondition.SLO_BLOCK, 0));
+    }
+
+    @Test
+    public void roundTripPercentileShouldCatchATailTheMedianHides() {
+        Duration slo = Duration.ofMillis(5);
+        StopCondition.Check p99 = StopCondition.anyOf(StopCondition.roundTripPercentile(99, slo), StopCondition.bytes(Long.MAX_VALUE)).start();
+        StopCondition.Check p50 = StopCondition.roundTripPercentile(50, slo).start();
+        // one stalled round trip, the others fast
+        for (int responses = 1; responses <= StopCondition.SLO_BLOCK; responses++) {
+            long nanos = responses == 1 ? TimeUnit.MILLISECONDS.toNanos(20) : TimeUnit.MICROSECONDS.toNanos(10);
+            p99.roundTrip(nanos);
+            p50.roundTrip(nanos);
+        }
+        assertTrue(p99.isMet(StopCondition.SLO_BLOCK, 0));
+        assertFalse(p50.isMet(StopCondition.SLO_BLOCK, 0));
+    }
+
+    @Test(timeout = 60_000)
+    public void sloShouldMeasureRoundTripsNotPrintingDelays() throws InterruptedException {
+        // the printing initiator sleeps MESSAGE_DELAY_MS after every response, outside of the round trip
+        int maxMessages = 2 * StopCondition.SLO_BLOCK;
+        PlayerOptions options = PlayerOptions.defaults().withMetrics(true)
+                .withStopCondition(StopCondition.roundTripPercentile(99, Duration.ofMillis(10)));
+        Player initiator = new Player("slo-initiator", true, maxMessages, options);
+        Player responder = new Player("slo-responder", false, maxMessages, options.withPrintMessages(false));
+        initiator.setOtherPlayer(responder);
+        responder.setOtherPlayer(initiator);
+        Thread responderThread = new Thread(responder);
+        responderThread.start();
+        initiator.run();
+        responderThread.join();
+        initiator.close();
+        responder.close();
+
+        assertEquals(maxMessages, initiator.getMetrics().getMessagesSent());
+    }
+
+    @Test
+    public void commandLineShouldCombineConditions() {
+        assertNull(StopCondition.fromCommandLine(CommandLineOptions.parse(new String[]{"--window=2"})));
+
+        StopCondition.Check check = StopCondition.fromCommandLine(
+                CommandLineOptions.parse(new String[]{"--stop-kib=1", "--stop-after-ms=60000"})).start();
+        assertFalse(check.isMet(1, 1023));
+        assertTrue(check.isMet(1, 1024));
+    }
+
+    /** Plays one game between two threaded players and returns them (initiator first) once both are done */
+    private static Player[] playThreaded(PlayerOptions options) throws InterruptedException {
+        Player initiator = new Player("stop-initiator", true, MAX_MESSAGES, options);
+        Player responder = new Player("stop-responder", false, MAX_MESSAGES, options);
+        initiator.setOtherPlayer(responder);
+        responder.setOtherPlayer(initiator);
+        Thread initiatorThread = new Thread(initiator);
+        Thread responderThread = new Thread(responder);
+        initiatorThread.start();
+        responderThread.start();
+        initiatorThread.join();
+        responderThread.join();
+        initiator.getMetrics().unregister();
+        responder.getMetrics().unregister();
+        return new Player[]{initiator, responder};
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.anishshinde;
+
+import com.anishshinde.thread.GameResult;
+import com.anishshinde.thread.PlayerOptions;
+import com.anishshinde.thread.Tournament;
+import com.anishshinde.thread.TournamentReport;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestTournament {
+
+    @Test(timeout = 60_000)
+    public void everyGameShouldReportItsResult() {
+        TournamentReport report = Tournament.run(50, 10, PlayerOptions.defaults(), 4);
+
+        assertEquals(50, report.getGames());
+        assertEquals(4, report.getParallelism());
+        assertEquals(50 * 20, report.getTotalMessages());
+        assertEquals(50, report.getDurations().count());
+        int finalMessageLength = report.getResults().get(0).getFinalMessageLength();
+        assertTrue(finalMessageLength > 0);
+        for (int game = 0; game < 50; game++) {
+            GameResult result = report.getResults().get(game);
+            assertEquals(game, result.getGame());
+            assertEquals(20, result.getMessages());
+            assertEquals(finalMessageLength, result.getFinalMessageLength());
+            assertTrue(result.getDurationNanos() > 0);
+        }
+    }
+
+    @Test(timeout = 60_000)
+    public void pipelinedGamesShouldSendAllMessages() {
+        TournamentReport report = Tournament.run(8, 100, PlayerOptions.defaults().withWindow(8), 2);
+
+        assertEquals(8 * 200, report.getTotalMessages());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parallelismShouldBePositive() {
+        Tournament.run(1, 10, PlayerOptions.defaults(), 0);
+    }
+
+}
@@ -1,5 +1,7 @@
 #!/usr/bin/env bash
 
+# Any arguments given to this script (e.g. --mailbox=ring) are passed on to App unchanged
+
 # Build the project first
 echo "*** Building the project using Maven ***"
 mvn clean package || { echo "Maven build failed! Exiting."; exit 1; }
@@ -52,7 +54,7 @@ echo "- Max messages: $MAX_MESSAGES"
 echo ""
 
 if $USE_THREADS; then
-    java -cp target/classes com.anishshinde.App $USE_THREADS "$MAX_MESSAGES"
+    java -cp target/classes com.anishshinde.App $USE_THREADS "$MAX_MESSAGES" "$@"
 else
-    java -cp target/classes com.anishshinde.App $USE_THREADS "$MAX_MESSAGES"
+    java -cp target/classes com.anishshinde.App $USE_THREADS "$MAX_MESSAGES" "$@"
 fi
\ No newline at end of file